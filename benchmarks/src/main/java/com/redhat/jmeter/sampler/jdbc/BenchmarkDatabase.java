@@ -0,0 +1,54 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Loopback database of the bundled {@code jdbc:loopback} driver returning an {@code INTEGER} column followed
+ * by {@code C2..Cn+1} columns of one type, generated as they are read with no fetch latency. The driver does
+ * next to no work, so what the benchmarks measure is the sampler.
+ */
+final class BenchmarkDatabase {
+
+    static final String[] COLUMN_TYPES = {"INTEGER", "VARCHAR", "TIMESTAMP", "DECIMAL"}; // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$ $NON-NLS-4$
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * @param rows       number of rows of every query
+     * @param columns    number of columns besides the first one
+     * @param columnType one of {@link #COLUMN_TYPES}
+     * @return a connection to the loopback driver
+     * @throws SQLException
+     */
+    static Connection open(int rows, int columns, String columnType) throws SQLException {
+        StringBuilder url = new StringBuilder("jdbc:loopback:rows=").append(rows).append(";columns=INTEGER"); // $NON-NLS-1$ $NON-NLS-2$
+        for (int c = 1; c <= columns; c++) {
+            url.append(',').append("VARCHAR".equals(columnType) ? "VARCHAR(16)" : columnType); // $NON-NLS-1$ $NON-NLS-2$
+        }
+        return DriverManager.getConnection(url.toString());
+    }
+
+    /**
+     * @return the query reading every row
+     */
+    static String selectAll() {
+        return "SELECT * FROM T"; // $NON-NLS-1$
+    }
+
+    /**
+     * @return a value of the column type, as text in the format the parameter binding accepts
+     */
+    static String text(String columnType, int row, int column) {
+        if ("VARCHAR".equals(columnType)) { // $NON-NLS-1$
+            return "value-" + row + "-" + column; // $NON-NLS-1$ $NON-NLS-2$
+        } else if ("TIMESTAMP".equals(columnType)) { // $NON-NLS-1$
+            return new java.sql.Timestamp(1450000000000L + row * 1000L + column).toString();
+        } else if ("DECIMAL".equals(columnType)) { // $NON-NLS-1$
+            return java.math.BigDecimal.valueOf(row * 100L + column, 2).toString();
+        }
+        return Integer.toString(row * 31 + column);
+    }
+}
@@ -0,0 +1,37 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import org.apache.jorphan.logging.LoggingManager;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Sampler element configured for one query type and result set handler, exposing {@link #execute(Connection)}
+ * to the benchmarks.
+ */
+class BenchmarkElement extends AbstractJDBCAdvancedTestElement {
+
+    private static final long serialVersionUID = 1L;
+
+    static {
+        // keeps the per-execution debug logging out of the measurements
+        LoggingManager.setPriority("WARN"); // $NON-NLS-1$
+    }
+
+    BenchmarkElement(String queryType, String query, String resultSetHandler) {
+        setQueryType(queryType);
+        setQuery(query);
+        setResultSetHandler(resultSetHandler);
+        setQueryArguments(""); // $NON-NLS-1$
+        setQueryArgumentsTypes(""); // $NON-NLS-1$
+        setVariableNames(""); // $NON-NLS-1$
+        setResultVariable(""); // $NON-NLS-1$
+        setQueryTimeout("0"); // $NON-NLS-1$
+        setFetchSize("100"); // $NON-NLS-1$
+    }
+
+    byte[] run(Connection conn) throws SQLException, IOException {
+        return execute(conn);
+    }
+}
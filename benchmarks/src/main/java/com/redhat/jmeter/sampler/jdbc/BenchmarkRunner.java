@@ -0,0 +1,78 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs the benchmarks with the GC profiler and prints time and allocation per row, so result sets of
+ * different sizes can be compared. Accepts the usual JMH command line options, e.g. a benchmark
+ * name pattern or {@code -p rows=10000} to restrict the parameters. Nothing is measured unless
+ * {@link RowSerializerCheck} finds the response text unchanged.
+ */
+public final class BenchmarkRunner {
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm"; // $NON-NLS-1$
+    private static final String ROWS = "rows"; // $NON-NLS-1$
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException,
+            SQLException, IOException, ReflectiveOperationException {
+        List<String> mismatches = RowSerializerCheck.run();
+        if (!mismatches.isEmpty()) {
+            for (String mismatch : mismatches) {
+                System.err.println(mismatch);
+            }
+            System.exit(1);
+        }
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        System.out.println();
+        System.out.println(String.format(Locale.ENGLISH, "%-90s %12s %12s", "Benchmark", "ns/row", "B/row")); // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$ $NON-NLS-4$
+        for (RunResult result : results) {
+            Map<String, String> params = result.getParams().getParamsKeys().isEmpty()
+                    ? null : paramsOf(result);
+            long rows = params != null && params.containsKey(ROWS) ? Math.max(1, Long.parseLong(params.get(ROWS))) : 1;
+            double nanos = result.getPrimaryResult().getScore();
+            Result allocation = result.getSecondaryResults().get(ALLOCATION);
+            System.out.println(String.format(Locale.ENGLISH, "%-90s %12.1f %12.1f", // $NON-NLS-1$
+                    label(result, params), nanos / rows, allocation == null ? Double.NaN : allocation.getScore() / rows));
+        }
+    }
+
+    private static Map<String, String> paramsOf(RunResult result) {
+        Map<String, String> params = new java.util.LinkedHashMap<String, String>();
+        for (String key : result.getParams().getParamsKeys()) {
+            params.put(key, result.getParams().getParam(key));
+        }
+        return params;
+    }
+
+    private static String label(RunResult result, Map<String, String> params) {
+        String benchmark = result.getParams().getBenchmark();
+        StringBuilder label = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+        if (params != null) {
+            label.append(params);
+        }
+        return label.toString();
+    }
+}
@@ -0,0 +1,122 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading a result set through the sampler, per result set handler, on result sets of the loopback
+ * driver. {@link #baseline(Blackhole)} reads the same rows with plain JDBC calls, so the difference with the
+ * other benchmarks is the work the sampler adds on top of the driver.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultSetBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int rows;
+
+    @Param({"1", "10"})
+    public int columns;
+
+    @Param({"INTEGER", "VARCHAR", "TIMESTAMP", "DECIMAL"})
+    public String columnType;
+
+    private Connection conn;
+    private PreparedStatement baseline;
+    private BenchmarkElement storeAsString;
+    private BenchmarkElement storeAsObject;
+    private BenchmarkElement drain;
+    private BenchmarkElement callable;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        // the result variable is stored in the variables of the benchmark thread
+        JMeterContextService.getContext().setVariables(new JMeterVariables());
+        conn = BenchmarkDatabase.open(rows, columns, columnType);
+        baseline = conn.prepareStatement(BenchmarkDatabase.selectAll());
+        baseline.setFetchSize(100);
+        String select = AbstractJDBCAdvancedTestElement.PREPARED_SELECT;
+        storeAsString = new BenchmarkElement(select, BenchmarkDatabase.selectAll(), AbstractJDBCAdvancedTestElement.RS_STORE_AS_STRING);
+        storeAsObject = new BenchmarkElement(select, BenchmarkDatabase.selectAll(), AbstractJDBCAdvancedTestElement.RS_STORE_AS_OBJECT);
+        storeAsObject.setResultVariable("result"); // $NON-NLS-1$
+        drain = new BenchmarkElement(select, BenchmarkDatabase.selectAll(), AbstractJDBCAdvancedTestElement.RS_DRAIN);
+        callable = new BenchmarkElement(AbstractJDBCAdvancedTestElement.CALLABLE, BenchmarkDatabase.selectAll(),
+                AbstractJDBCAdvancedTestElement.RS_STORE_AS_STRING);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        baseline.close();
+        AbstractJDBCAdvancedTestElement.getStatementCache().closeAll();
+        conn.close();
+    }
+
+    @Benchmark
+    public void baseline(Blackhole bh) throws SQLException {
+        ResultSet rs = baseline.executeQuery();
+        int numColumns = rs.getMetaData().getColumnCount();
+        while (rs.next()) {
+            for (int i = 1; i <= numColumns; i++) {
+                bh.consume(rs.getObject(i));
+            }
+        }
+        rs.close();
+    }
+
+    /**
+     * "Store as String": the tab separated response text
+     */
+    @Benchmark
+    public byte[] writeResultSet() throws SQLException, IOException {
+        return storeAsString.run(conn);
+    }
+
+    /**
+     * "Store as Object" with a result variable: the columnar row store
+     */
+    @Benchmark
+    public byte[] writeResultSetToVariable() throws SQLException, IOException {
+        return storeAsObject.run(conn);
+    }
+
+    /**
+     * "Drain Only": counters only
+     */
+    @Benchmark
+    public byte[] drainResultSet() throws SQLException, IOException {
+        return drain.run(conn);
+    }
+
+    /**
+     * Callable statement: every result set and update count of the statement
+     */
+    @Benchmark
+    public byte[] writeResultSets() throws SQLException, IOException {
+        return callable.run(conn);
+    }
+}
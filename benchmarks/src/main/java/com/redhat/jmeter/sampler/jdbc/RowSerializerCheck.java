@@ -0,0 +1,142 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import org.apache.jmeter.protocol.jdbc.AbstractJDBCTestElement;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks that the text response of the string handlers, written by {@link RowSerializer}, is byte for byte
+ * the response of JMeter's own {@code getStringFromResultSet}, on loopback result sets with every non-LOB
+ * column type the loopback driver generates and NULLs in each of them. Character values get a non-ASCII
+ * suffix, including an unpaired surrogate, so the encoder is compared with {@link String#getBytes(String)}
+ * as well. {@link BenchmarkRunner} runs the check before measuring anything.
+ */
+public final class RowSerializerCheck {
+
+    private static final String COLUMNS = "INTEGER,BIGINT,DOUBLE,DECIMAL,BOOLEAN,DATE,TIMESTAMP,VARCHAR(12),CHAR(4),VARBINARY(8)"; // $NON-NLS-1$
+    private static final String URL = "jdbc:loopback:rows=40;nullEvery=3;columns=" + COLUMNS; // $NON-NLS-1$
+
+    private static final String[] SUFFIXES = {"", " \u00e9\u00e8", " \u65e5\u672c", " \ud83d\ude00", " \ud800"}; // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$ $NON-NLS-4$ $NON-NLS-5$
+
+    private RowSerializerCheck() {
+    }
+
+    public static void main(String[] args) throws SQLException, IOException, ReflectiveOperationException {
+        List<String> mismatches = run();
+        for (String mismatch : mismatches) {
+            System.err.println(mismatch);
+        }
+        System.out.println(mismatches.isEmpty() ? "Row serializer output matches getStringFromResultSet" // $NON-NLS-1$
+                : mismatches.size() + " mismatches"); // $NON-NLS-1$
+        System.exit(mismatches.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * @return a description of every handler whose response differs from the baseline, empty if all match
+     * @throws SQLException                when the loopback result sets cannot be read
+     * @throws IOException                 when a response cannot be written
+     * @throws ReflectiveOperationException when the baseline cannot be called
+     */
+    static List<String> run() throws SQLException, IOException, ReflectiveOperationException {
+        JMeterContextService.getContext().setVariables(new JMeterVariables());
+        Method baseline = AbstractJDBCTestElement.class.getDeclaredMethod("getStringFromResultSet", ResultSet.class); // $NON-NLS-1$
+        baseline.setAccessible(true);
+        List<String> mismatches = new ArrayList<String>();
+        Connection conn = withText(DriverManager.getConnection(URL));
+        try {
+            String[][] handlers = {
+                    {AbstractJDBCAdvancedTestElement.RS_STORE_AS_STRING, ""}, // $NON-NLS-1$
+                    {AbstractJDBCAdvancedTestElement.RS_STORE_AS_STRING, "result"}, // $NON-NLS-1$
+                    {AbstractJDBCAdvancedTestElement.RS_STORE_AS_OBJECT, "result"}, // $NON-NLS-1$
+            };
+            for (String[] handler : handlers) {
+                BenchmarkElement element = new BenchmarkElement(AbstractJDBCAdvancedTestElement.SELECT, "SELECT", handler[0]); // $NON-NLS-1$
+                element.setResultVariable(handler[1]);
+                byte[] actual = element.run(conn);
+
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT"); // $NON-NLS-1$
+                byte[] expected;
+                try {
+                    expected = ((String) baseline.invoke(element, rs)).getBytes("UTF-8"); // $NON-NLS-1$
+                } finally {
+                    rs.close();
+                    stmt.close();
+                }
+                if (!Arrays.equals(expected, actual)) {
+                    mismatches.add(handler[0] + (handler[1].length() > 0 ? " with result variable" : "") // $NON-NLS-1$ $NON-NLS-2$
+                            + ": " + describe(expected, actual)); // $NON-NLS-1$
+                }
+            }
+        } finally {
+            AbstractJDBCAdvancedTestElement.getStatementCache().closeAll();
+            conn.close();
+        }
+        return mismatches;
+    }
+
+    private static String describe(byte[] expected, byte[] actual) throws IOException {
+        int offset = 0;
+        while (offset < expected.length && offset < actual.length && expected[offset] == actual[offset]) {
+            offset++;
+        }
+        int from = Math.max(0, offset - 20);
+        return "first difference at byte " + offset + " of " + expected.length + " / " + actual.length // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$
+                + ", expected ..." + new String(expected, from, Math.min(expected.length, offset + 20) - from, "UTF-8") // $NON-NLS-1$ $NON-NLS-2$
+                + " got ..." + new String(actual, from, Math.min(actual.length, offset + 20) - from, "UTF-8"); // $NON-NLS-1$ $NON-NLS-2$
+    }
+
+    /**
+     * Wraps a connection so the values of its character columns end with one of {@link #SUFFIXES}, chosen
+     * from the value itself so every read of a value gets the same text.
+     */
+    private static Connection withText(Connection conn) {
+        return (Connection) wrap(Connection.class, conn);
+    }
+
+    private static Object wrap(Class<?> type, final Object target) {
+        return Proxy.newProxyInstance(RowSerializerCheck.class.getClassLoader(), new Class<?>[]{type}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result instanceof ResultSet) {
+                    return wrap(ResultSet.class, result);
+                } else if (result instanceof Statement && method.getReturnType().isInterface()) {
+                    return wrap(method.getReturnType(), result);
+                } else if (result instanceof String && target instanceof ResultSet && isCharacter((ResultSet) target, method, args)) {
+                    String value = (String) result;
+                    return value + SUFFIXES[(value.hashCode() & 0x7fffffff) % SUFFIXES.length];
+                }
+                return result;
+            }
+        });
+    }
+
+    private static boolean isCharacter(ResultSet rs, Method method, Object[] args) throws SQLException {
+        if (!("getString".equals(method.getName()) || "getObject".equals(method.getName())) // $NON-NLS-1$ $NON-NLS-2$
+                || args.length != 1 || !(args[0] instanceof Integer)) {
+            return false;
+        }
+        int type = rs.getMetaData().getColumnType((Integer) args[0]);
+        return type == Types.VARCHAR || type == Types.CHAR;
+    }
+}
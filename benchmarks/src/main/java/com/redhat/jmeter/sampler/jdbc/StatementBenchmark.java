@@ -0,0 +1,95 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-sample cost of a prepared update through the sampler, and of its parts: getting the statement
+ * from the statement cache, and splitting the parameter values and binding them with the typed setters.
+ * The element runs against the loopback driver, whose execution costs next to nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementBenchmark {
+
+    @Param({"1", "10"})
+    public int columns;
+
+    @Param({"INTEGER", "VARCHAR", "TIMESTAMP", "DECIMAL"})
+    public String columnType;
+
+    private Connection conn;
+    private BenchmarkElement update;
+    private PreparedStatement pstmt;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        conn = BenchmarkDatabase.open(0, columns, columnType);
+        StringBuilder sql = new StringBuilder("INSERT INTO T VALUES (?"); // $NON-NLS-1$
+        StringBuilder values = new StringBuilder("1"); // $NON-NLS-1$
+        StringBuilder types = new StringBuilder("INTEGER"); // $NON-NLS-1$
+        for (int c = 1; c <= columns; c++) {
+            sql.append(", ?"); // $NON-NLS-1$
+            values.append(',').append(BenchmarkDatabase.text(columnType, 1, c));
+            types.append(',').append(columnType);
+        }
+        update = new BenchmarkElement(AbstractJDBCAdvancedTestElement.PREPARED_UPDATE, sql.append(')').toString(),
+                AbstractJDBCAdvancedTestElement.RS_STORE_AS_STRING);
+        update.setQueryArguments(values.toString());
+        update.setQueryArgumentsTypes(types.toString());
+        // prepares and caches the statement, as the first sample of a thread does
+        update.run(conn);
+        pstmt = update.getPreparedStatement(conn);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        AbstractJDBCAdvancedTestElement.getStatementCache().closeAll();
+        conn.close();
+    }
+
+    /**
+     * "Prepared Update": one whole execution of the element
+     */
+    @Benchmark
+    public byte[] execute() throws SQLException, IOException {
+        return update.run(conn);
+    }
+
+    /**
+     * Statement cache lookup of an already prepared statement
+     */
+    @Benchmark
+    public PreparedStatement getPreparedStatement() throws SQLException {
+        return update.getPreparedStatement(conn);
+    }
+
+    /**
+     * Splitting and binding the parameter values of one sample
+     */
+    @Benchmark
+    public int[] setArguments() throws SQLException, IOException {
+        return update.setArguments(pstmt);
+    }
+}
@@ -1,10 +1,11 @@
 package com.redhat.jmeter.sampler.jdbc;
 
-import org.apache.commons.collections.map.AbstractLinkedMap;
-import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.jmeter.protocol.jdbc.AbstractJDBCTestElement;
-import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.protocol.jdbc.config.DataSourceElement;
+import org.apache.jmeter.testelement.ThreadListener;
+import org.apache.jmeter.threads.AbstractThreadGroup;
+import org.apache.jmeter.threads.JMeterContext;
 import org.apache.jmeter.threads.JMeterVariables;
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.logging.LoggingManager;
@@ -12,33 +13,38 @@ import org.apache.log.Logger;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by vklevko on 2/29/16.
  */
-public abstract class AbstractJDBCAdvancedTestElement extends AbstractJDBCTestElement {
+public abstract class AbstractJDBCAdvancedTestElement extends AbstractJDBCTestElement implements ThreadListener {
 
     private static final Logger log = LoggingManager.getLoggerForClass();
 
     private String fetchSize = "10";
     private String resultSetReadDelay = "0";
+    private String readPacingMode = ConsumerPacing.PER_ROW_DELAY;
+    private String readDelayJitter = ConsumerPacing.JITTER_NONE;
 
     static final String SELECT = "Select Statement";
+    static final String UPDATE = "Update Statement"; // $NON-NLS-1$
     static final String CALLABLE = "Callable Statement"; // $NON-NLS-1$
     static final String PREPARED_SELECT = "Prepared Select Statement"; // $NON-NLS-1$
+    static final String PREPARED_UPDATE = "Prepared Update Statement"; // $NON-NLS-1$
+    static final String PREPARED_BATCH_UPDATE = "Prepared Batch Update"; // $NON-NLS-1$
+    static final String COMMIT = "Commit"; // $NON-NLS-1$
+    static final String ROLLBACK = "Rollback"; // $NON-NLS-1$
+    static final String AUTOCOMMIT_FALSE = "AutoCommit(false)"; // $NON-NLS-1$
+    static final String AUTOCOMMIT_TRUE = "AutoCommit(true)"; // $NON-NLS-1$
     private static final String COMMA = ","; // $NON-NLS-1$
-    private static final char COMMA_CHAR = ',';
     private static final String UNDERSCORE = "_"; // $NON-NLS-1$
-
-    private static final String OUT = "OUT"; // $NON-NLS-1$
-    private static final String INOUT = "INOUT"; // $NON-NLS-1$
-
-    private static final String NULL_MARKER =
-            JMeterUtils.getPropDefault("jdbcsampler.nullmarker", "]NULL["); // $NON-NLS-1$
+    private static final int DEFAULT_FETCH_SIZE = 10;
+    private static final int MAX_CAPTURE_LIMIT = Integer.MAX_VALUE - 8;
 
     private static final int MAX_OPEN_PREPARED_STATEMENTS =
             JMeterUtils.getPropDefault("jdbcsampler.maxopenpreparedstatements", 100);
@@ -46,37 +52,100 @@ public abstract class AbstractJDBCAdvancedTestElement extends AbstractJDBCTestEl
     static final String RS_STORE_AS_STRING = "Store as String"; // $NON-NLS-1$
     static final String RS_STORE_AS_OBJECT = "Store as Object"; // $NON-NLS-1$
     static final String RS_COUNT_RECORDS = "Count Records"; // $NON-NLS-1$
+    static final String RS_DRAIN = "Drain Only"; // $NON-NLS-1$
+    static final String RS_CAPTURE_BOUNDED = "Capture Bounded"; // $NON-NLS-1$
+    static final String RS_CHECKSUM_ORDERED = "Checksum (ordered)"; // $NON-NLS-1$
+    static final String RS_CHECKSUM_UNORDERED = "Checksum (unordered)"; // $NON-NLS-1$
 
     private String resultSetHandler = RS_STORE_AS_STRING;
+    private String responseCaptureLimit = "64";
+    private boolean spillToDisk = false;
+    private String statisticsVariable = "";
+    private boolean exportMetrics = false;
+    private String resultSetType = CursorOptions.TYPE_FORWARD_ONLY;
+    private String resultSetConcurrency = CursorOptions.CONCUR_READ_ONLY;
+    private String resultSetHoldability = CursorOptions.HOLD_DEFAULT;
+    private String variableExtraction = VariableExtraction.ALL_ROWS;
+    private String variableExtractionSize = "100";
+    private String lobCaptureLimit = "-1";
+    private boolean lobHash = false;
+    private boolean pinConnection = false;
+    private String parameterFile = "";
+    private String parameterFileFormat = ParameterFeed.FORMAT_TEXT;
+    private String parameterFileOrder = ParameterFeed.ORDER_SHARED;
+    private String batchFile = "";
+    private String batchVariable = "";
+    private String batchSize = "100";
+    private String batchCommitInterval = "0";
+    private String rowBudget = "0";
+    private String byteBudget = "0";
+    private String timeBudget = "0";
 
-    private static final Map<String, Integer> mapJdbcNameToInt;
-    // read-only after class init
+    /**
+     * Per-thread file receiving the response bytes over the capture limit, created on first use
+     */
+    private Path spillFile;
 
-    static {
-        // based on e291. Getting the Name of a JDBC Type from javaalmanac.com
-        // http://javaalmanac.com/egs/java.sql/JdbcInt2Str.html
-        mapJdbcNameToInt = new HashMap<String, Integer>();
+    /**
+     * Counters of the statement currently being executed, replaced on each call to {@link #execute(Connection)}
+     */
+    private ExecutionStatistics executionStatistics = new ExecutionStatistics();
 
-        //Get all fields in java.sql.Types and store the corresponding int values
-        Field[] fields = java.sql.Types.class.getFields();
-        for (int i = 0; i < fields.length; i++) {
-            try {
-                String name = fields[i].getName();
-                Integer value = (Integer) fields[i].get(null);
-                mapJdbcNameToInt.put(name.toLowerCase(java.util.Locale.ENGLISH), value);
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException(e); // should not happen
-            }
-        }
-    }
+    /**
+     * Read pacing of the statement currently being executed, parsed once per call to {@link #execute(Connection)}
+     */
+    private ConsumerPacing pacing = ConsumerPacing.NONE;
+
+    /**
+     * Row, byte and time budgets of the statement currently being executed, parsed once per call to {@link #execute(Connection)}
+     */
+    private StatementBudget budget = StatementBudget.NONE;
+
+    /**
+     * Fetch size of the statement currently being executed, resolved once per execution
+     */
+    private int currentFetchSize = DEFAULT_FETCH_SIZE;
+
+    /**
+     * Tuner choosing the fetch size of the statement currently being executed, {@code null} unless the fetch size is "auto"
+     */
+    private FetchSizeTuner fetchSizeTuner;
+
+    /**
+     * Reader of the large object columns, created on first use and reused with its buffers
+     */
+    private LobReader lobReader;
 
     /**
-     * Cache of PreparedStatements stored in a per-connection basis. Each entry of this
-     * cache is another Map mapping the statement string to the actual PreparedStatement.
-     * At one time a Connection is only held by one thread
+     * Position of this thread in the parameter file, created on first use
      */
-    private static final Map<Connection, Map<String, PreparedStatement>> perConnCache =
-            new ConcurrentHashMap<Connection, Map<String, PreparedStatement>>();
+    private ParameterFeed.Cursor parameterCursor;
+
+    /**
+     * Formatter of the rows of the text response, created on first use and reused with its buffers
+     */
+    private RowSerializer rowSerializer;
+
+    /**
+     * Metrics of the sampler name this element last recorded under
+     */
+    private SamplerMetrics samplerMetrics;
+
+    /**
+     * SQLState class of connection exceptions, after which the statements of the connection are dropped
+     */
+    static final String SQLSTATE_CONNECTION_EXCEPTION = "08"; // $NON-NLS-1$
+
+    /**
+     * Cache of PreparedStatements stored in a per-connection basis, shared by all samplers.
+     */
+    private static final PreparedStatementCache statementCache =
+            new PreparedStatementCache(MAX_OPEN_PREPARED_STATEMENTS);
+
+    /**
+     * Statements of the connection used by the last sample of this thread
+     */
+    private PreparedStatementCache.ConnectionStatements connectionStatements;
 
     public AbstractJDBCAdvancedTestElement() {
         super();
@@ -85,92 +154,306 @@ public abstract class AbstractJDBCAdvancedTestElement extends AbstractJDBCTestEl
     @Override
     protected byte[] execute(Connection conn) throws SQLException, UnsupportedEncodingException, IOException, UnsupportedOperationException {
         log.debug("executing jdbc");
+        executionStatistics = new ExecutionStatistics();
+        resolveFetchSize(getQuery());
+        pacing = ConsumerPacing.create(getReadPacingMode(), getResultSetReadDelay(), getReadDelayJitter(), currentFetchSize);
+        budget = StatementBudget.create(getRowBudget(), getByteBudget(), getTimeBudget());
         Statement stmt = null;
+        ResponseCapture response = null;
 
         try {
             // Based on query return value, get results
             String _queryType = getQueryType();
             if (SELECT.equals(_queryType)) {
-                stmt = conn.createStatement();
+                stmt = getCursorOptions().createStatement(conn);
                 stmt.setQueryTimeout(getIntegerQueryTimeout());
-                stmt.setFetchSize(NumberUtils.isNumber(getFetchSize()) ? Integer.valueOf(getFetchSize()) : 10);
+                applyFetchSize(stmt);
                 ResultSet rs = null;
                 try {
+                    budget.start(stmt);
+                    executionStatistics.executeStarted();
                     rs = stmt.executeQuery(getQuery());
-                    return getStringFromResultSet(rs).getBytes(ENCODING);
+                    executionStatistics.executeEnded();
+                    response = createResponseCapture();
+                    processResultSet(rs, response);
+                    return response.toByteArray();
                 } finally {
-                    close(rs);
+                    closeResultSet(rs);
                 }
             } else if (CALLABLE.equals(_queryType)) {
                 CallableStatement cstmt = getCallableStatement(conn);
-                cstmt.setFetchSize(NumberUtils.isNumber(getFetchSize()) ? Integer.valueOf(getFetchSize()) : 10);
+                applyFetchSize(cstmt);
                 int out[] = setArguments(cstmt);
                 // A CallableStatement can return more than 1 ResultSets
                 // plus a number of update counts.
+                budget.start(cstmt);
+                executionStatistics.executeStarted();
                 boolean hasResultSet = cstmt.execute();
-                String sb = resultSetsToString(cstmt, hasResultSet, out);
-                return sb.getBytes(ENCODING);
+                executionStatistics.executeEnded();
+                response = createResponseCapture();
+                writeResultSets(cstmt, hasResultSet, out, response);
+                return response.toByteArray();
             }
             else if (PREPARED_SELECT.equals(_queryType)) {
                 PreparedStatement pstmt = getPreparedStatement(conn);
-                pstmt.setFetchSize(NumberUtils.isNumber(getFetchSize()) ? Integer.valueOf(getFetchSize()) : 10);
+                applyFetchSize(pstmt);
                 setArguments(pstmt);
                 ResultSet rs = null;
                 try {
+                    budget.start(pstmt);
+                    executionStatistics.executeStarted();
                     rs = pstmt.executeQuery();
-                    return getStringFromResultSet(rs).getBytes(ENCODING);
+                    executionStatistics.executeEnded();
+                    response = createResponseCapture();
+                    processResultSet(rs, response);
+                    return response.toByteArray();
                 } finally {
-                    close(rs);
+                    closeResultSet(rs);
                 }
+            } else if (UPDATE.equals(_queryType)) {
+                stmt = conn.createStatement();
+                stmt.setQueryTimeout(getIntegerQueryTimeout());
+                budget.start(stmt);
+                executionStatistics.executeStarted();
+                stmt.executeUpdate(getQuery());
+                executionStatistics.executeEnded();
+                return (stmt.getUpdateCount() + " updates").getBytes(ENCODING); // $NON-NLS-1$
+            } else if (PREPARED_UPDATE.equals(_queryType)) {
+                PreparedStatement pstmt = getPreparedStatement(conn);
+                setArguments(pstmt);
+                budget.start(pstmt);
+                executionStatistics.executeStarted();
+                pstmt.executeUpdate();
+                executionStatistics.executeEnded();
+                response = createResponseCapture();
+                writeResultSets(pstmt, false, null, response);
+                return response.toByteArray();
+            } else if (PREPARED_BATCH_UPDATE.equals(_queryType)) {
+                PreparedStatement pstmt = getPreparedStatement(conn);
+                budget.start(pstmt);
+                executionStatistics.executeStarted();
+                String summary = executeBatch(conn, pstmt);
+                executionStatistics.executeEnded();
+                return summary.getBytes(ENCODING);
             } else {
-                return super.execute(conn);
+                executionStatistics.executeStarted();
+                byte[] result = super.execute(conn);
+                executionStatistics.executeEnded();
+                return result;
             }
 
+        } catch (SQLException e) {
+            invalidateIfBroken(conn, e);
+            if (budget.isCancelled()) {
+                // Error raised by the cancel, the sampler reports the time budget with what was read
+                return response == null ? new byte[0] : response.toByteArray();
+            }
+            throw e;
         } finally {
-            close(stmt);
+            if (stmt != null) {
+                long start = System.nanoTime();
+                close(stmt);
+                executionStatistics.addCloseNanos(System.nanoTime() - start);
+            }
+            budget.finish();
+            executionStatistics.budgetStopped(budget.getStop(), budget.getStopMessage());
+            executionStatistics.setPausedNanos(pacing.getPausedNanos());
+            if (response != null) {
+                executionStatistics.responseCaptured(response);
+                response.close();
+            }
+            statementEnded();
         }
     }
 
-    private int[] setArguments(PreparedStatement pstmt) throws SQLException, IOException {
+    private void closeResultSet(ResultSet rs) {
+        long start = System.nanoTime();
+        close(rs);
+        executionStatistics.addCloseNanos(System.nanoTime() - start);
+    }
+
+    /**
+     * Creates the buffer the response is written to. The "Capture Bounded" handler keeps at most
+     * {@link #getResponseCaptureLimit()} KB in memory and optionally spills the rest to a per-thread file,
+     * the other handlers keep the whole response.
+     *
+     * @return a new {@link ResponseCapture}
+     * @throws IOException when the spill file cannot be created
+     */
+    private ResponseCapture createResponseCapture() throws IOException {
+        if (!RS_CAPTURE_BOUNDED.equals(getResultSetHandler())) {
+            return new ResponseCapture(-1, ENCODING, null);
+        }
+        long limit = NumberUtils.isDigits(getResponseCaptureLimit()) ? NumberUtils.toLong(getResponseCaptureLimit(), Long.MAX_VALUE) : 64;
+        // Limits past the largest byte array keep what an array can hold
+        int limitBytes = (int) Math.min(limit, MAX_CAPTURE_LIMIT / 1024) * 1024;
+        return new ResponseCapture(limitBytes, ENCODING, isSpillToDisk() ? getSpillFile() : null);
+    }
+
+    private Path getSpillFile() throws IOException {
+        if (spillFile == null) {
+            spillFile = Files.createTempFile("jmeter-jdbc-", ".spill"); // $NON-NLS-1$ $NON-NLS-2$
+            spillFile.toFile().deleteOnExit();
+        }
+        return spillFile;
+    }
+
+    /**
+     * Binds the parameter values of this sample. Package-private for the benchmarks.
+     *
+     * @param pstmt statement to bind to
+     * @return JDBC type of each output parameter
+     * @throws SQLException when a value cannot be bound
+     * @throws IOException  when the parameter file cannot be read
+     */
+    int[] setArguments(PreparedStatement pstmt) throws SQLException, IOException {
+        if (getParameterFile().trim().length() > 0) {
+            ParameterBindingPlan plan = ParameterBindingPlan.forTypes(getQueryArgumentsTypes());
+            return getParameterCursor(plan).bindNext(pstmt, plan);
+        }
         if (getQueryArguments().trim().length() == 0) {
             return new int[]{};
         }
-        String[] arguments = CSVSaveService.csvSplitString(getQueryArguments(), COMMA_CHAR);
-        String[] argumentsTypes = getQueryArgumentsTypes().split(COMMA);
-        if (arguments.length != argumentsTypes.length) {
-            throw new SQLException("number of arguments (" + arguments.length + ") and number of types (" + argumentsTypes.length + ") are not equal");
-        }
-        int[] outputs = new int[arguments.length];
-        for (int i = 0; i < arguments.length; i++) {
-            String argument = arguments[i];
-            String argumentType = argumentsTypes[i];
-            String[] arg = argumentType.split(" ");
-            String inputOutput = "";
-            if (arg.length > 1) {
-                argumentType = arg[1];
-                inputOutput = arg[0];
+        String[] arguments = ParameterBindingPlan.splitValues(getQueryArguments());
+        return ParameterBindingPlan.forTypes(getQueryArgumentsTypes()).bind(pstmt, arguments);
+    }
+
+    /**
+     * Gets the cursor of this thread in the parameter file, opening the feed of its thread group on first use
+     * or when the file, format or parameter types changed.
+     *
+     * @param plan binding plan of the parameter types
+     * @return the cursor
+     * @throws IOException when the file cannot be mapped
+     */
+    private ParameterFeed.Cursor getParameterCursor(ParameterBindingPlan plan) throws IOException {
+        JMeterContext context = getThreadContext();
+        AbstractThreadGroup group = context.getThreadGroup();
+        ParameterFeed feed = ParameterFeed.open(group == null ? "" : group.getName(), // $NON-NLS-1$
+                getParameterFile().trim(), getParameterFileFormat(), plan);
+        if (parameterCursor == null || parameterCursor.getFeed() != feed) {
+            int threads = group == null ? 1 : group.getNumThreads();
+            parameterCursor = feed.newCursor(getParameterFileOrder(), context.getThreadNum(), threads);
+        }
+        return parameterCursor;
+    }
+
+    /**
+     * Binds every parameter set of the batch source to the statement and sends them with
+     * {@link PreparedStatement#executeBatch()}, {@link #getBatchSize()} sets at a time. With a
+     * positive {@link #getBatchCommitInterval()} auto-commit is switched off and the transaction is
+     * committed every that many batches. A connection that already has auto-commit off is in a transaction
+     * of its caller, which the batches join without committing or rolling it back. An empty batch source
+     * fails the sample.
+     *
+     * @param conn  connection the statement belongs to
+     * @param pstmt statement to execute
+     * @return a summary of the batches
+     * @throws SQLException when a batch fails or the batch source is empty
+     * @throws IOException when the batch source cannot be read
+     */
+    private String executeBatch(Connection conn, PreparedStatement pstmt) throws SQLException, IOException {
+        ParameterBindingPlan plan = ParameterBindingPlan.forTypes(getQueryArgumentsTypes());
+        int batchSize = NumberUtils.isDigits(getBatchSize()) ? Math.max(1, Integer.parseInt(getBatchSize())) : 100;
+        int commitInterval = NumberUtils.isDigits(getBatchCommitInterval()) ? Integer.parseInt(getBatchCommitInterval()) : 0;
+        BatchParameterSource source = getBatchFile().trim().length() > 0
+                ? BatchParameterSource.fromFile(getBatchFile().trim(), ENCODING)
+                : BatchParameterSource.fromVariable(getThreadContext().getVariables().getObject(getBatchVariable().trim()));
+        boolean autoCommit = conn.getAutoCommit();
+        boolean manageTransaction = commitInterval > 0 && autoCommit;
+        Exception failure = null;
+        try {
+            if (manageTransaction) {
+                conn.setAutoCommit(false);
+            }
+            // The statement is cached, do not send what a failed sample may have left
+            pstmt.clearBatch();
+            int pending = 0;
+            long batches = 0;
+            long rows = 0;
+            String line;
+            while ((line = source.nextLine()) != null) {
+                rows++;
+                plan.bind(pstmt, ParameterBindingPlan.splitValues(line));
+                pstmt.addBatch();
+                if (++pending == batchSize) {
+                    sendBatch(pstmt, pending);
+                    pending = 0;
+                    if (manageTransaction && ++batches % commitInterval == 0) {
+                        conn.commit();
+                    }
+                }
             }
-            int targetSqlType = getJdbcType(argumentType);
+            if (pending > 0) {
+                sendBatch(pstmt, pending);
+            }
+            if (rows == 0) {
+                String name = getBatchFile().trim().length() > 0 ? "file " + getBatchFile().trim() : "variable " + getBatchVariable().trim();
+                throw new SQLException("Batch " + name + " has no parameter sets, nothing was sent");
+            }
+            if (manageTransaction) {
+                conn.commit();
+            }
+        } catch (SQLException e) {
+            failure = e;
+            throw e;
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
             try {
-                if (!OUT.equalsIgnoreCase(inputOutput)) {
-                    if (argument.equals(NULL_MARKER)) {
-                        pstmt.setNull(i + 1, targetSqlType);
-                    } else {
-                        pstmt.setObject(i + 1, argument, targetSqlType);
+                if (failure != null) {
+                    try {
+                        pstmt.clearBatch();
+                    } catch (SQLException e) {
+                        failure.addSuppressed(e);
+                    }
+                    if (manageTransaction) {
+                        try {
+                            conn.rollback();
+                        } catch (SQLException e) {
+                            failure.addSuppressed(e);
+                        }
                     }
                 }
-                if (OUT.equalsIgnoreCase(inputOutput) || INOUT.equalsIgnoreCase(inputOutput)) {
-                    CallableStatement cs = (CallableStatement) pstmt;
-                    cs.registerOutParameter(i + 1, targetSqlType);
-                    outputs[i] = targetSqlType;
-                } else {
-                    outputs[i] = java.sql.Types.NULL; // can't have an output parameter type null
+                if (manageTransaction) {
+                    try {
+                        conn.setAutoCommit(true);
+                    } catch (SQLException e) {
+                        if (failure == null) {
+                            throw e;
+                        }
+                        failure.addSuppressed(e);
+                    }
+                }
+            } finally {
+                try {
+                    source.close();
+                } catch (IOException e) {
+                    if (failure == null) {
+                        throw e;
+                    }
+                    failure.addSuppressed(e);
                 }
-            } catch (NullPointerException e) { // thrown by Derby JDBC (at least) if there are no "?" markers in statement
-                throw new SQLException("Could not set argument no: " + (i + 1) + " - missing parameter marker?");
             }
         }
-        return outputs;
+        return executionStatistics.batchCounters();
+    }
+
+    private void sendBatch(PreparedStatement pstmt, int rows) throws SQLException {
+        long start = System.nanoTime();
+        int[] counts = pstmt.executeBatch();
+        long elapsed = System.nanoTime() - start;
+        long updates = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                updates += count;
+            }
+        }
+        executionStatistics.batchExecuted(rows, updates, elapsed);
     }
 
     private CallableStatement getCallableStatement(Connection conn) throws SQLException {
@@ -178,52 +461,244 @@ public abstract class AbstractJDBCAdvancedTestElement extends AbstractJDBCTestEl
 
     }
 
-    private PreparedStatement getPreparedStatement(Connection conn) throws SQLException {
+    /**
+     * Gets the statement of the query from the statement cache, preparing it on a miss. Package-private for the
+     * benchmarks.
+     *
+     * @param conn connection the statement belongs to
+     * @return the statement, its parameters cleared
+     * @throws SQLException when the statement cannot be prepared
+     */
+    PreparedStatement getPreparedStatement(Connection conn) throws SQLException {
         return getPreparedStatement(conn, false);
     }
 
     private PreparedStatement getPreparedStatement(Connection conn, boolean callable) throws SQLException {
-        Map<String, PreparedStatement> preparedStatementMap = perConnCache.get(conn);
-        if (null == preparedStatementMap) {
-            @SuppressWarnings("unchecked") // LRUMap is not generic
-                    Map<String, PreparedStatement> lruMap = new LRUMap(MAX_OPEN_PREPARED_STATEMENTS) {
-                private static final long serialVersionUID = 1L;
-
-                @Override
-                protected boolean removeLRU(AbstractLinkedMap.LinkEntry entry) {
-                    PreparedStatement preparedStatement = (PreparedStatement) entry.getValue();
-                    close(preparedStatement);
-                    return true;
-                }
-            };
-            preparedStatementMap = Collections.<String, PreparedStatement>synchronizedMap(lruMap);
-            // As a connection is held by only one thread, we cannot already have a
-            // preparedStatementMap put by another thread
-            perConnCache.put(conn, preparedStatementMap);
-        }
-        PreparedStatement pstmt = preparedStatementMap.get(getQuery());
-        if (null == pstmt) {
-            if (callable) {
-                pstmt = conn.prepareCall(getQuery());
-            } else {
-                pstmt = conn.prepareStatement(getQuery());
-            }
-            pstmt.setQueryTimeout(getIntegerQueryTimeout());
-            // PreparedStatementMap is associated to one connection so
-            //  2 threads cannot use the same PreparedStatement map at the same time
-            preparedStatementMap.put(getQuery(), pstmt);
-        } else {
-            int timeoutInS = getIntegerQueryTimeout();
-            if (pstmt.getQueryTimeout() != timeoutInS) {
-                pstmt.setQueryTimeout(getIntegerQueryTimeout());
+        return getPreparedStatement(conn, getQuery(), callable);
+    }
+
+    private PreparedStatement getPreparedStatement(Connection conn, String sql, boolean callable) throws SQLException {
+        if (connectionStatements == null || !connectionStatements.isFor(conn)) {
+            if (connectionStatements != null) {
+                connectionStatements.closeIfStale(conn);
             }
+            connectionStatements = statementCache.forConnection(conn);
+        }
+        PreparedStatement pstmt = connectionStatements.get(sql, callable, getCursorOptions(), executionStatistics);
+        int timeoutInS = getIntegerQueryTimeout();
+        if (pstmt.getQueryTimeout() != timeoutInS) {
+            pstmt.setQueryTimeout(timeoutInS);
         }
         pstmt.clearParameters();
         return pstmt;
     }
 
-    private String resultSetsToString(PreparedStatement pstmt, boolean result, int[] out) throws SQLException, UnsupportedEncodingException {
-        StringBuilder sb = new StringBuilder();
+    /**
+     * Executes one step of a {@link SqlScript} with a cached statement. The {@code ?} markers are bound with
+     * the parameter values of the sampler, the references with the values of earlier steps. When the step
+     * returns rows, the columns of its first row are stored in {@code values} by upper case label for the
+     * next steps, and the remaining rows are read and counted. The counters of the step are available from
+     * {@link #getExecutionStatistics()} afterwards.
+     *
+     * @param conn      connection the script runs on
+     * @param step      step to execute
+     * @param arguments parameter values of the sampler
+     * @param values    column values of earlier steps, updated with the first row of this step
+     * @return a one line summary of the step
+     * @throws SQLException when the step fails or references an unknown column
+     * @throws IOException  when the parameter types cannot be read
+     */
+    protected String executeStep(Connection conn, SqlScript.Step step, String[] arguments, Map<String, Object> values)
+            throws SQLException, IOException {
+        executionStatistics = new ExecutionStatistics();
+        budget = StatementBudget.NONE;
+        resolveFetchSize(step.getSql());
+        pacing = ConsumerPacing.create(getReadPacingMode(), getResultSetReadDelay(), getReadDelayJitter(), currentFetchSize);
+        try {
+            PreparedStatement pstmt = getPreparedStatement(conn, step.getSql(), false);
+            applyFetchSize(pstmt);
+            String[] references = step.getReferences();
+            ParameterBindingPlan plan = step.getArgumentCount() > 0 ? ParameterBindingPlan.forTypes(getQueryArgumentsTypes()) : null;
+            int argument = step.getFirstArgument();
+            for (int i = 0; i < references.length; i++) {
+                if (references[i] == null) {
+                    plan.getBinder(argument).bind(pstmt, i + 1, arguments[argument]);
+                    argument++;
+                } else if (values.containsKey(references[i])) {
+                    Object value = values.get(references[i]);
+                    if (value == null) {
+                        pstmt.setNull(i + 1, nullType(pstmt, i + 1));
+                    } else {
+                        pstmt.setObject(i + 1, value);
+                    }
+                } else {
+                    throw new SQLException("No earlier step returned a column " + references[i]);
+                }
+            }
+            executionStatistics.executeStarted();
+            boolean hasResultSet = pstmt.execute();
+            executionStatistics.executeEnded();
+            if (!hasResultSet) {
+                return "Updated: " + pstmt.getUpdateCount(); // $NON-NLS-1$
+            }
+            ResultSet rs = pstmt.getResultSet();
+            try {
+                readStepResult(rs, values);
+            } finally {
+                closeResultSet(rs);
+            }
+            return executionStatistics.counters();
+        } catch (SQLException e) {
+            invalidateIfBroken(conn, e);
+            throw e;
+        } finally {
+            executionStatistics.setPausedNanos(pacing.getPausedNanos());
+            statementEnded();
+        }
+    }
+
+    /**
+     * Type a NULL is bound with: the declared type of the parameter, or VARCHAR when the driver cannot tell, as
+     * several drivers reject {@link Types#NULL}.
+     */
+    private static int nullType(PreparedStatement pstmt, int index) {
+        try {
+            ParameterMetaData meta = pstmt.getParameterMetaData();
+            if (meta != null) {
+                int type = meta.getParameterType(index);
+                if (type != Types.NULL) {
+                    return type;
+                }
+            }
+        } catch (SQLException e) {
+            log.debug("Could not get the type of parameter " + index, e);
+        } catch (AbstractMethodError e) {
+            log.debug("Driver does not describe parameters", e);
+        }
+        return Types.VARCHAR;
+    }
+
+    private void readStepResult(ResultSet rs, Map<String, Object> values) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int numColumns = meta.getColumnCount();
+        executionStatistics.resultSetOpened(numColumns);
+        long row = 0;
+        while (nextRow(rs, row++)) {
+            boolean first = row == 1;
+            executionStatistics.rowRead();
+            for (int i = 1; i <= numColumns; i++) {
+                Object o = rs.getObject(i);
+                executionStatistics.bytesRead(approximateSize(o));
+                if (first) {
+                    values.put(meta.getColumnLabel(i).toUpperCase(Locale.ENGLISH), o);
+                }
+            }
+            pauseAfterRow();
+        }
+        executionStatistics.fetchEnded();
+    }
+
+    /**
+     * Evicts the cached statements of a connection when an error shows the connection is no longer usable.
+     *
+     * @param conn connection the error was raised on
+     * @param e    the error
+     */
+    private void invalidateIfBroken(Connection conn, SQLException e) {
+        boolean broken = e.getSQLState() != null && e.getSQLState().startsWith(SQLSTATE_CONNECTION_EXCEPTION);
+        try {
+            broken = broken || conn.isClosed();
+        } catch (SQLException ignored) {
+            broken = true;
+        }
+        if (broken) {
+            statementCache.invalidate(conn);
+            PinnedConnection pinned = PinnedConnection.ofThread(getDataSource());
+            if (pinned != null && pinned.holds(conn)) {
+                pinned.markBroken();
+            }
+        }
+    }
+
+    /**
+     * Gets the connection of a sample: with "Keep connection per thread", the connection this thread keeps
+     * checked out of the pool for all its samplers, otherwise a connection checked out for the sample.
+     *
+     * @return the connection, to be given to {@link #releaseConnection(Connection)} at the end of the sample
+     * @throws SQLException when no connection can be checked out
+     */
+    protected Connection getConnection() throws SQLException {
+        if (!isPinConnection()) {
+            return DataSourceElement.getConnection(getDataSource());
+        }
+        return PinnedConnection.forThread(getDataSource()).get(statementCache);
+    }
+
+    /**
+     * Ends the use of a connection by a sample: a pinned connection stays checked out, any other is
+     * given back to the pool.
+     *
+     * @param conn connection from {@link #getConnection()}, may be {@code null}
+     */
+    protected void releaseConnection(Connection conn) {
+        PinnedConnection pinned = PinnedConnection.ofThread(getDataSource());
+        if (pinned != null && pinned.holds(conn)) {
+            pinned.released();
+        } else if (conn != null) {
+            close(conn);
+            evictIfClosed(conn);
+        }
+    }
+
+    /**
+     * Evicts the cached statements of a connection the pool closed when it was given back, as pools
+     * handing out a new wrapper for each checkout do, so they are not kept until the next sweep.
+     *
+     * @param conn connection just given back to the pool
+     */
+    private static void evictIfClosed(Connection conn) {
+        boolean closed;
+        try {
+            closed = conn.isClosed();
+        } catch (SQLException e) {
+            closed = true;
+        }
+        if (closed) {
+            statementCache.invalidate(conn);
+        }
+    }
+
+    public void threadStarted() {
+    }
+
+    public void threadFinished() {
+        PinnedConnection.closeThread(statementCache);
+    }
+
+    /**
+     * @return the cache of prepared statements shared by all samplers
+     */
+    public static PreparedStatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    @Override
+    public void testStarted(String host) {
+        super.testStarted(host);
+        SamplerMetrics.clear();
+        ParameterFeed.closeAll();
+    }
+
+    @Override
+    public void testEnded(String host) {
+        super.testEnded(host);
+        PinnedConnection.closeAll(statementCache);
+        ParameterFeed.closeAll();
+        statementCache.closeAll();
+        SamplerMetrics.logSummary(getName());
+    }
+
+    private void writeResultSets(PreparedStatement pstmt, boolean result, int[] out, ResponseCapture response) throws SQLException, IOException {
         int updateCount = 0;
         if (!result) {
             updateCount = pstmt.getUpdateCount();
@@ -233,12 +708,13 @@ public abstract class AbstractJDBCAdvancedTestElement extends AbstractJDBCTestEl
                 ResultSet rs = null;
                 try {
                     rs = pstmt.getResultSet();
-                    sb.append(getStringFromResultSet(rs)).append("\n"); // $NON-NLS-1$
+                    processResultSet(rs, response);
+                    response.append("\n"); // $NON-NLS-1$
                 } finally {
-                    close(rs);
+                    closeResultSet(rs);
                 }
             } else {
-                sb.append(updateCount).append(" updates.\n");
+                response.append(Integer.toString(updateCount)).append(" updates.\n");
             }
             result = pstmt.getMoreResults();
             if (!result) {
@@ -247,20 +723,25 @@ public abstract class AbstractJDBCAdvancedTestElement extends AbstractJDBCTestEl
         } while (result || (updateCount != -1));
         if (out != null && pstmt instanceof CallableStatement) {
             ArrayList<Object> outputValues = new ArrayList<Object>();
+            // Row counts of the output cursors, as a forward-only cursor can only be counted once
+            ArrayList<Long> rowCounts = new ArrayList<Long>();
             CallableStatement cs = (CallableStatement) pstmt;
-            sb.append("Output variables by position:\n");
+            response.append("Output variables by position:\n");
             for (int i = 0; i < out.length; i++) {
                 if (out[i] != java.sql.Types.NULL) {
                     Object o = cs.getObject(i + 1);
                     outputValues.add(o);
-                    sb.append("[");
-                    sb.append(i + 1);
-                    sb.append("] ");
-                    sb.append(o);
+                    Long rowCount = null;
+                    response.append("[");
+                    response.append(Integer.toString(i + 1));
+                    response.append("] ");
+                    response.append(o);
                     if (o instanceof java.sql.ResultSet && RS_COUNT_RECORDS.equals(resultSetHandler)) {
-                        sb.append(" ").append(countRows((ResultSet) o)).append(" rows");
+                        rowCount = countRows((ResultSet) o);
+                        response.append(" ").append(Long.toString(rowCount)).append(" rows");
                     }
-                    sb.append("\n");
+                    rowCounts.add(rowCount);
+                    response.append("\n");
                 }
             }
             String varnames[] = getVariableNames().split(COMMA);
@@ -271,11 +752,10 @@ public abstract class AbstractJDBCAdvancedTestElement extends AbstractJDBCTestEl
                     if (name.length() > 0) { // Save the value in the variable if present
                         Object o = outputValues.get(i);
                         if (o instanceof java.sql.ResultSet) {
-                            ResultSet resultSet = (ResultSet) o;
                             if (RS_STORE_AS_OBJECT.equals(resultSetHandler)) {
                                 jmvars.putObject(name, o);
                             } else if (RS_COUNT_RECORDS.equals(resultSetHandler)) {
-                                jmvars.put(name, o.toString() + " " + countRows(resultSet) + " rows");
+                                jmvars.put(name, o.toString() + " " + rowCounts.get(i) + " rows");
                             } else {
                                 jmvars.put(name, o.toString());
                             }
@@ -286,119 +766,532 @@ public abstract class AbstractJDBCAdvancedTestElement extends AbstractJDBCTestEl
                 }
             }
         }
-        return sb.toString();
     }
 
-    private static int getJdbcType(String jdbcType) throws SQLException {
-        Integer entry = mapJdbcNameToInt.get(jdbcType.toLowerCase(java.util.Locale.ENGLISH));
-        if (entry == null) {
-            try {
-                entry = Integer.decode(jdbcType);
-            } catch (NumberFormatException e) {
-                throw new SQLException("Invalid data type: " + jdbcType);
-            }
+    /**
+     * Count rows in result set. A forward-only cursor is read to its end without looking at the columns,
+     * so counting keeps streaming with constant memory; a scrollable one is asked for its last row.
+     *
+     * @param resultSet {@link ResultSet}
+     * @return number of rows in resultSet
+     * @throws SQLException
+     */
+    private long countRows(ResultSet resultSet) throws SQLException {
+        if (resultSet.getType() != ResultSet.TYPE_FORWARD_ONLY) {
+            return resultSet.last() ? resultSet.getRow() : 0;
         }
-        return (entry).intValue();
+        long rows = 0;
+        while (nextRow(resultSet, rows)) {
+            rows++;
+        }
+        return rows;
     }
 
     /**
-     * Count rows in result set
+     * Reads a result set according to the configured result set handler.
      *
-     * @param resultSet {@link ResultSet}
-     * @return number of rows in resultSet
+     * @param rs       ResultSet passed in from a database query
+     * @param response buffer receiving the response data
      * @throws SQLException
+     * @throws IOException
      */
-    private static final int countRows(ResultSet resultSet) throws SQLException {
-        return resultSet.last() ? resultSet.getRow() : 0;
+    private void processResultSet(ResultSet rs, ResponseCapture response) throws SQLException, IOException {
+        if (RS_DRAIN.equals(getResultSetHandler())) {
+            drainResultSet(rs);
+            response.append(executionStatistics.counters());
+        } else if (RS_CHECKSUM_ORDERED.equals(getResultSetHandler())) {
+            response.append(checksumResultSet(rs, true));
+        } else if (RS_CHECKSUM_UNORDERED.equals(getResultSetHandler())) {
+            response.append(checksumResultSet(rs, false));
+        } else {
+            writeResultSet(rs, response);
+        }
+        executionStatistics.fetchEnded();
     }
 
     /**
-     * Gets a Data object from a ResultSet.
+     * Reads every column of every row forward-only, so the driver does the same fetch work as
+     * for {@link #writeResultSet(ResultSet, ResponseCapture)}, but keeps only the counters of
+     * {@link ExecutionStatistics}. Memory use does not depend on the size of the result set.
      *
      * @param rs ResultSet passed in from a database query
-     * @return a Data object
+     * @throws SQLException
+     * @throws IOException
+     */
+    private void drainResultSet(ResultSet rs) throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int numColumns = meta.getColumnCount();
+        int[] lobKinds = LobReader.columnKinds(meta);
+        executionStatistics.resultSetOpened(numColumns);
+        long row = 0;
+        while (nextRow(rs, row++)) {
+            executionStatistics.rowRead();
+            for (int i = 1; i <= numColumns; i++) {
+                if (lobKinds != null && lobKinds[i - 1] != LobReader.KIND_NONE) {
+                    getLobReader().drain(rs, i, lobKinds[i - 1]);
+                    executionStatistics.bytesRead(getLobReader().getLength());
+                } else {
+                    executionStatistics.bytesRead(approximateSize(rs.getObject(i)));
+                }
+            }
+            pauseAfterRow();
+        }
+    }
+
+    /**
+     * Reads every row forward-only into a {@link ResultChecksum}, keeping nothing but the digest, which is
+     * returned and, when "Result variable name" is set, stored in that variable.
+     *
+     * @param rs      ResultSet passed in from a database query
+     * @param ordered true if the order of the rows is part of the digest
+     * @return the digest, {@code <mode>:<hash>:<rows>}
+     * @throws SQLException
+     * @throws IOException
+     */
+    private String checksumResultSet(ResultSet rs, boolean ordered) throws SQLException, IOException {
+        int[] kinds = ResultChecksum.columnKinds(rs.getMetaData());
+        executionStatistics.resultSetOpened(kinds.length);
+        ResultChecksum checksum = new ResultChecksum(ordered);
+        long row = 0;
+        while (nextRow(rs, row++)) {
+            executionStatistics.rowRead();
+            executionStatistics.bytesRead(checksum.addRow(rs, kinds, getLobReader()));
+            pauseAfterRow();
+        }
+        String digest = checksum.toString();
+        String resultVariable = getResultVariable().trim();
+        if (resultVariable.length() > 0) {
+            getThreadContext().getVariables().put(resultVariable, digest);
+        }
+        return digest;
+    }
+
+    /**
+     * Estimates the number of bytes a column value took on the wire without converting it to text.
+     *
+     * @param o value returned by {@link ResultSet#getObject(int)}
+     * @return approximate size in bytes
+     */
+    static int approximateSize(Object o) {
+        if (o == null) {
+            return 0;
+        } else if (o instanceof byte[]) {
+            return ((byte[]) o).length;
+        } else if (o instanceof CharSequence) {
+            return ((CharSequence) o).length();
+        } else if (o instanceof Long || o instanceof Double || o instanceof java.util.Date) {
+            return 8;
+        } else if (o instanceof Integer || o instanceof Float) {
+            return 4;
+        } else if (o instanceof Short) {
+            return 2;
+        } else if (o instanceof Byte || o instanceof Boolean) {
+            return 1;
+        } else if (o instanceof BigDecimal) {
+            return ((BigDecimal) o).unscaledValue().bitLength() / 8 + 1;
+        }
+        return o.toString().length();
+    }
+
+    /**
+     * Applies the configured read pacing after a row has been read.
+     *
+     * @throws SQLException when the thread is interrupted while waiting
+     */
+    private void pauseAfterRow() throws SQLException {
+        pacing.afterRow(executionStatistics.getRows(), executionStatistics.getBytes());
+    }
+
+    /**
+     * Resolves the fetch size of the next execution of a statement, either the configured number or,
+     * with "auto", the current choice of the tuner of the statement text.
+     *
+     * @param sql statement text
+     */
+    private void resolveFetchSize(String sql) {
+        String fetchSize = getFetchSize().trim();
+        if (FetchSizeTuner.AUTO.equalsIgnoreCase(fetchSize)) {
+            fetchSizeTuner = FetchSizeTuner.forQuery(sql);
+            currentFetchSize = fetchSizeTuner.getFetchSize();
+        } else {
+            fetchSizeTuner = null;
+            currentFetchSize = NumberUtils.isNumber(fetchSize) ? Integer.valueOf(fetchSize) : DEFAULT_FETCH_SIZE;
+        }
+    }
+
+    private CursorOptions getCursorOptions() {
+        return CursorOptions.forNames(getResultSetType(), getResultSetConcurrency(), getResultSetHoldability());
+    }
+
+    private void applyFetchSize(Statement stmt) throws SQLException {
+        stmt.setFetchSize(currentFetchSize);
+        executionStatistics.fetchSizeUsed(currentFetchSize, fetchSizeTuner != null);
+    }
+
+    /**
+     * Moves to the next row. The calls expected to go back to the database for the next fetch are timed,
+     * so only one in fetch size calls pays for the clock; the first fetch is part of the execution or of
+     * the time to first row. A row left once a budget of the sample is used up ends the reading.
+     *
+     * @param rs   result set being read
+     * @param rows rows already read from this result set
+     * @return the result of {@link ResultSet#next()}, false if the row is over budget
+     * @throws SQLException
+     */
+    private boolean nextRow(ResultSet rs, long rows) throws SQLException {
+        boolean next;
+        if (rows == 0 || currentFetchSize <= 0 || rows % currentFetchSize != 0) {
+            next = rs.next();
+        } else {
+            long start = System.nanoTime();
+            next = rs.next();
+            executionStatistics.fetchWaited(System.nanoTime() - start);
+        }
+        // Rows counted by countRows are not in the statistics
+        return next && budget.allows(Math.max(rows, executionStatistics.getRows()), executionStatistics.getBytes());
+    }
+
+    /**
+     * Reports the counters of the statement just executed to the sampler metrics and, for statements that
+     * returned rows, their rows, bytes and fetch times to the fetch size tuner.
+     */
+    private void statementEnded() {
+        if (fetchSizeTuner != null && executionStatistics.getResultSets() > 0) {
+            fetchSizeTuner.sampleEnded(currentFetchSize, executionStatistics.getRows(), executionStatistics.getBytes(),
+                    executionStatistics.getFetches(), executionStatistics.getFetchWaitNanos());
+        }
+        getSamplerMetrics().statementExecuted(executionStatistics, getResultSetHandler());
+    }
+
+    private RowSerializer getRowSerializer() {
+        if (rowSerializer == null) {
+            rowSerializer = new RowSerializer(ENCODING);
+        }
+        return rowSerializer;
+    }
+
+    private LobReader getLobReader() {
+        if (lobReader == null) {
+            lobReader = new LobReader(ENCODING);
+        }
+        return lobReader;
+    }
+
+    /**
+     * @return the metrics shared by all threads running a sampler with the name of this one
+     */
+    protected SamplerMetrics getSamplerMetrics() {
+        if (samplerMetrics == null || !samplerMetrics.getSamplerName().equals(getName())) {
+            samplerMetrics = SamplerMetrics.forSampler(getName());
+        }
+        return samplerMetrics;
+    }
+
+    /**
+     * Writes a ResultSet as tab separated text, one line per row. The text is handed over
+     * to the response one row at a time, so a bounded response never holds more than a row
+     * beyond its limit. Cells are formatted and encoded by {@link RowSerializer} with the getter of
+     * their column type, except when the values are also kept in the result variable. Large object
+     * columns are streamed by {@link LobReader}, which keeps only the first "LOB capture limit" bytes
+     * or characters of each value for the response; the result variable keeps the whole values.
+     *
+     * @param rs       ResultSet passed in from a database query
+     * @param response buffer receiving the text
      * @throws java.sql.SQLException
-     * @throws UnsupportedEncodingException
+     * @throws IOException
      */
-    private String getStringFromResultSet(ResultSet rs) throws SQLException, UnsupportedEncodingException {
+    private void writeResultSet(ResultSet rs, ResponseCapture response) throws SQLException, IOException {
         ResultSetMetaData meta = rs.getMetaData();
 
-        StringBuilder sb = new StringBuilder();
+        RowSerializer row = getRowSerializer();
+        row.prepare(meta);
 
         int numColumns = meta.getColumnCount();
+        int[] lobKinds = LobReader.columnKinds(meta);
+        int lobLimit = NumberUtils.toInt(getLobCaptureLimit().trim(), -1);
+        executionStatistics.resultSetOpened(numColumns);
         for (int i = 1; i <= numColumns; i++) {
-            sb.append(meta.getColumnLabel(i));
+            row.append(meta.getColumnLabel(i));
             if (i == numColumns) {
-                sb.append('\n');
+                row.append('\n');
             } else {
-                sb.append('\t');
+                row.append('\t');
             }
         }
-
+        row.writeTo(response);
 
         JMeterVariables jmvars = getThreadContext().getVariables();
         String varnames[] = getVariableNames().split(COMMA);
+        for (int i = 0; i < varnames.length; i++) {
+            varnames[i] = varnames[i].trim();
+        }
+        VariableExtraction extraction = VariableExtraction.create(getVariableExtraction(), getVariableExtractionSize());
+        String[] deferred = new String[Math.min(varnames.length, numColumns)];
         String resultVariable = getResultVariable().trim();
-        List<Map<String, Object>> results = null;
+        ColumnarRowStore results = null;
         if (resultVariable.length() > 0) {
-            results = new ArrayList<Map<String, Object>>();
+            results = new ColumnarRowStore(meta);
             jmvars.putObject(resultVariable, results);
         }
         int j = 0;
-        while (rs.next()) {
-            Map<String, Object> row = null;
+        while (nextRow(rs, j)) {
             j++;
+            int index = varnames.length > 0 ? extraction.indexFor(j) : 0;
+            executionStatistics.rowRead();
+            if (results != null) {
+                results.addRow();
+            }
             for (int i = 1; i <= numColumns; i++) {
-                Object o = rs.getObject(i);
-                if (results != null) {
-                    if (row == null) {
-                        row = new HashMap<String, Object>(numColumns);
-                        results.add(row);
+                int start = row.length();
+                if (lobKinds != null && lobKinds[i - 1] != LobReader.KIND_NONE) {
+                    String text;
+                    if (results != null) {
+                        // The result variable keeps the value itself, only the response gets the capped text
+                        Object o = rs.getObject(i);
+                        results.setValue(i - 1, o);
+                        text = getLobReader().read(o, lobLimit, isLobHash());
+                    } else {
+                        text = getLobReader().read(rs, i, lobKinds[i - 1], lobLimit, isLobHash());
                     }
-                    row.put(meta.getColumnLabel(i), o);
-                }
-                if (o instanceof byte[]) {
-                    o = new String((byte[]) o, ENCODING);
-                }
-                sb.append(o);
-                if (i == numColumns) {
-                    sb.append('\n');
+                    executionStatistics.bytesRead(getLobReader().getLength());
+                    row.appendValue(text);
+                } else if (results != null) {
+                    Object o = rs.getObject(i);
+                    executionStatistics.bytesRead(approximateSize(o));
+                    results.setValue(i - 1, o);
+                    row.appendValue(o);
                 } else {
-                    sb.append('\t');
+                    executionStatistics.bytesRead(row.appendColumn(rs, i));
                 }
-                if (i <= varnames.length) { // i starts at 1
-                    String name = varnames[i - 1].trim();
-                    if (name.length() > 0) { // Save the value in the variable if present
-                        jmvars.put(name + UNDERSCORE + j, o == null ? null : o.toString());
+                if (i <= varnames.length && index != 0 && varnames[i - 1].length() > 0) { // i starts at 1
+                    // Save the value in the variable if present
+                    String value = row.wasNull() ? null : row.substring(start);
+                    if (index == VariableExtraction.DEFERRED) {
+                        deferred[i - 1] = value;
+                    } else {
+                        jmvars.put(varnames[i - 1] + UNDERSCORE + index, value);
                     }
                 }
-            }
-            if (NumberUtils.isNumber(getResultSetReadDelay())) {
-                try {
-                    Thread.sleep(Long.valueOf(getResultSetReadDelay()));
-                } catch (InterruptedException e) {
-                    log.warn("Result set read delay caused InterruptedException.", e);
+                if (i == numColumns) {
+                    row.append('\n');
+                } else {
+                    row.append('\t');
                 }
             }
+            row.writeTo(response);
+            pauseAfterRow();
         }
+        int count = extraction.getCount(j);
         // Remove any additional values from previous sample
         for (int i = 0; i < varnames.length; i++) {
-            String name = varnames[i].trim();
+            String name = varnames[i];
             if (name.length() > 0 && jmvars != null) {
+                if (count > 0 && i < deferred.length && extraction.isDeferred()) {
+                    jmvars.put(name + UNDERSCORE + 1, deferred[i]);
+                }
                 final String varCount = name + "_#"; // $NON-NLS-1$
                 // Get the previous count
                 String prevCount = jmvars.get(varCount);
                 if (prevCount != null) {
                     int prev = Integer.parseInt(prevCount);
-                    for (int n = j + 1; n <= prev; n++) {
+                    for (int n = count + 1; n <= prev; n++) {
                         jmvars.remove(name + UNDERSCORE + n);
                     }
                 }
-                jmvars.put(varCount, Integer.toString(j)); // save the current count
+                jmvars.put(varCount, Integer.toString(count)); // save the current count
             }
         }
+    }
+
+    /**
+     * @return counters of the last call to {@link #execute(Connection)}
+     */
+    public ExecutionStatistics getExecutionStatistics() {
+        return executionStatistics;
+    }
 
-        return sb.toString();
+    public String getResultSetHandler() {
+        return resultSetHandler;
+    }
+
+    public void setResultSetHandler(String resultSetHandler) {
+        this.resultSetHandler = resultSetHandler;
+    }
+
+    public String getResultSetType() {
+        return resultSetType;
+    }
+
+    public void setResultSetType(String resultSetType) {
+        this.resultSetType = resultSetType;
+    }
+
+    public String getResultSetConcurrency() {
+        return resultSetConcurrency;
+    }
+
+    public void setResultSetConcurrency(String resultSetConcurrency) {
+        this.resultSetConcurrency = resultSetConcurrency;
+    }
+
+    public String getResultSetHoldability() {
+        return resultSetHoldability;
+    }
+
+    public void setResultSetHoldability(String resultSetHoldability) {
+        this.resultSetHoldability = resultSetHoldability;
+    }
+
+    public String getVariableExtraction() {
+        return variableExtraction;
+    }
+
+    public void setVariableExtraction(String variableExtraction) {
+        this.variableExtraction = variableExtraction;
+    }
+
+    public String getVariableExtractionSize() {
+        return variableExtractionSize;
+    }
+
+    public void setVariableExtractionSize(String variableExtractionSize) {
+        this.variableExtractionSize = variableExtractionSize;
+    }
+
+    public String getStatisticsVariable() {
+        return statisticsVariable;
+    }
+
+    public void setStatisticsVariable(String statisticsVariable) {
+        this.statisticsVariable = statisticsVariable;
+    }
+
+    public String getLobCaptureLimit() {
+        return lobCaptureLimit;
+    }
+
+    public void setLobCaptureLimit(String lobCaptureLimit) {
+        this.lobCaptureLimit = lobCaptureLimit;
+    }
+
+    public boolean isLobHash() {
+        return lobHash;
+    }
+
+    public void setLobHash(boolean lobHash) {
+        this.lobHash = lobHash;
+    }
+
+    public String getParameterFile() {
+        return parameterFile;
+    }
+
+    public void setParameterFile(String parameterFile) {
+        this.parameterFile = parameterFile;
+    }
+
+    public String getParameterFileFormat() {
+        return parameterFileFormat;
+    }
+
+    public void setParameterFileFormat(String parameterFileFormat) {
+        this.parameterFileFormat = parameterFileFormat;
+    }
+
+    public String getParameterFileOrder() {
+        return parameterFileOrder;
+    }
+
+    public void setParameterFileOrder(String parameterFileOrder) {
+        this.parameterFileOrder = parameterFileOrder;
+    }
+
+    public boolean isPinConnection() {
+        return pinConnection;
+    }
+
+    public void setPinConnection(boolean pinConnection) {
+        this.pinConnection = pinConnection;
+    }
+
+    public boolean isExportMetrics() {
+        return exportMetrics;
+    }
+
+    public void setExportMetrics(boolean exportMetrics) {
+        this.exportMetrics = exportMetrics;
+    }
+
+    public String getBatchFile() {
+        return batchFile;
+    }
+
+    public void setBatchFile(String batchFile) {
+        this.batchFile = batchFile;
+    }
+
+    public String getBatchVariable() {
+        return batchVariable;
+    }
+
+    public void setBatchVariable(String batchVariable) {
+        this.batchVariable = batchVariable;
+    }
+
+    public String getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(String batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public String getBatchCommitInterval() {
+        return batchCommitInterval;
+    }
+
+    public void setBatchCommitInterval(String batchCommitInterval) {
+        this.batchCommitInterval = batchCommitInterval;
+    }
+
+    public String getRowBudget() {
+        return rowBudget;
+    }
+
+    public void setRowBudget(String rowBudget) {
+        this.rowBudget = rowBudget;
+    }
+
+    public String getByteBudget() {
+        return byteBudget;
+    }
+
+    public void setByteBudget(String byteBudget) {
+        this.byteBudget = byteBudget;
+    }
+
+    public String getTimeBudget() {
+        return timeBudget;
+    }
+
+    public void setTimeBudget(String timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    public String getResponseCaptureLimit() {
+        return responseCaptureLimit;
+    }
+
+    public void setResponseCaptureLimit(String responseCaptureLimit) {
+        this.responseCaptureLimit = responseCaptureLimit;
+    }
+
+    public boolean isSpillToDisk() {
+        return spillToDisk;
+    }
+
+    public void setSpillToDisk(boolean spillToDisk) {
+        this.spillToDisk = spillToDisk;
     }
 
     public String getFetchSize() {
@@ -409,6 +1302,22 @@ public abstract class AbstractJDBCAdvancedTestElement extends AbstractJDBCTestEl
         this.fetchSize = fetchSize;
     }
 
+    public String getReadPacingMode() {
+        return readPacingMode;
+    }
+
+    public void setReadPacingMode(String readPacingMode) {
+        this.readPacingMode = readPacingMode;
+    }
+
+    public String getReadDelayJitter() {
+        return readDelayJitter;
+    }
+
+    public void setReadDelayJitter(String readDelayJitter) {
+        this.readDelayJitter = readDelayJitter;
+    }
+
     public String getResultSetReadDelay() {
         return resultSetReadDelay;
     }
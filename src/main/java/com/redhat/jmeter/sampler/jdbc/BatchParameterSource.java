@@ -0,0 +1,75 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Parameter sets of a "Prepared Batch Update", one comma separated line per set. The lines are read
+ * one at a time from a CSV file, or taken from a JMeter variable holding either multi-line text, a
+ * {@link Collection} or an array of lines.
+ */
+class BatchParameterSource implements Closeable {
+
+    private final BufferedReader reader;
+    private final Iterator<?> lines;
+
+    private BatchParameterSource(BufferedReader reader, Iterator<?> lines) {
+        this.reader = reader;
+        this.lines = lines;
+    }
+
+    /**
+     * @param file     path of the CSV file
+     * @param encoding encoding of the file
+     * @return a source streaming the lines of the file
+     * @throws IOException when the file cannot be opened
+     */
+    static BatchParameterSource fromFile(String file, String encoding) throws IOException {
+        return new BatchParameterSource(new BufferedReader(new InputStreamReader(new FileInputStream(file), encoding)), null);
+    }
+
+    /**
+     * @param value content of the JMeter variable, may be {@code null}
+     * @return a source over the lines of the variable
+     */
+    static BatchParameterSource fromVariable(Object value) {
+        if (value instanceof Collection) {
+            return new BatchParameterSource(null, ((Collection<?>) value).iterator());
+        } else if (value instanceof Object[]) {
+            return new BatchParameterSource(null, Arrays.asList((Object[]) value).iterator());
+        } else if (value == null) {
+            return new BatchParameterSource(null, Collections.emptyList().iterator());
+        }
+        return new BatchParameterSource(new BufferedReader(new StringReader(value.toString())), null);
+    }
+
+    /**
+     * @return the next non blank line, or {@code null} at the end of the source
+     * @throws IOException when the file cannot be read
+     */
+    String nextLine() throws IOException {
+        String line;
+        do {
+            if (reader != null) {
+                line = reader.readLine();
+            } else {
+                line = lines.hasNext() ? String.valueOf(lines.next()) : null;
+            }
+        } while (line != null && line.trim().length() == 0);
+        return line;
+    }
+
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Column oriented storage of the rows of a result set, exposed as the read-only
+ * {@code List<Map<String, Object>>} that "Result variable name" has always held, so
+ * JSR223 and BeanShell scripts can keep using {@code vars.getObject(name).get(row).get(column)}.
+ * <p>
+ * The column labels are read once. Integral, floating point and date/time columns are kept in
+ * primitive arrays and boxed again only when a script reads them; other values share one array
+ * per column. A column falls back to plain object storage as soon as the driver returns a value
+ * of another class than the first one seen for that column, so scripts always get back the
+ * same class {@link java.sql.ResultSet#getObject(int)} returned.
+ * <p>
+ * Rows are appended by the thread reading the result set only.
+ */
+public class ColumnarRowStore extends AbstractList<Map<String, Object>> implements RandomAccess {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String[] labels;
+    private final Map<String, Integer> columnIndex;
+    /**
+     * Columns visible through the row maps, the last one wins when labels are duplicated as with a HashMap
+     */
+    private final int[] visibleColumns;
+    private final Column[] columns;
+    private int capacity = INITIAL_CAPACITY;
+    private int rowCount;
+
+    ColumnarRowStore(ResultSetMetaData meta) throws SQLException {
+        int numColumns = meta.getColumnCount();
+        labels = new String[numColumns];
+        columns = new Column[numColumns];
+        columnIndex = new HashMap<String, Integer>(numColumns * 2);
+        for (int i = 0; i < numColumns; i++) {
+            labels[i] = meta.getColumnLabel(i + 1);
+            columns[i] = createColumn(meta.getColumnType(i + 1));
+            columns[i].ensureCapacity(capacity);
+            columnIndex.put(labels[i], Integer.valueOf(i));
+        }
+        int[] visible = new int[numColumns];
+        int n = 0;
+        for (int i = 0; i < numColumns; i++) {
+            if (columnIndex.get(labels[i]).intValue() == i) {
+                visible[n++] = i;
+            }
+        }
+        visibleColumns = Arrays.copyOf(visible, n);
+    }
+
+    private static Column createColumn(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return new LongColumn();
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return new DoubleColumn();
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                return new TemporalColumn();
+            default:
+                return new ObjectColumn();
+        }
+    }
+
+    /**
+     * Appends an empty row, its values are then set with {@link #setValue(int, Object)}.
+     */
+    void addRow() {
+        if (rowCount == capacity) {
+            capacity <<= 1;
+            for (Column column : columns) {
+                column.ensureCapacity(capacity);
+            }
+        }
+        rowCount++;
+    }
+
+    /**
+     * Sets a value of the last row.
+     *
+     * @param column 0-based column index
+     * @param value  value returned by the driver
+     */
+    void setValue(int column, Object value) {
+        int row = rowCount - 1;
+        if (!columns[column].set(row, value)) {
+            ObjectColumn fallback = new ObjectColumn();
+            fallback.ensureCapacity(capacity);
+            for (int i = 0; i < row; i++) {
+                fallback.set(i, columns[column].get(i));
+            }
+            fallback.set(row, value);
+            columns[column] = fallback;
+        }
+    }
+
+    /**
+     * @return the column labels, in result set order
+     */
+    public String[] getColumnLabels() {
+        return labels.clone();
+    }
+
+    /**
+     * Reads a single value without creating a row view.
+     *
+     * @param row   0-based row index
+     * @param label column label
+     * @return the value, or {@code null} if the label is unknown
+     */
+    public Object getValue(int row, String label) {
+        Integer column = columnIndex.get(label);
+        if (column == null) {
+            return null;
+        }
+        checkRow(row);
+        return columns[column.intValue()].get(row);
+    }
+
+    @Override
+    public Map<String, Object> get(int row) {
+        checkRow(row);
+        return new RowView(row);
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + rowCount);
+        }
+    }
+
+    /**
+     * Read-only map view of one row.
+     */
+    private final class RowView extends AbstractMap<String, Object> {
+
+        private final int row;
+
+        RowView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Integer column = columnIndex.get(key);
+            return column == null ? null : columns[column.intValue()].get(row);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return columnIndex.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return visibleColumns.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+                        private int next;
+
+                        public boolean hasNext() {
+                            return next < visibleColumns.length;
+                        }
+
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int column = visibleColumns[next++];
+                            return new SimpleImmutableEntry<String, Object>(labels[column], columns[column].get(row));
+                        }
+
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return visibleColumns.length;
+                }
+            };
+        }
+    }
+
+    /**
+     * Storage of the values of one column.
+     */
+    private abstract static class Column {
+
+        protected final BitSet nulls = new BitSet();
+
+        abstract void ensureCapacity(int capacity);
+
+        /**
+         * @return false if the value cannot be stored by this column
+         */
+        boolean set(int row, Object value) {
+            if (value == null) {
+                nulls.set(row);
+                return true;
+            }
+            return setValue(row, value);
+        }
+
+        Object get(int row) {
+            return nulls.get(row) ? null : getValue(row);
+        }
+
+        abstract boolean setValue(int row, Object value);
+
+        abstract Object getValue(int row);
+    }
+
+    private static final class LongColumn extends Column {
+
+        private long[] values = new long[0];
+        private Class<?> type;
+
+        @Override
+        void ensureCapacity(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        boolean setValue(int row, Object value) {
+            Class<?> c = value.getClass();
+            if (type == null && (c == Long.class || c == Integer.class || c == Short.class || c == Byte.class)) {
+                type = c;
+            }
+            if (c != type) {
+                return false;
+            }
+            values[row] = ((Number) value).longValue();
+            return true;
+        }
+
+        @Override
+        Object getValue(int row) {
+            long v = values[row];
+            if (type == Integer.class) {
+                return Integer.valueOf((int) v);
+            } else if (type == Short.class) {
+                return Short.valueOf((short) v);
+            } else if (type == Byte.class) {
+                return Byte.valueOf((byte) v);
+            }
+            return Long.valueOf(v);
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+
+        private double[] values = new double[0];
+        private Class<?> type;
+
+        @Override
+        void ensureCapacity(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        boolean setValue(int row, Object value) {
+            Class<?> c = value.getClass();
+            if (type == null && (c == Double.class || c == Float.class)) {
+                type = c;
+            }
+            if (c != type) {
+                return false;
+            }
+            values[row] = ((Number) value).doubleValue();
+            return true;
+        }
+
+        @Override
+        Object getValue(int row) {
+            if (type == Float.class) {
+                return Float.valueOf((float) values[row]);
+            }
+            return Double.valueOf(values[row]);
+        }
+    }
+
+    private static final class TemporalColumn extends Column {
+
+        private long[] millis = new long[0];
+        private int[] nanos;
+        private Class<?> type;
+
+        @Override
+        void ensureCapacity(int capacity) {
+            millis = Arrays.copyOf(millis, capacity);
+            if (nanos != null) {
+                nanos = Arrays.copyOf(nanos, capacity);
+            }
+        }
+
+        @Override
+        boolean setValue(int row, Object value) {
+            Class<?> c = value.getClass();
+            if (type == null && (c == Timestamp.class || c == java.sql.Date.class || c == java.sql.Time.class)) {
+                type = c;
+                if (c == Timestamp.class) {
+                    nanos = new int[millis.length];
+                }
+            }
+            if (c != type) {
+                return false;
+            }
+            millis[row] = ((java.util.Date) value).getTime();
+            if (nanos != null) {
+                nanos[row] = ((Timestamp) value).getNanos();
+            }
+            return true;
+        }
+
+        @Override
+        Object getValue(int row) {
+            if (type == Timestamp.class) {
+                Timestamp ts = new Timestamp(millis[row]);
+                ts.setNanos(nanos[row]);
+                return ts;
+            } else if (type == java.sql.Date.class) {
+                return new java.sql.Date(millis[row]);
+            }
+            return new java.sql.Time(millis[row]);
+        }
+    }
+
+    private static final class ObjectColumn extends Column {
+
+        private Object[] values = new Object[0];
+
+        @Override
+        void ensureCapacity(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        boolean setValue(int row, Object value) {
+            values[row] = value;
+            return true;
+        }
+
+        @Override
+        Object getValue(int row) {
+            return values[row];
+        }
+    }
+}
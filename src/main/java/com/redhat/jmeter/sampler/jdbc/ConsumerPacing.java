@@ -0,0 +1,157 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.jmeter.util.JMeterUtils;
+
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Slows down the reading of a result set to model a slow client. The configuration is parsed once
+ * per sample, after which {@link #afterRow(long, long)} is called for every row read.
+ * <ul>
+ * <li>"Per Row Delay": waits the configured number of milliseconds after each row</li>
+ * <li>"Per Fetch Delay": waits the configured number of milliseconds each time a fetch size worth of
+ * rows has been read, i.e. at the boundaries where the driver goes back to the server</li>
+ * <li>"Rows Per Second" / "Bytes Per Second": holds the read rate at the configured value with a token
+ * bucket. The first row is read at once and each row is due when the rows or bytes before it have been
+ * paid for; the bucket holds at most {@code jdbcsampler.pacing.burstms} ms (default 100) worth of the
+ * rate, so after a stall of the driver or the database the reading catches up by that much only instead
+ * of bursting through everything it fell behind by</li>
+ * </ul>
+ * Delays can be jittered: "Uniform" draws from [0, 2d], "Exponential" has mean d and "Gaussian"
+ * has mean d and standard deviation d/4, clipped at 0.
+ * <p>
+ * A thread interrupted while waiting stops the sample with an {@link SQLException} (SQLState
+ * {@code HY008}, operation canceled) rather than reading on unpaced.
+ * <p>
+ * An instance is used by one thread for one sample.
+ */
+class ConsumerPacing {
+
+    static final String PER_ROW_DELAY = "Per Row Delay"; // $NON-NLS-1$
+    static final String PER_FETCH_DELAY = "Per Fetch Delay"; // $NON-NLS-1$
+    static final String ROWS_PER_SECOND = "Rows Per Second"; // $NON-NLS-1$
+    static final String BYTES_PER_SECOND = "Bytes Per Second"; // $NON-NLS-1$
+
+    static final String JITTER_NONE = "None"; // $NON-NLS-1$
+    static final String JITTER_UNIFORM = "Uniform"; // $NON-NLS-1$
+    static final String JITTER_EXPONENTIAL = "Exponential"; // $NON-NLS-1$
+    static final String JITTER_GAUSSIAN = "Gaussian"; // $NON-NLS-1$
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final long BURST_NANOS =
+            JMeterUtils.getPropDefault("jdbcsampler.pacing.burstms", 100L) * NANOS_PER_MILLI; // $NON-NLS-1$
+    private static final String SQLSTATE_CANCELED = "HY008"; // $NON-NLS-1$
+
+    /**
+     * Pacing that never waits
+     */
+    static final ConsumerPacing NONE = new ConsumerPacing(PER_ROW_DELAY, 0, JITTER_NONE, 1);
+
+    private final boolean perFetch;
+    private final boolean rate;
+    private final boolean bytesRate;
+    private final long delayNanos;
+    private final double nanosPerUnit;
+    private final String jitter;
+    private final int fetchSize;
+    private final boolean enabled;
+
+    private boolean started;
+    private long due;
+    private long units;
+    private long pausedNanos;
+
+    private ConsumerPacing(String mode, double value, String jitter, int fetchSize) {
+        this.perFetch = PER_FETCH_DELAY.equals(mode);
+        this.bytesRate = BYTES_PER_SECOND.equals(mode);
+        this.rate = bytesRate || ROWS_PER_SECOND.equals(mode);
+        this.delayNanos = rate ? 0 : (long) (value * NANOS_PER_MILLI);
+        this.nanosPerUnit = rate && value > 0 ? NANOS_PER_SECOND / value : 0;
+        this.jitter = jitter;
+        this.fetchSize = Math.max(1, fetchSize);
+        this.enabled = value > 0;
+    }
+
+    /**
+     * @param mode      one of the pacing modes, "Per Row Delay" if blank or unknown
+     * @param value     delay in milliseconds, or rate per second for the rate modes
+     * @param jitter    jitter distribution applied to delays
+     * @param fetchSize fetch size of the statement, the row count between two delays in "Per Fetch Delay" mode
+     * @return the pacing for one sample
+     */
+    static ConsumerPacing create(String mode, String value, String jitter, int fetchSize) {
+        if (!NumberUtils.isNumber(value)) {
+            return NONE;
+        }
+        double parsed = Double.parseDouble(value);
+        if (parsed <= 0) {
+            return NONE;
+        }
+        return new ConsumerPacing(mode, parsed, jitter, fetchSize);
+    }
+
+    /**
+     * Waits as required after a row has been read.
+     *
+     * @param rows  number of rows read so far
+     * @param bytes approximate number of bytes read so far
+     * @throws SQLException when the thread is interrupted while waiting
+     */
+    void afterRow(long rows, long bytes) throws SQLException {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (rate) {
+            if (!started) {
+                started = true;
+                due = now;
+            } else {
+                due = Math.max(due, now - BURST_NANOS);
+                parkUntil(now, due);
+            }
+            long read = bytesRate ? bytes : rows;
+            due += (long) ((read - units) * nanosPerUnit);
+            units = read;
+        } else if (!perFetch || rows % fetchSize == 0) {
+            parkUntil(now, now + jittered(delayNanos));
+        }
+    }
+
+    private long jittered(long nanos) {
+        if (JITTER_UNIFORM.equals(jitter)) {
+            return (long) (ThreadLocalRandom.current().nextDouble() * 2 * nanos);
+        } else if (JITTER_EXPONENTIAL.equals(jitter)) {
+            return (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * nanos);
+        } else if (JITTER_GAUSSIAN.equals(jitter)) {
+            Random random = ThreadLocalRandom.current();
+            return Math.max(0, (long) (nanos + random.nextGaussian() * nanos / 4));
+        }
+        return nanos;
+    }
+
+    private void parkUntil(long now, long deadline) throws SQLException {
+        long begin = now;
+        while (now < deadline) {
+            if (Thread.currentThread().isInterrupted()) {
+                pausedNanos += now - begin;
+                throw new SQLException("Interrupted while pacing the read of the results", SQLSTATE_CANCELED); // $NON-NLS-1$
+            }
+            LockSupport.parkNanos(deadline - now);
+            now = System.nanoTime();
+        }
+        pausedNanos += now - begin;
+    }
+
+    /**
+     * @return time spent waiting, in nanoseconds
+     */
+    long getPausedNanos() {
+        return pausedNanos;
+    }
+}
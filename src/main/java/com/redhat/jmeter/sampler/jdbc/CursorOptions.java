@@ -0,0 +1,111 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Result set type, concurrency and holdability statements are created with. With the defaults
+ * (forward-only, read-only, driver default holdability) statements are created with the plain
+ * {@code createStatement()}/{@code prepareStatement(String)} calls, so drivers see exactly what the JDBC
+ * sampler always asked for; scrollable cursors can be chosen on purpose to compare client-side and
+ * server-side cursors.
+ */
+public final class CursorOptions {
+
+    static final String TYPE_FORWARD_ONLY = "Forward only"; // $NON-NLS-1$
+    static final String TYPE_SCROLL_INSENSITIVE = "Scroll insensitive"; // $NON-NLS-1$
+    static final String TYPE_SCROLL_SENSITIVE = "Scroll sensitive"; // $NON-NLS-1$
+
+    static final String CONCUR_READ_ONLY = "Read only"; // $NON-NLS-1$
+    static final String CONCUR_UPDATABLE = "Updatable"; // $NON-NLS-1$
+
+    static final String HOLD_DEFAULT = "Driver default"; // $NON-NLS-1$
+    static final String HOLD_CURSORS_OVER_COMMIT = "Hold over commit"; // $NON-NLS-1$
+    static final String CLOSE_CURSORS_AT_COMMIT = "Close at commit"; // $NON-NLS-1$
+
+    /**
+     * Options of the plain {@code createStatement()} and {@code prepareStatement(String)} calls
+     */
+    public static final CursorOptions DEFAULT =
+            new CursorOptions(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, 0);
+
+    private static final CursorOptions[] ALL = new CursorOptions[3 * 2 * 3];
+
+    static {
+        int[] types = {ResultSet.TYPE_FORWARD_ONLY, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.TYPE_SCROLL_SENSITIVE};
+        int[] concurrencies = {ResultSet.CONCUR_READ_ONLY, ResultSet.CONCUR_UPDATABLE};
+        int[] holdabilities = {0, ResultSet.HOLD_CURSORS_OVER_COMMIT, ResultSet.CLOSE_CURSORS_AT_COMMIT};
+        for (int t = 0; t < types.length; t++) {
+            for (int c = 0; c < concurrencies.length; c++) {
+                for (int h = 0; h < holdabilities.length; h++) {
+                    ALL[(t * 2 + c) * 3 + h] = t + c + h == 0 ? DEFAULT
+                            : new CursorOptions(types[t], concurrencies[c], holdabilities[h]);
+                }
+            }
+        }
+    }
+
+    private final int type;
+    private final int concurrency;
+    /**
+     * Holdability, 0 for the default of the connection
+     */
+    private final int holdability;
+    /**
+     * Appended to the statement text to form the statement cache key, so statements with other options
+     * are cached separately
+     */
+    private final String keySuffix;
+
+    private CursorOptions(int type, int concurrency, int holdability) {
+        this.type = type;
+        this.concurrency = concurrency;
+        this.holdability = holdability;
+        this.keySuffix = "\u0000" + type + "/" + concurrency + "/" + holdability; // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$
+    }
+
+    /**
+     * Gets the options named by the element properties. Unknown names fall back to the defaults.
+     *
+     * @param type        result set type name
+     * @param concurrency result set concurrency name
+     * @param holdability result set holdability name
+     * @return the shared options
+     */
+    static CursorOptions forNames(String type, String concurrency, String holdability) {
+        int t = TYPE_SCROLL_INSENSITIVE.equals(type) ? 1 : TYPE_SCROLL_SENSITIVE.equals(type) ? 2 : 0;
+        int c = CONCUR_UPDATABLE.equals(concurrency) ? 1 : 0;
+        int h = HOLD_CURSORS_OVER_COMMIT.equals(holdability) ? 1 : CLOSE_CURSORS_AT_COMMIT.equals(holdability) ? 2 : 0;
+        return ALL[(t * 2 + c) * 3 + h];
+    }
+
+    Statement createStatement(Connection conn) throws SQLException {
+        if (this == DEFAULT) {
+            return conn.createStatement();
+        } else if (holdability == 0) {
+            return conn.createStatement(type, concurrency);
+        }
+        return conn.createStatement(type, concurrency, holdability);
+    }
+
+    PreparedStatement prepareStatement(Connection conn, String sql, boolean callable) throws SQLException {
+        if (this == DEFAULT) {
+            return callable ? conn.prepareCall(sql) : conn.prepareStatement(sql);
+        } else if (holdability == 0) {
+            return callable ? conn.prepareCall(sql, type, concurrency) : conn.prepareStatement(sql, type, concurrency);
+        }
+        return callable ? conn.prepareCall(sql, type, concurrency, holdability)
+                : conn.prepareStatement(sql, type, concurrency, holdability);
+    }
+
+    /**
+     * @param sql statement text
+     * @return key of the statement in the statement cache, the text itself with the default options
+     */
+    String cacheKey(String sql) {
+        return this == DEFAULT ? sql : sql + keySuffix;
+    }
+}
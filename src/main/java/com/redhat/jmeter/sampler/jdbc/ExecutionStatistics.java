@@ -0,0 +1,468 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import org.apache.jmeter.threads.JMeterVariables;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counters collected while a single statement is executed and its results are read.
+ * An instance belongs to one sample of one JMeter thread, so it needs no synchronization.
+ */
+public class ExecutionStatistics {
+
+    private int resultSets;
+    private long rows;
+    private int columns;
+    private long bytes;
+    private long responseBytes;
+    private int capturedBytes;
+    private long spilledBytes;
+    private boolean truncated;
+    private String spillFile;
+    private int statementCacheHits;
+    private int statementCacheMisses;
+    private long prepareNanos;
+    private int batches;
+    private long batchRows;
+    private long batchUpdates;
+    private long batchNanos;
+    private long minBatchNanos = Long.MAX_VALUE;
+    private long maxBatchNanos;
+    private long connectNanos;
+    private long executeStart;
+    private long executeEnd;
+    private long firstRow;
+    private long fetchEnd;
+    private long closeNanos;
+    private long pausedNanos;
+    private int fetchSize;
+    private boolean fetchSizeTuned;
+    private int fetches;
+    private long fetchWaitNanos;
+    private String budgetStop;
+    private String budgetMessage;
+
+    void resultSetOpened(int columnCount) {
+        resultSets++;
+        if (columnCount > columns) {
+            columns = columnCount;
+        }
+    }
+
+    void executeStarted() {
+        executeStart = System.nanoTime();
+    }
+
+    void executeEnded() {
+        executeEnd = System.nanoTime();
+    }
+
+    void rowRead() {
+        if (rows++ == 0) {
+            firstRow = System.nanoTime();
+        }
+    }
+
+    void fetchEnded() {
+        fetchEnd = System.nanoTime();
+        if (firstRow == 0) {
+            firstRow = fetchEnd;
+        }
+    }
+
+    void fetchSizeUsed(int size, boolean tuned) {
+        fetchSize = size;
+        fetchSizeTuned = tuned;
+    }
+
+    void fetchWaited(long nanos) {
+        fetches++;
+        fetchWaitNanos += nanos;
+    }
+
+    void bytesRead(long count) {
+        bytes += count;
+    }
+
+    void statementCacheHit() {
+        statementCacheHits++;
+    }
+
+    void statementCacheMiss(long nanos) {
+        statementCacheMisses++;
+        prepareNanos += nanos;
+    }
+
+    void batchExecuted(int rows, long updates, long nanos) {
+        batches++;
+        batchRows += rows;
+        batchUpdates += updates;
+        batchNanos += nanos;
+        minBatchNanos = Math.min(minBatchNanos, nanos);
+        maxBatchNanos = Math.max(maxBatchNanos, nanos);
+    }
+
+    void responseCaptured(ResponseCapture response) {
+        responseBytes = response.getTotalBytes();
+        capturedBytes = response.getCapturedBytes();
+        spilledBytes = response.getSpilledBytes();
+        truncated = response.isTruncated();
+        spillFile = response.getSpillFile() == null ? null : response.getSpillFile().toString();
+    }
+
+    /**
+     * Records the time taken to get the connection, measured by the sampler.
+     *
+     * @param nanos time spent in {@code DataSourceElement.getConnection}, in nanoseconds
+     */
+    public void setConnectNanos(long nanos) {
+        connectNanos = nanos;
+    }
+
+    /**
+     * Records the time taken to close result sets, statements and the connection outside of the test element.
+     *
+     * @param nanos time spent closing, in nanoseconds
+     */
+    public void addCloseNanos(long nanos) {
+        closeNanos += nanos;
+    }
+
+    void budgetStopped(String code, String message) {
+        budgetStop = code;
+        budgetMessage = message;
+    }
+
+    void setPausedNanos(long nanos) {
+        pausedNanos = nanos;
+    }
+
+    /**
+     * @return time spent waiting in the result set read pacing, in nanoseconds
+     */
+    public long getPausedNanos() {
+        return pausedNanos;
+    }
+
+    /**
+     * @return time spent getting the connection from the pool, in nanoseconds
+     */
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    /**
+     * @return time spent executing the statement until the first result was available, in nanoseconds
+     */
+    public long getExecuteNanos() {
+        return executeEnd > executeStart ? executeEnd - executeStart : 0;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} at which the first row was read, or the statement returned when
+     * it produced no rows, 0 if the statement was not executed
+     */
+    public long getFirstRowTime() {
+        return firstRow != 0 ? firstRow : executeEnd;
+    }
+
+    /**
+     * @return time from the start of the execution to the first row, in nanoseconds
+     */
+    public long getTimeToFirstRowNanos() {
+        long first = getFirstRowTime();
+        return first > executeStart ? first - executeStart : 0;
+    }
+
+    /**
+     * @return time spent reading the rows after the first one, in nanoseconds
+     */
+    public long getFetchNanos() {
+        return fetchEnd > firstRow && firstRow != 0 ? fetchEnd - firstRow : 0;
+    }
+
+    /**
+     * @return time spent closing result sets, statements and the connection, in nanoseconds
+     */
+    public long getCloseNanos() {
+        return closeNanos;
+    }
+
+    /**
+     * @return fetch size set on the statement, 0 for statements that do not return rows
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * @return true if the fetch size was chosen by the fetch size tuning
+     */
+    public boolean isFetchSizeTuned() {
+        return fetchSizeTuned;
+    }
+
+    /**
+     * @return number of fetches after the first one, as expected from the fetch size, 0 when the driver
+     * chooses the fetch size
+     */
+    public int getFetches() {
+        return fetches;
+    }
+
+    /**
+     * @return time spent in the fetches after the first one, in nanoseconds
+     */
+    public long getFetchWaitNanos() {
+        return fetchWaitNanos;
+    }
+
+    /**
+     * @return number of result sets read
+     */
+    public int getResultSets() {
+        return resultSets;
+    }
+
+    /**
+     * @return number of rows read over all result sets
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return widest column count seen over all result sets
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return approximate number of bytes fetched from the driver
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return size in bytes of the whole response, including any part not kept in memory
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * @return number of response bytes kept in the sample result
+     */
+    public int getCapturedBytes() {
+        return capturedBytes;
+    }
+
+    /**
+     * @return number of response bytes written to the spill file
+     */
+    public long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * @return true if the response data of the sample result is not the whole response
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @return {@code TRUNCATED} or {@code CANCELLED} if a row, byte or time budget stopped the statement,
+     * otherwise {@code null}
+     */
+    public String getBudgetStop() {
+        return budgetStop;
+    }
+
+    /**
+     * @return description of the budget that stopped the statement, or {@code null}
+     */
+    public String getBudgetMessage() {
+        return budgetMessage;
+    }
+
+    /**
+     * @return true if the time budget ran out before the statement was read to its end
+     */
+    public boolean isCancelled() {
+        return StatementBudget.CANCELLED.equals(budgetStop);
+    }
+
+    /**
+     * @return path of the file holding the response bytes over the capture limit, or {@code null}
+     */
+    public String getSpillFile() {
+        return spillFile;
+    }
+
+    /**
+     * @return number of prepared statements found in the statement cache
+     */
+    public int getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    /**
+     * @return number of prepared statements that had to be prepared
+     */
+    public int getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    /**
+     * @return time spent preparing statements, in nanoseconds
+     */
+    public long getPrepareNanos() {
+        return prepareNanos;
+    }
+
+    /**
+     * @return number of batches sent with {@link java.sql.PreparedStatement#executeBatch()}
+     */
+    public int getBatches() {
+        return batches;
+    }
+
+    /**
+     * @return number of parameter sets sent in batches
+     */
+    public long getBatchRows() {
+        return batchRows;
+    }
+
+    /**
+     * @return sum of the positive update counts returned by the batches
+     */
+    public long getBatchUpdates() {
+        return batchUpdates;
+    }
+
+    /**
+     * @return time spent in {@link java.sql.PreparedStatement#executeBatch()}, in nanoseconds
+     */
+    public long getBatchNanos() {
+        return batchNanos;
+    }
+
+    /**
+     * @return parameter sets sent per second of batch execution
+     */
+    public double getBatchRowsPerSecond() {
+        return batchNanos == 0 ? 0 : batchRows * 1e9 / batchNanos;
+    }
+
+    /**
+     * Renders the batch counters one per line.
+     */
+    String batchCounters() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Batches: ").append(batches).append('\n'); // $NON-NLS-1$
+        sb.append("Batch rows: ").append(batchRows).append('\n'); // $NON-NLS-1$
+        sb.append("Batch updates: ").append(batchUpdates).append('\n'); // $NON-NLS-1$
+        if (batches > 0) {
+            sb.append("Batch rows/sec: ").append(Math.round(getBatchRowsPerSecond())).append('\n'); // $NON-NLS-1$
+            sb.append(String.format(Locale.ENGLISH, "Batch latency min/avg/max (ms): %.3f/%.3f/%.3f\n", // $NON-NLS-1$
+                    minBatchNanos / 1e6, batchNanos / batches / 1e6, maxBatchNanos / 1e6));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Stores the counters and phase times in JMeter variables named {@code <prefix>_<counter>},
+     * times in milliseconds.
+     *
+     * @param vars   variables of the sampling thread
+     * @param prefix variable name prefix
+     */
+    public void exportTo(JMeterVariables vars, String prefix) {
+        String p = prefix + "_"; // $NON-NLS-1$
+        vars.put(p + "rows", Long.toString(rows)); // $NON-NLS-1$
+        vars.put(p + "columns", Integer.toString(columns)); // $NON-NLS-1$
+        vars.put(p + "bytes", Long.toString(bytes)); // $NON-NLS-1$
+        vars.put(p + "response_bytes", Long.toString(responseBytes)); // $NON-NLS-1$
+        vars.put(p + "truncated", Boolean.toString(truncated)); // $NON-NLS-1$
+        vars.put(p + "budget_stop", budgetStop == null ? "" : budgetStop); // $NON-NLS-1$ $NON-NLS-2$
+        vars.put(p + "connect_ms", Long.toString(TimeUnit.NANOSECONDS.toMillis(connectNanos))); // $NON-NLS-1$
+        vars.put(p + "prepare_ms", Long.toString(TimeUnit.NANOSECONDS.toMillis(prepareNanos))); // $NON-NLS-1$
+        vars.put(p + "execute_ms", Long.toString(TimeUnit.NANOSECONDS.toMillis(getExecuteNanos()))); // $NON-NLS-1$
+        vars.put(p + "first_row_ms", Long.toString(TimeUnit.NANOSECONDS.toMillis(getTimeToFirstRowNanos()))); // $NON-NLS-1$
+        vars.put(p + "fetch_ms", Long.toString(TimeUnit.NANOSECONDS.toMillis(getFetchNanos()))); // $NON-NLS-1$
+        vars.put(p + "close_ms", Long.toString(TimeUnit.NANOSECONDS.toMillis(closeNanos))); // $NON-NLS-1$
+        vars.put(p + "read_delay_ms", Long.toString(TimeUnit.NANOSECONDS.toMillis(pausedNanos))); // $NON-NLS-1$
+        if (fetchSize > 0) {
+            vars.put(p + "fetch_size", Integer.toString(fetchSize)); // $NON-NLS-1$
+        }
+        vars.put(p + "statement_cache_hits", Integer.toString(statementCacheHits)); // $NON-NLS-1$
+        vars.put(p + "statement_cache_misses", Integer.toString(statementCacheMisses)); // $NON-NLS-1$
+        if (batches > 0) {
+            vars.put(p + "batches", Integer.toString(batches)); // $NON-NLS-1$
+            vars.put(p + "batch_rows", Long.toString(batchRows)); // $NON-NLS-1$
+            vars.put(p + "batch_ms", Long.toString(TimeUnit.NANOSECONDS.toMillis(batchNanos))); // $NON-NLS-1$
+        }
+    }
+
+    /**
+     * Renders the result set counters one per line.
+     */
+    String counters() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Result sets: ").append(resultSets).append('\n'); // $NON-NLS-1$
+        sb.append("Rows: ").append(rows).append('\n'); // $NON-NLS-1$
+        sb.append("Columns: ").append(columns).append('\n'); // $NON-NLS-1$
+        sb.append("Bytes: ").append(bytes).append('\n'); // $NON-NLS-1$
+        return sb.toString();
+    }
+
+    /**
+     * Renders all counters one per line, in the "Name: value" form used for response headers.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(counters());
+        if (batches > 0) {
+            sb.append(batchCounters());
+        }
+        sb.append("Response bytes: ").append(responseBytes).append('\n'); // $NON-NLS-1$
+        if (truncated) {
+            sb.append("Captured bytes: ").append(capturedBytes).append('\n'); // $NON-NLS-1$
+            sb.append("Truncated: true\n"); // $NON-NLS-1$
+        }
+        if (budgetStop != null) {
+            sb.append("Budget: ").append(budgetMessage).append('\n'); // $NON-NLS-1$
+        }
+        sb.append(String.format(Locale.ENGLISH, "Connect (ms): %.3f\n", connectNanos / 1e6)); // $NON-NLS-1$
+        if (prepareNanos > 0) {
+            sb.append(String.format(Locale.ENGLISH, "Prepare (ms): %.3f\n", prepareNanos / 1e6)); // $NON-NLS-1$
+        }
+        sb.append(String.format(Locale.ENGLISH, "Execute (ms): %.3f\n", getExecuteNanos() / 1e6)); // $NON-NLS-1$
+        sb.append(String.format(Locale.ENGLISH, "First row (ms): %.3f\n", getTimeToFirstRowNanos() / 1e6)); // $NON-NLS-1$
+        sb.append(String.format(Locale.ENGLISH, "Fetch (ms): %.3f\n", getFetchNanos() / 1e6)); // $NON-NLS-1$
+        if (fetchSize > 0) {
+            sb.append("Fetch size: ").append(fetchSize).append(fetchSizeTuned ? " (auto)\n" : "\n"); // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$
+        }
+        if (fetches > 0) {
+            sb.append(String.format(Locale.ENGLISH, "Fetch round trips: %d, %.3f ms each\n", // $NON-NLS-1$
+                    fetches, fetchWaitNanos / 1e6 / fetches));
+        }
+        sb.append(String.format(Locale.ENGLISH, "Close (ms): %.3f\n", closeNanos / 1e6)); // $NON-NLS-1$
+        if (pausedNanos > 0) {
+            sb.append(String.format(Locale.ENGLISH, "Read delay (ms): %.3f\n", pausedNanos / 1e6)); // $NON-NLS-1$
+        }
+        if (statementCacheHits + statementCacheMisses > 0) {
+            sb.append("Statement cache: ").append(statementCacheMisses == 0 ? "hit" : "miss").append('\n'); // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$
+        }
+        if (spillFile != null) {
+            sb.append("Spilled bytes: ").append(spilledBytes).append('\n'); // $NON-NLS-1$
+            sb.append("Spill file: ").append(spillFile).append('\n'); // $NON-NLS-1$
+        }
+        return sb.toString();
+    }
+}
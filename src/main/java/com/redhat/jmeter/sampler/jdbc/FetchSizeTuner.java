@@ -0,0 +1,176 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import org.apache.jmeter.util.JMeterUtils;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the fetch size of a query when the sampler fetch size is "auto". One tuner per query text is
+ * shared by all threads; after each sample it is told how many rows and bytes were read and how long
+ * the fetches after the first one took, and it sizes the next fetches so that:
+ * <ul>
+ * <li>a fetch holds about {@code jdbcsampler.fetchsize.targetbytes} bytes (default 64 KB)</li>
+ * <li>the usual result fits in one fetch, without a buffer sized for more rows than the query returns</li>
+ * <li>a fetch takes at most {@code jdbcsampler.fetchsize.targetfetchms} milliseconds (default 100), once
+ * the fetch times at two fetch sizes show how much of a fetch is per row rather than round trip</li>
+ * </ul>
+ * The fetch size stays between 1 and {@code jdbcsampler.fetchsize.max} (default 10000) and changes by at
+ * most a factor 4 per sample.
+ * <p>
+ * At most 1000 query texts are tuned at a time, a bound only reached when the query text itself comes from
+ * variables. When it is, the quarter of the tuners used least recently is dropped, so the tuners of the
+ * queries still running keep what they learned.
+ */
+final class FetchSizeTuner {
+
+    static final String AUTO = "auto"; // $NON-NLS-1$
+
+    private static final int INITIAL_FETCH_SIZE =
+            JMeterUtils.getPropDefault("jdbcsampler.fetchsize.initial", 10); // $NON-NLS-1$
+    private static final int MAX_FETCH_SIZE =
+            JMeterUtils.getPropDefault("jdbcsampler.fetchsize.max", 10000); // $NON-NLS-1$
+    private static final long TARGET_BYTES =
+            JMeterUtils.getPropDefault("jdbcsampler.fetchsize.targetbytes", 65536); // $NON-NLS-1$
+    private static final long TARGET_FETCH_NANOS =
+            JMeterUtils.getPropDefault("jdbcsampler.fetchsize.targetfetchms", 100) * 1000000L; // $NON-NLS-1$
+
+    /**
+     * Weight of the latest sample in the moving averages
+     */
+    private static final double WEIGHT = 0.2;
+    private static final int MAX_STEP = 4;
+
+    /**
+     * Upper bound of tuned queries, reached only when the query text itself comes from variables
+     */
+    private static final int MAX_QUERIES = 1000;
+    /**
+     * Granularity of the last use time, so looking a tuner up does not write to it on every sample
+     */
+    private static final long USE_STAMP_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final ConcurrentMap<String, FetchSizeTuner> tuners = new ConcurrentHashMap<String, FetchSizeTuner>();
+
+    private volatile int fetchSize = INITIAL_FETCH_SIZE;
+    private volatile long lastUsed = System.nanoTime();
+
+    private double rowsPerSample = -1;
+    private double bytesPerRow = -1;
+    // fetch times at the last two fetch sizes used
+    private int lastSize;
+    private double lastFetchNanos;
+    private int previousSize;
+    private double previousFetchNanos;
+
+    /**
+     * @param sql query text
+     * @return the shared tuner of the query
+     */
+    static FetchSizeTuner forQuery(String sql) {
+        FetchSizeTuner tuner = tuners.get(sql);
+        if (tuner == null) {
+            if (tuners.size() >= MAX_QUERIES) {
+                evictLeastRecentlyUsed();
+            }
+            tuner = new FetchSizeTuner();
+            FetchSizeTuner existing = tuners.putIfAbsent(sql, tuner);
+            if (existing != null) {
+                tuner = existing;
+            }
+        } else {
+            long now = System.nanoTime();
+            if (now - tuner.lastUsed > USE_STAMP_NANOS) {
+                tuner.lastUsed = now;
+            }
+        }
+        return tuner;
+    }
+
+    /**
+     * Drops the quarter of the tuners used least recently. Threads still holding one of them go on using it
+     * unshared until they look their query up again.
+     */
+    private static void evictLeastRecentlyUsed() {
+        synchronized (tuners) {
+            if (tuners.size() < MAX_QUERIES) {
+                return;
+            }
+            long now = System.nanoTime();
+            long[] ages = new long[tuners.size()];
+            int n = 0;
+            for (FetchSizeTuner tuner : tuners.values()) {
+                if (n == ages.length) {
+                    break;
+                }
+                ages[n++] = now - tuner.lastUsed;
+            }
+            Arrays.sort(ages, 0, n);
+            long minAge = ages[n - n / 4];
+            for (Iterator<FetchSizeTuner> it = tuners.values().iterator(); it.hasNext(); ) {
+                if (now - it.next().lastUsed >= minAge) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the fetch size to use for the next execution
+     */
+    int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Updates the estimates with a finished sample and chooses the next fetch size.
+     *
+     * @param usedFetchSize fetch size the sample ran with
+     * @param rows          rows read
+     * @param bytes         approximate bytes read
+     * @param fetches       fetches after the first one, i.e. round trips made while reading
+     * @param fetchNanos    time spent in those fetches, in nanoseconds
+     */
+    synchronized void sampleEnded(int usedFetchSize, long rows, long bytes, int fetches, long fetchNanos) {
+        rowsPerSample = average(rowsPerSample, rows);
+        if (rows > 0) {
+            bytesPerRow = average(bytesPerRow, Math.max(1.0, (double) bytes / rows));
+        }
+        if (fetches > 0) {
+            double nanosPerFetch = (double) fetchNanos / fetches;
+            if (usedFetchSize == lastSize) {
+                lastFetchNanos = average(lastFetchNanos, nanosPerFetch);
+            } else {
+                previousSize = lastSize;
+                previousFetchNanos = lastFetchNanos;
+                lastSize = usedFetchSize;
+                lastFetchNanos = nanosPerFetch;
+            }
+        }
+
+        double target = MAX_FETCH_SIZE;
+        if (bytesPerRow > 0) {
+            target = Math.min(target, TARGET_BYTES / bytesPerRow);
+        }
+        if (rowsPerSample >= 0) {
+            target = Math.min(target, Math.ceil(rowsPerSample) + 1);
+        }
+        if (previousSize > 0 && previousSize != lastSize) {
+            double nanosPerRow = (lastFetchNanos - previousFetchNanos) / (lastSize - previousSize);
+            if (nanosPerRow > 0) {
+                double roundTripNanos = Math.max(0, lastFetchNanos - nanosPerRow * lastSize);
+                target = Math.min(target, Math.max(1, (TARGET_FETCH_NANOS - roundTripNanos) / nanosPerRow));
+            }
+        }
+        double next = Math.min(target, (double) usedFetchSize * MAX_STEP);
+        next = Math.max(next, usedFetchSize / MAX_STEP);
+        fetchSize = (int) Math.max(1, next);
+    }
+
+    private static double average(double average, double value) {
+        return average < 0 ? value : average + WEIGHT * (value - average);
+    }
+}
@@ -12,22 +12,239 @@ import java.beans.PropertyDescriptor;
 public abstract class JDBCAdvancedTestElementBeanInfoSupport extends JDBCTestElementBeanInfoSupport {
     public JDBCAdvancedTestElementBeanInfoSupport(Class<? extends TestBean> beanClass) {
         super(beanClass);
+        createPropertyGroup("connectionConfig", // $NON-NLS-1$
+                new String[]{
+                        "pinConnection" // $NON-NLS-1$
+                });
+
         createPropertyGroup("statementConfig",
                 // $NON-NLS-1$
                 new String[]{
-                        "fetchSize" // $NON-NLS-1$
+                        "fetchSize", // $NON-NLS-1$
+                        "resultSetType", // $NON-NLS-1$
+                        "resultSetConcurrency", // $NON-NLS-1$
+                        "resultSetHoldability" // $NON-NLS-1$
+                });
+
+        createPropertyGroup("parameterFeedConfig", // $NON-NLS-1$
+                new String[]{
+                        "parameterFile", // $NON-NLS-1$
+                        "parameterFileFormat", // $NON-NLS-1$
+                        "parameterFileOrder" // $NON-NLS-1$
+                });
+
+        createPropertyGroup("batchConfig", // $NON-NLS-1$
+                new String[]{
+                        "batchFile", // $NON-NLS-1$
+                        "batchVariable", // $NON-NLS-1$
+                        "batchSize", // $NON-NLS-1$
+                        "batchCommitInterval" // $NON-NLS-1$
                 });
 
         createPropertyGroup("resultSetConfig", // $NON-NLS-1$
                 new String[]{
-                        "resultSetReadDelay" // $NON-NLS-1$
+                        "resultSetHandler", // $NON-NLS-1$
+                        "responseCaptureLimit", // $NON-NLS-1$
+                        "spillToDisk", // $NON-NLS-1$
+                        "readPacingMode", // $NON-NLS-1$
+                        "resultSetReadDelay", // $NON-NLS-1$
+                        "readDelayJitter", // $NON-NLS-1$
+                        "variableExtraction", // $NON-NLS-1$
+                        "variableExtractionSize", // $NON-NLS-1$
+                        "lobCaptureLimit", // $NON-NLS-1$
+                        "lobHash" // $NON-NLS-1$
                 });
-        PropertyDescriptor p = property("fetchSize"); // $NON-NLS-1$
+        createPropertyGroup("budgetConfig", // $NON-NLS-1$
+                new String[]{
+                        "rowBudget", // $NON-NLS-1$
+                        "byteBudget", // $NON-NLS-1$
+                        "timeBudget" // $NON-NLS-1$
+                });
+        createPropertyGroup("statisticsConfig", // $NON-NLS-1$
+                new String[]{
+                        "statisticsVariable", // $NON-NLS-1$
+                        "exportMetrics" // $NON-NLS-1$
+                });
+
+        PropertyDescriptor p = property("queryType"); // $NON-NLS-1$
+        p.setValue(TAGS, new String[]{
+                AbstractJDBCAdvancedTestElement.SELECT,
+                AbstractJDBCAdvancedTestElement.UPDATE,
+                AbstractJDBCAdvancedTestElement.CALLABLE,
+                AbstractJDBCAdvancedTestElement.PREPARED_SELECT,
+                AbstractJDBCAdvancedTestElement.PREPARED_UPDATE,
+                AbstractJDBCAdvancedTestElement.PREPARED_BATCH_UPDATE,
+                AbstractJDBCAdvancedTestElement.COMMIT,
+                AbstractJDBCAdvancedTestElement.ROLLBACK,
+                AbstractJDBCAdvancedTestElement.AUTOCOMMIT_FALSE,
+                AbstractJDBCAdvancedTestElement.AUTOCOMMIT_TRUE
+        });
+
+        p = property("pinConnection"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, Boolean.FALSE);
+
+        p = property("fetchSize"); // $NON-NLS-1$
         p.setValue(NOT_UNDEFINED, Boolean.TRUE);  // $NON-NLS-1$
         p.setValue(DEFAULT, 10);
 
+        p = property("resultSetType"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, CursorOptions.TYPE_FORWARD_ONLY);
+        p.setValue(NOT_OTHER, Boolean.TRUE);
+        p.setValue(TAGS, new String[]{
+                CursorOptions.TYPE_FORWARD_ONLY,
+                CursorOptions.TYPE_SCROLL_INSENSITIVE,
+                CursorOptions.TYPE_SCROLL_SENSITIVE
+        });
+
+        p = property("resultSetConcurrency"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, CursorOptions.CONCUR_READ_ONLY);
+        p.setValue(NOT_OTHER, Boolean.TRUE);
+        p.setValue(TAGS, new String[]{
+                CursorOptions.CONCUR_READ_ONLY,
+                CursorOptions.CONCUR_UPDATABLE
+        });
+
+        p = property("resultSetHoldability"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, CursorOptions.HOLD_DEFAULT);
+        p.setValue(NOT_OTHER, Boolean.TRUE);
+        p.setValue(TAGS, new String[]{
+                CursorOptions.HOLD_DEFAULT,
+                CursorOptions.HOLD_CURSORS_OVER_COMMIT,
+                CursorOptions.CLOSE_CURSORS_AT_COMMIT
+        });
+
+        p = property("parameterFile"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, ""); // $NON-NLS-1$
+
+        p = property("parameterFileFormat"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, ParameterFeed.FORMAT_TEXT);
+        p.setValue(NOT_OTHER, Boolean.TRUE);
+        p.setValue(TAGS, new String[]{
+                ParameterFeed.FORMAT_TEXT,
+                ParameterFeed.FORMAT_BINARY
+        });
+
+        p = property("parameterFileOrder"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, ParameterFeed.ORDER_SHARED);
+        p.setValue(NOT_OTHER, Boolean.TRUE);
+        p.setValue(TAGS, new String[]{
+                ParameterFeed.ORDER_SHARED,
+                ParameterFeed.ORDER_STRIDE
+        });
+
+        p = property("batchFile"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, ""); // $NON-NLS-1$
+
+        p = property("batchVariable"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, ""); // $NON-NLS-1$
+
+        p = property("batchSize"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, "100"); // $NON-NLS-1$
+
+        p = property("batchCommitInterval"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, "0"); // $NON-NLS-1$
+
+        p = property("resultSetHandler"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, AbstractJDBCAdvancedTestElement.RS_STORE_AS_STRING);
+        p.setValue(NOT_OTHER, Boolean.TRUE);
+        p.setValue(TAGS, new String[]{
+                AbstractJDBCAdvancedTestElement.RS_STORE_AS_STRING,
+                AbstractJDBCAdvancedTestElement.RS_STORE_AS_OBJECT,
+                AbstractJDBCAdvancedTestElement.RS_COUNT_RECORDS,
+                AbstractJDBCAdvancedTestElement.RS_DRAIN,
+                AbstractJDBCAdvancedTestElement.RS_CAPTURE_BOUNDED,
+                AbstractJDBCAdvancedTestElement.RS_CHECKSUM_ORDERED,
+                AbstractJDBCAdvancedTestElement.RS_CHECKSUM_UNORDERED
+        });
+
+        p = property("responseCaptureLimit"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, "64"); // $NON-NLS-1$
+
+        p = property("spillToDisk"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, Boolean.FALSE);
+
+        p = property("variableExtraction"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, VariableExtraction.ALL_ROWS);
+        p.setValue(NOT_OTHER, Boolean.TRUE);
+        p.setValue(TAGS, new String[]{
+                VariableExtraction.ALL_ROWS,
+                VariableExtraction.FIRST_ROWS,
+                VariableExtraction.LAST_ROW,
+                VariableExtraction.EVERY_KTH_ROW,
+                VariableExtraction.RESERVOIR
+        });
+
+        p = property("variableExtractionSize"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, "100"); // $NON-NLS-1$
+
+        p = property("lobCaptureLimit"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, "-1"); // $NON-NLS-1$
+
+        p = property("lobHash"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, Boolean.FALSE);
+
+        p = property("rowBudget"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, "0"); // $NON-NLS-1$
+
+        p = property("byteBudget"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, "0"); // $NON-NLS-1$
+
+        p = property("timeBudget"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, "0"); // $NON-NLS-1$
+
+        p = property("statisticsVariable"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, ""); // $NON-NLS-1$
+
+        p = property("exportMetrics"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, Boolean.FALSE);
+
+        p = property("readPacingMode"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, ConsumerPacing.PER_ROW_DELAY);
+        p.setValue(NOT_OTHER, Boolean.TRUE);
+        p.setValue(TAGS, new String[]{
+                ConsumerPacing.PER_ROW_DELAY,
+                ConsumerPacing.PER_FETCH_DELAY,
+                ConsumerPacing.ROWS_PER_SECOND,
+                ConsumerPacing.BYTES_PER_SECOND
+        });
+
         p = property("resultSetReadDelay"); // $NON-NLS-1$
         p.setValue(NOT_UNDEFINED, Boolean.TRUE);
         p.setValue(DEFAULT, 0);// $NON-NLS-1$
+
+        p = property("readDelayJitter"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, ConsumerPacing.JITTER_NONE);
+        p.setValue(NOT_OTHER, Boolean.TRUE);
+        p.setValue(TAGS, new String[]{
+                ConsumerPacing.JITTER_NONE,
+                ConsumerPacing.JITTER_UNIFORM,
+                ConsumerPacing.JITTER_EXPONENTIAL,
+                ConsumerPacing.JITTER_GAUSSIAN
+        });
     }
 }
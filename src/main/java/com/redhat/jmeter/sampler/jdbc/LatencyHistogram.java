@@ -0,0 +1,171 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations recorded concurrently by all threads of a sampler, with buckets laid out like
+ * an HDR histogram: durations are kept in microseconds, exactly below 32 microseconds and with 16 linear
+ * sub-buckets per power of two above, so any percentile is within about 6% of the recorded value.
+ * Recording is a few atomic increments and never locks; the whole range up to {@link Long#MAX_VALUE}
+ * fits in a fixed array of less than 1000 counters. The counters are striped by thread, one array per
+ * stripe created on first use, so threads recording at the same time do not contend on the same cache
+ * lines; reads merge the stripes.
+ */
+final class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 32;
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int FIRST_EXPONENT = 5; // 2^5 == LINEAR_BUCKETS
+    private static final int BUCKETS = LINEAR_BUCKETS + (63 - FIRST_EXPONENT) * SUB_BUCKETS;
+    private static final int STRIPES = stripes();
+
+    private final AtomicReferenceArray<AtomicLongArray> counts = new AtomicReferenceArray<AtomicLongArray>(STRIPES);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * @param nanos duration to record, in nanoseconds; negative durations are recorded as 0
+     */
+    void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        stripe().incrementAndGet(bucket(micros));
+        count.increment();
+        totalMicros.add(micros);
+        long max = maxMicros.get();
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+        }
+    }
+
+    /**
+     * @return the smallest power of two not below the number of processors, at most 64
+     */
+    private static int stripes() {
+        int processors = Math.min(Runtime.getRuntime().availableProcessors(), 64);
+        int stripes = 1;
+        while (stripes < processors) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    private AtomicLongArray stripe() {
+        int index = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        AtomicLongArray stripe = counts.get(index);
+        if (stripe == null) {
+            counts.compareAndSet(index, null, new AtomicLongArray(BUCKETS));
+            stripe = counts.get(index);
+        }
+        return stripe;
+    }
+
+    static int bucket(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return the middle of the range of durations counted in a bucket, in microseconds
+     */
+    static long value(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + FIRST_EXPONENT;
+        int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width / 2;
+    }
+
+    /**
+     * @return number of recorded durations
+     */
+    long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return mean of the recorded durations in milliseconds, 0 if none
+     */
+    double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalMicros.sum() / 1e3 / n;
+    }
+
+    /**
+     * @return longest recorded duration in milliseconds
+     */
+    double getMaxMillis() {
+        return maxMicros.get() / 1e3;
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100
+     * @return the duration in milliseconds under which the given percentage of the recorded durations fall, 0 if none
+     */
+    double getPercentileMillis(double percentile) {
+        return getPercentilesMillis(percentile)[0];
+    }
+
+    /**
+     * Gets several percentiles from one merge of the stripes and one pass over the buckets.
+     *
+     * @param percentiles percentiles between 0 and 100, in ascending order
+     * @return the duration in milliseconds of each percentile, 0 if none
+     */
+    double[] getPercentilesMillis(double... percentiles) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int s = 0; s < STRIPES; s++) {
+            AtomicLongArray stripe = counts.get(s);
+            if (stripe != null) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    snapshot[i] += stripe.get(i);
+                }
+            }
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            total += snapshot[i];
+        }
+        double[] millis = new double[percentiles.length];
+        if (total == 0) {
+            return millis;
+        }
+        long max = maxMicros.get();
+        int p = 0;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS && p < percentiles.length; i++) {
+            seen += snapshot[i];
+            while (p < percentiles.length && seen >= Math.max(1, (long) Math.ceil(total * percentiles[p] / 100))) {
+                millis[p++] = Math.min(value(i), max) / 1e3;
+            }
+        }
+        while (p < percentiles.length) {
+            millis[p++] = max / 1e3;
+        }
+        return millis;
+    }
+
+    void reset() {
+        for (int s = 0; s < STRIPES; s++) {
+            AtomicLongArray stripe = counts.get(s);
+            if (stripe != null) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    stripe.set(i, 0);
+                }
+            }
+        }
+        count.reset();
+        totalMicros.reset();
+        maxMicros.set(0);
+    }
+}
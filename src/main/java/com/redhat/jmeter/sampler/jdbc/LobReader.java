@@ -0,0 +1,303 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import org.apache.jmeter.util.JMeterUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Reads large object columns (BLOB, CLOB, NCLOB, LONGVARBINARY, LONGVARCHAR) through
+ * {@link ResultSet#getBinaryStream(int)} and {@link ResultSet#getCharacterStream(int)} in chunks of
+ * {@code jdbcsampler.lob.chunksize} (default 8192) bytes or characters, instead of materializing each value
+ * with {@link ResultSet#getObject(int)}. The chunk buffers belong to the reader and are reused for every value,
+ * so reading a value allocates nothing but the part of it kept for the response text.
+ * <p>
+ * The text of a value is its first "capture limit" bytes (decoded with the sampler encoding) or characters,
+ * followed, when the value was cut or is hashed, by {@code ... [<length> bytes, fnv1a64 <hash>]}. Values
+ * under the limit and not hashed are rendered exactly as the whole value.
+ */
+final class LobReader {
+
+    static final int KIND_NONE = 0;
+    static final int KIND_BINARY = 1;
+    static final int KIND_CHARACTER = 2;
+
+    private static final int CHUNK_SIZE = Math.max(256, JMeterUtils.getPropDefault("jdbcsampler.lob.chunksize", 8192)); // $NON-NLS-1$
+
+    /**
+     * Capture buffers grown over this many bytes or characters by a large value are dropped after the value
+     */
+    private static final int RETAINED_CAPACITY = Math.max(CHUNK_SIZE, 1 << 16);
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String encoding;
+    private final byte[] bytes = new byte[CHUNK_SIZE];
+    private final char[] chars = new char[CHUNK_SIZE];
+    /**
+     * Leading bytes of the current binary value, grown up to the capture limit
+     */
+    private byte[] capturedBytes = new byte[CHUNK_SIZE];
+    private final StringBuilder capturedChars = new StringBuilder();
+
+    private int captured;
+    private long length;
+    private long hash;
+
+    LobReader(String encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * Finds the columns of a result set read as streams.
+     *
+     * @param meta metadata of the result set
+     * @return the kind of each column, 0-based, or {@code null} if no column is a large object
+     * @throws SQLException
+     */
+    static int[] columnKinds(ResultSetMetaData meta) throws SQLException {
+        int[] kinds = new int[meta.getColumnCount()];
+        boolean any = false;
+        for (int i = 0; i < kinds.length; i++) {
+            switch (meta.getColumnType(i + 1)) {
+                case Types.BLOB:
+                case Types.LONGVARBINARY:
+                    kinds[i] = KIND_BINARY;
+                    any = true;
+                    break;
+                case Types.CLOB:
+                case Types.NCLOB:
+                case Types.LONGVARCHAR:
+                case Types.LONGNVARCHAR:
+                    kinds[i] = KIND_CHARACTER;
+                    any = true;
+                    break;
+                default:
+                    kinds[i] = KIND_NONE;
+            }
+        }
+        return any ? kinds : null;
+    }
+
+    /**
+     * Reads a large object column of the current row to its end.
+     *
+     * @param rs           result set positioned on a row
+     * @param column       1-based column index
+     * @param kind         kind of the column, from {@link #columnKinds(ResultSetMetaData)}
+     * @param captureLimit bytes or characters kept for the text, negative for the whole value
+     * @param hash         true to hash the value and render the hash
+     * @return the text of the value, {@code null} for NULL
+     * @throws SQLException
+     * @throws IOException
+     */
+    String read(ResultSet rs, int column, int kind, int captureLimit, boolean hash) throws SQLException, IOException {
+        if (kind == KIND_BINARY) {
+            return readBinary(rs.getBinaryStream(column), captureLimit, hash) ? render(true, captureLimit, hash) : null;
+        }
+        return readCharacters(rs.getCharacterStream(column), captureLimit, hash) ? render(false, captureLimit, hash) : null;
+    }
+
+    /**
+     * Renders a large object value already read with {@link ResultSet#getObject(int)} the way
+     * {@link #read(ResultSet, int, int, int, boolean)} renders the column: BLOB and CLOB values are read
+     * through their streams, byte arrays as binary values and anything else as its text.
+     *
+     * @param value        the value, may be {@code null}
+     * @param captureLimit bytes or characters kept for the text, negative for the whole value
+     * @param hash         true to hash the value and render the hash
+     * @return the text of the value, {@code null} for NULL
+     * @throws SQLException
+     * @throws IOException
+     */
+    String read(Object value, int captureLimit, boolean hash) throws SQLException, IOException {
+        if (value == null) {
+            length = 0;
+            return null;
+        } else if (value instanceof Blob) {
+            return readBinary(((Blob) value).getBinaryStream(), captureLimit, hash) ? render(true, captureLimit, hash) : null;
+        } else if (value instanceof byte[]) {
+            readBinary(new ByteArrayInputStream((byte[]) value), captureLimit, hash);
+            return render(true, captureLimit, hash);
+        } else if (value instanceof Clob) {
+            return readCharacters(((Clob) value).getCharacterStream(), captureLimit, hash) ? render(false, captureLimit, hash) : null;
+        }
+        readCharacters(new StringReader(value.toString()), captureLimit, hash);
+        return render(false, captureLimit, hash);
+    }
+
+    private String render(boolean binary, int captureLimit, boolean hash) throws UnsupportedEncodingException {
+        String text;
+        if (binary) {
+            text = new String(capturedBytes, 0, captured, encoding);
+            if (capturedBytes.length > RETAINED_CAPACITY) {
+                capturedBytes = new byte[CHUNK_SIZE];
+            }
+        } else {
+            text = capturedChars.toString();
+            if (capturedChars.capacity() > RETAINED_CAPACITY) {
+                capturedChars.setLength(0);
+                capturedChars.trimToSize();
+            }
+        }
+        boolean cut = captureLimit >= 0 && length > captureLimit;
+        if (!cut && !hash) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text.length() + 48);
+        sb.append(text);
+        if (cut) {
+            sb.append("..."); // $NON-NLS-1$
+        }
+        sb.append(" [").append(length).append(binary ? " bytes" : " chars"); // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$
+        if (hash) {
+            sb.append(", fnv1a64 ").append(String.format(Locale.ENGLISH, "%016x", this.hash)); // $NON-NLS-1$ $NON-NLS-2$
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Reads a large object column of the current row to its end, keeping nothing but its length.
+     *
+     * @param rs     result set positioned on a row
+     * @param column 1-based column index
+     * @param kind   kind of the column, from {@link #columnKinds(ResultSetMetaData)}
+     * @return false for NULL, otherwise the length is {@link #getLength()}
+     * @throws SQLException
+     * @throws IOException
+     */
+    boolean drain(ResultSet rs, int column, int kind) throws SQLException, IOException {
+        if (kind == KIND_BINARY) {
+            return readBinary(rs.getBinaryStream(column), 0, false);
+        }
+        return readCharacters(rs.getCharacterStream(column), 0, false);
+    }
+
+    /**
+     * Reads a large object column of the current row to its end, keeping nothing but its length and hash.
+     *
+     * @param rs     result set positioned on a row
+     * @param column 1-based column index
+     * @param kind   kind of the column, from {@link #columnKinds(ResultSetMetaData)}
+     * @return false for NULL, otherwise the hash is {@link #getHash()}
+     * @throws SQLException
+     * @throws IOException
+     */
+    boolean digest(ResultSet rs, int column, int kind) throws SQLException, IOException {
+        if (kind == KIND_BINARY) {
+            return readBinary(rs.getBinaryStream(column), 0, true);
+        }
+        return readCharacters(rs.getCharacterStream(column), 0, true);
+    }
+
+    /**
+     * Reads a BLOB to its end, keeping nothing but its length and hash.
+     *
+     * @param blob the value
+     * @return false for NULL, otherwise the hash is {@link #getHash()}
+     * @throws SQLException
+     * @throws IOException
+     */
+    boolean digest(Blob blob) throws SQLException, IOException {
+        return readBinary(blob == null ? null : blob.getBinaryStream(), 0, true);
+    }
+
+    /**
+     * Reads a CLOB or NCLOB to its end, keeping nothing but its length and hash.
+     *
+     * @param clob the value
+     * @return false for NULL, otherwise the hash is {@link #getHash()}
+     * @throws SQLException
+     * @throws IOException
+     */
+    boolean digest(Clob clob) throws SQLException, IOException {
+        return readCharacters(clob == null ? null : clob.getCharacterStream(), 0, true);
+    }
+
+    private boolean readBinary(InputStream in, int captureLimit, boolean hash) throws IOException {
+        length = 0;
+        captured = 0;
+        if (in == null) {
+            return false;
+        }
+        long h = FNV_OFFSET;
+        try {
+            int n;
+            while ((n = in.read(bytes, 0, bytes.length)) >= 0) {
+                if (hash) {
+                    for (int i = 0; i < n; i++) {
+                        h = (h ^ (bytes[i] & 0xff)) * FNV_PRIME;
+                    }
+                }
+                int keep = captureLimit < 0 ? n : (int) Math.min(n, Math.max(0, captureLimit - length));
+                if (keep > 0) {
+                    if (captured + keep > capturedBytes.length) {
+                        capturedBytes = Arrays.copyOf(capturedBytes, Math.max(captured + keep, capturedBytes.length * 2));
+                    }
+                    System.arraycopy(bytes, 0, capturedBytes, captured, keep);
+                    captured += keep;
+                }
+                length += n;
+            }
+        } finally {
+            in.close();
+        }
+        this.hash = h;
+        return true;
+    }
+
+    private boolean readCharacters(Reader in, int captureLimit, boolean hash) throws IOException {
+        length = 0;
+        capturedChars.setLength(0);
+        if (in == null) {
+            return false;
+        }
+        long h = FNV_OFFSET;
+        try {
+            int n;
+            while ((n = in.read(chars, 0, chars.length)) >= 0) {
+                if (hash) {
+                    for (int i = 0; i < n; i++) {
+                        h = (h ^ chars[i]) * FNV_PRIME;
+                    }
+                }
+                int keep = captureLimit < 0 ? n : (int) Math.min(n, Math.max(0, captureLimit - length));
+                if (keep > 0) {
+                    capturedChars.append(chars, 0, keep);
+                }
+                length += n;
+            }
+        } finally {
+            in.close();
+        }
+        this.hash = h;
+        return true;
+    }
+
+    /**
+     * @return FNV-1a hash of the bytes, or characters for character columns, of the value last hashed
+     */
+    long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return bytes, or characters for character columns, of the value last read, 0 for NULL
+     */
+    long getLength() {
+        return length;
+    }
+}
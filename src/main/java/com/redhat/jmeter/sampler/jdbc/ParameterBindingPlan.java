@@ -0,0 +1,292 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.util.JMeterUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parsed form of the "Parameter types" of a sampler: one {@link ParameterBinder} per parameter holding
+ * its JDBC type, its direction and a setter matching the type. Plans are built once per distinct type
+ * string and shared by all threads, so a sample only has to split and parse the parameter values.
+ */
+public final class ParameterBindingPlan {
+
+    private static final String COMMA = ","; // $NON-NLS-1$
+    private static final char COMMA_CHAR = ',';
+    private static final char QUOTE_CHAR = '"';
+
+    private static final String OUT = "OUT"; // $NON-NLS-1$
+    private static final String INOUT = "INOUT"; // $NON-NLS-1$
+
+    static final String NULL_MARKER =
+            JMeterUtils.getPropDefault("jdbcsampler.nullmarker", "]NULL["); // $NON-NLS-1$
+
+    /**
+     * Upper bound of cached plans, reached only when the type string itself comes from variables
+     */
+    private static final int MAX_PLANS = 1000;
+
+    private static final Map<String, Integer> mapJdbcNameToInt;
+    // read-only after class init
+
+    static {
+        // based on e291. Getting the Name of a JDBC Type from javaalmanac.com
+        // http://javaalmanac.com/egs/java.sql/JdbcInt2Str.html
+        mapJdbcNameToInt = new HashMap<String, Integer>();
+
+        //Get all fields in java.sql.Types and store the corresponding int values
+        Field[] fields = java.sql.Types.class.getFields();
+        for (int i = 0; i < fields.length; i++) {
+            try {
+                String name = fields[i].getName();
+                Integer value = (Integer) fields[i].get(null);
+                mapJdbcNameToInt.put(name.toLowerCase(java.util.Locale.ENGLISH), value);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e); // should not happen
+            }
+        }
+    }
+
+    private static final Map<String, ParameterBindingPlan> plans = new ConcurrentHashMap<String, ParameterBindingPlan>();
+
+    private final ParameterBinder[] binders;
+    private final int[] outputs;
+
+    private ParameterBindingPlan(ParameterBinder[] binders) {
+        this.binders = binders;
+        this.outputs = new int[binders.length];
+        for (int i = 0; i < binders.length; i++) {
+            // can't have an output parameter type null
+            outputs[i] = binders[i].isOutput() ? binders[i].getSqlType() : Types.NULL;
+        }
+    }
+
+    /**
+     * Gets the plan of a type string, building and caching it on first use.
+     *
+     * @param argumentsTypes comma separated JDBC type names, optionally prefixed with IN, OUT or INOUT
+     * @return the shared plan
+     * @throws SQLException when a type name is unknown
+     */
+    public static ParameterBindingPlan forTypes(String argumentsTypes) throws SQLException {
+        ParameterBindingPlan plan = plans.get(argumentsTypes);
+        if (plan == null) {
+            plan = parse(argumentsTypes);
+            if (plans.size() >= MAX_PLANS) {
+                plans.clear();
+            }
+            plans.put(argumentsTypes, plan);
+        }
+        return plan;
+    }
+
+    private static ParameterBindingPlan parse(String argumentsTypes) throws SQLException {
+        String[] types = argumentsTypes.split(COMMA);
+        ParameterBinder[] binders = new ParameterBinder[types.length];
+        for (int i = 0; i < types.length; i++) {
+            String argumentType = types[i];
+            String[] arg = argumentType.split(" ");
+            String inputOutput = "";
+            if (arg.length > 1) {
+                argumentType = arg[1];
+                inputOutput = arg[0];
+            }
+            boolean output = OUT.equalsIgnoreCase(inputOutput) || INOUT.equalsIgnoreCase(inputOutput);
+            boolean input = !OUT.equalsIgnoreCase(inputOutput);
+            binders[i] = new ParameterBinder(getJdbcType(argumentType), input, output);
+        }
+        return new ParameterBindingPlan(binders);
+    }
+
+    static int getJdbcType(String jdbcType) throws SQLException {
+        Integer entry = mapJdbcNameToInt.get(jdbcType.toLowerCase(java.util.Locale.ENGLISH));
+        if (entry == null) {
+            try {
+                entry = Integer.decode(jdbcType);
+            } catch (NumberFormatException e) {
+                throw new SQLException("Invalid data type: " + jdbcType);
+            }
+        }
+        return (entry).intValue();
+    }
+
+    /**
+     * Splits comma separated parameter values. Values without quotes are split directly, quoted values
+     * are handled by {@link CSVSaveService#csvSplitString(String, char)}.
+     *
+     * @param arguments the parameter values
+     * @return one string per value
+     * @throws IOException when the quoting is invalid
+     */
+    public static String[] splitValues(String arguments) throws IOException {
+        if (arguments.indexOf(QUOTE_CHAR) >= 0) {
+            return CSVSaveService.csvSplitString(arguments, COMMA_CHAR);
+        }
+        List<String> values = new ArrayList<String>();
+        int start = 0;
+        int comma;
+        while ((comma = arguments.indexOf(COMMA_CHAR, start)) >= 0) {
+            values.add(arguments.substring(start, comma));
+            start = comma + 1;
+        }
+        values.add(arguments.substring(start));
+        return values.toArray(new String[values.size()]);
+    }
+
+    /**
+     * Binds parameter values to a statement and registers its output parameters.
+     *
+     * @param pstmt     statement to bind to
+     * @param arguments one value per parameter
+     * @return JDBC type of each output parameter, {@link Types#NULL} for input only parameters
+     * @throws SQLException when the values do not match the plan or cannot be bound
+     */
+    public int[] bind(PreparedStatement pstmt, String[] arguments) throws SQLException {
+        if (arguments.length != binders.length) {
+            throw new SQLException("number of arguments (" + arguments.length + ") and number of types (" + binders.length + ") are not equal");
+        }
+        for (int i = 0; i < binders.length; i++) {
+            try {
+                binders[i].bind(pstmt, i + 1, arguments[i]);
+            } catch (NullPointerException e) { // thrown by Derby JDBC (at least) if there are no "?" markers in statement
+                throw new SQLException("Could not set argument no: " + (i + 1) + " - missing parameter marker?");
+            }
+        }
+        return outputs;
+    }
+
+    /**
+     * @return number of parameters
+     */
+    public int size() {
+        return binders.length;
+    }
+
+    /**
+     * @param i 0-based parameter index
+     * @return binder of the parameter
+     */
+    public ParameterBinder getBinder(int i) {
+        return binders[i];
+    }
+
+    /**
+     * Binds one parameter with the setter matching its JDBC type. Values the typed setter cannot parse
+     * are handed to {@link PreparedStatement#setObject(int, Object, int)} so the driver converts them as before.
+     */
+    public static final class ParameterBinder {
+
+        private final int sqlType;
+        private final boolean input;
+        private final boolean output;
+
+        ParameterBinder(int sqlType, boolean input, boolean output) {
+            this.sqlType = sqlType;
+            this.input = input;
+            this.output = output;
+        }
+
+        public int getSqlType() {
+            return sqlType;
+        }
+
+        public boolean isInput() {
+            return input;
+        }
+
+        public boolean isOutput() {
+            return output;
+        }
+
+        /**
+         * @param pstmt          statement to bind to
+         * @param parameterIndex 1-based index of the parameter marker
+         * @param argument       parameter value, {@code jdbcsampler.nullmarker} for SQL NULL
+         * @throws SQLException when the driver rejects the value
+         */
+        public void bind(PreparedStatement pstmt, int parameterIndex, String argument) throws SQLException {
+            if (input) {
+                if (argument.equals(NULL_MARKER)) {
+                    pstmt.setNull(parameterIndex, sqlType);
+                } else {
+                    try {
+                        setTyped(pstmt, parameterIndex, argument);
+                    } catch (IllegalArgumentException e) { // includes NumberFormatException
+                        pstmt.setObject(parameterIndex, argument, sqlType);
+                    }
+                }
+            }
+            if (output) {
+                ((CallableStatement) pstmt).registerOutParameter(parameterIndex, sqlType);
+            }
+        }
+
+        private void setTyped(PreparedStatement pstmt, int parameterIndex, String argument) throws SQLException {
+            switch (sqlType) {
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                    pstmt.setString(parameterIndex, argument);
+                    break;
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                    pstmt.setInt(parameterIndex, Integer.parseInt(argument));
+                    break;
+                case Types.BIGINT:
+                    pstmt.setLong(parameterIndex, Long.parseLong(argument));
+                    break;
+                case Types.REAL:
+                    pstmt.setFloat(parameterIndex, Float.parseFloat(argument));
+                    break;
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    pstmt.setDouble(parameterIndex, Double.parseDouble(argument));
+                    break;
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                    pstmt.setBigDecimal(parameterIndex, new BigDecimal(argument));
+                    break;
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    pstmt.setBoolean(parameterIndex, parseBoolean(argument));
+                    break;
+                case Types.DATE:
+                    pstmt.setDate(parameterIndex, java.sql.Date.valueOf(argument));
+                    break;
+                case Types.TIME:
+                    pstmt.setTime(parameterIndex, java.sql.Time.valueOf(argument));
+                    break;
+                case Types.TIMESTAMP:
+                    pstmt.setTimestamp(parameterIndex, java.sql.Timestamp.valueOf(argument));
+                    break;
+                default:
+                    pstmt.setObject(parameterIndex, argument, sqlType);
+            }
+        }
+
+        static boolean parseBoolean(String argument) {
+            if ("true".equalsIgnoreCase(argument) || "1".equals(argument)) { // $NON-NLS-1$ $NON-NLS-2$
+                return true;
+            } else if ("false".equalsIgnoreCase(argument) || "0".equals(argument)) { // $NON-NLS-1$ $NON-NLS-2$
+                return false;
+            }
+            throw new IllegalArgumentException(argument);
+        }
+    }
+}
@@ -0,0 +1,560 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import org.apache.jorphan.logging.LoggingManager;
+import org.apache.log.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parameter values read from a memory-mapped file shared by all threads, as an alternative to the
+ * "Parameter values" string. The file is mapped read-only and indexed once per test; threads then read
+ * it without locks, each through its own {@link Cursor}:
+ * <ul>
+ * <li>{@link #ORDER_SHARED}: all threads take the next record from one atomic counter, so every record
+ * is used once per pass over the file</li>
+ * <li>{@link #ORDER_STRIDE}: thread k of n reads records k, k + n, k + 2n, ... without any shared state</li>
+ * </ul>
+ * Both wrap around at the end of the file. Each thread group gets its own feed, as thread numbers only
+ * tell threads apart within a group: every group goes through the records once per pass on its own.
+ * <p>
+ * {@link #FORMAT_TEXT} files hold one record per line, values separated by commas as in "Parameter values",
+ * parsed for the parameter types on each use. With {@link #FORMAT_BINARY} the values are pre-encoded once
+ * for the parameter types: a text file is converted to {@code <file>.feed} (again when the text file is newer
+ * or the types change), and that file, or a file already in this format, is mapped. Each value of a
+ * binary record is a flag byte (0 for NULL) followed by its typed encoding: int, long, float or double for
+ * the numeric types, one byte for booleans, epoch milliseconds for dates and times plus nanoseconds for
+ * timestamps, scale and unscaled bytes for decimals, and length-prefixed UTF-8 for the others. Binding
+ * then calls the typed setter without parsing.
+ * <p>
+ * Files are limited to 2 GB.
+ */
+final class ParameterFeed {
+
+    private static final Logger log = LoggingManager.getLoggerForClass();
+
+    static final String FORMAT_TEXT = "Text"; // $NON-NLS-1$
+    static final String FORMAT_BINARY = "Binary"; // $NON-NLS-1$
+
+    static final String ORDER_SHARED = "Shared cursor"; // $NON-NLS-1$
+    static final String ORDER_STRIDE = "Per-thread stride"; // $NON-NLS-1$
+
+    private static final byte[] MAGIC = "JMFEED1\n".getBytes(StandardCharsets.US_ASCII); // $NON-NLS-1$
+    private static final String BINARY_SUFFIX = ".feed"; // $NON-NLS-1$
+
+    /**
+     * Feeds of the current test by thread group, file, format and parameter types
+     */
+    private static final Map<String, ParameterFeed> feeds = new ConcurrentHashMap<String, ParameterFeed>();
+
+    private final String key;
+    private final ByteBuffer buffer;
+    private final boolean binary;
+    private final int[] types;
+    /**
+     * Offset of each record of a binary feed, start and end of each line of a text feed
+     */
+    private final int[] offsets;
+    private final int records;
+    private final AtomicLong sharedCursor = new AtomicLong();
+
+    private ParameterFeed(String key, ByteBuffer buffer, boolean binary, int[] types, int[] offsets, int records) {
+        this.key = key;
+        this.buffer = buffer;
+        this.binary = binary;
+        this.types = types;
+        this.offsets = offsets;
+        this.records = records;
+    }
+
+    /**
+     * Gets the feed of a file for a thread group, mapping and indexing it on first use in the test.
+     *
+     * @param group  name of the thread group of the calling thread
+     * @param file   path of the parameter file
+     * @param format {@link #FORMAT_TEXT} or {@link #FORMAT_BINARY}
+     * @param plan   binding plan of the parameter types
+     * @return the feed shared by the threads of the group
+     * @throws IOException when the file cannot be read, converted or does not match the types
+     */
+    static ParameterFeed open(String group, String file, String format, ParameterBindingPlan plan) throws IOException {
+        boolean binary = FORMAT_BINARY.equals(format);
+        int[] types = new int[plan.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = plan.getBinder(i).getSqlType();
+        }
+        String key = group + '\u0000' + file + '\u0000' + binary + '\u0000' + Arrays.toString(types);
+        ParameterFeed feed = feeds.get(key);
+        if (feed == null) {
+            synchronized (feeds) {
+                feed = feeds.get(key);
+                if (feed == null) {
+                    feed = binary ? openBinary(key, Paths.get(file), types) : openText(key, Paths.get(file));
+                    feeds.put(key, feed);
+                    log.info("Mapped " + feed.getRecords() + " parameter records of " + file + (binary ? " (binary)" : ""));
+                }
+            }
+        }
+        return feed;
+    }
+
+    /**
+     * Forgets the feeds of the test, the next test maps the files again and starts from their first record.
+     */
+    static void closeAll() {
+        feeds.clear();
+    }
+
+    private static MappedByteBuffer map(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Parameter file larger than 2 GB: " + path);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static ParameterFeed openText(String key, Path path) throws IOException {
+        MappedByteBuffer buffer = map(path);
+        // Start and end of each non blank line, lines being no longer contiguous once blank ones are skipped
+        int[] bounds = new int[2048];
+        int records = 0;
+        int limit = buffer.limit();
+        int start = 0;
+        while (start < limit) {
+            int end = start;
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            if (!isBlank(buffer, start, end)) {
+                if (2 * records + 2 > bounds.length) {
+                    bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                }
+                bounds[2 * records] = start;
+                bounds[2 * records + 1] = buffer.get(end - 1) == '\r' ? end - 1 : end;
+                records++;
+            }
+            start = end + 1;
+        }
+        if (records == 0) {
+            throw new IOException("Parameter file has no records: " + path);
+        }
+        return new ParameterFeed(key, buffer, false, null, Arrays.copyOf(bounds, 2 * records), records);
+    }
+
+    private static boolean isBlank(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ParameterFeed openBinary(String key, Path path, int[] types) throws IOException {
+        Path binaryPath = path;
+        if (!hasMagic(path)) {
+            binaryPath = Paths.get(path.toString() + BINARY_SUFFIX);
+            if (!Files.exists(binaryPath)
+                    || Files.getLastModifiedTime(binaryPath).compareTo(Files.getLastModifiedTime(path)) < 0
+                    || !Arrays.equals(readTypes(binaryPath), types)) {
+                encode(path, binaryPath, types);
+            }
+        }
+        MappedByteBuffer buffer = map(binaryPath);
+        int[] fileTypes = readTypes(buffer);
+        if (!Arrays.equals(fileTypes, types)) {
+            throw new IOException("Parameter file " + binaryPath + " was encoded for types " + Arrays.toString(fileTypes)
+                    + ", not " + Arrays.toString(types));
+        }
+        int position = MAGIC.length + 4 + 4 * types.length;
+        int records = (int) buffer.getLong(position);
+        position += 8;
+        if (records == 0) {
+            throw new IOException("Parameter file has no records: " + binaryPath);
+        }
+        int[] offsets = new int[records];
+        for (int r = 0; r < records; r++) {
+            offsets[r] = position;
+            for (int type : types) {
+                position = skipValue(buffer, position, type);
+            }
+        }
+        return new ParameterFeed(key, buffer, true, types, offsets, records);
+    }
+
+    private static boolean hasMagic(Path path) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(MAGIC.length);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            while (head.hasRemaining() && channel.read(head) >= 0) {
+                // read the whole header
+            }
+        } finally {
+            channel.close();
+        }
+        return Arrays.equals(head.array(), MAGIC);
+    }
+
+    /**
+     * Reads the parameter types from the header of a binary file without mapping it, as the file may be
+     * replaced right after.
+     */
+    private static int[] readTypes(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer head = ByteBuffer.allocate(MAGIC.length + 4);
+            if (!readFully(channel, head)) {
+                return null;
+            }
+            int count = head.getInt(MAGIC.length);
+            if (count < 0 || count > (channel.size() - head.capacity()) / 4) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(head.capacity() + 4 * count);
+            header.put((ByteBuffer) head.flip());
+            return readFully(channel, header) ? readTypes((ByteBuffer) header.flip()) : null;
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] readTypes(ByteBuffer buffer) throws IOException {
+        byte[] head = new byte[MAGIC.length];
+        if (buffer.limit() < MAGIC.length + 4) {
+            return null;
+        }
+        buffer.duplicate().get(head);
+        if (!Arrays.equals(head, MAGIC)) {
+            return null;
+        }
+        int[] types = new int[buffer.getInt(MAGIC.length)];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = buffer.getInt(MAGIC.length + 4 + 4 * i);
+        }
+        return types;
+    }
+
+    /**
+     * Converts a text parameter file to the binary format.
+     */
+    private static void encode(Path text, Path binary, int[] types) throws IOException {
+        log.info("Encoding parameter file " + text + " to " + binary);
+        ParameterFeed source = openText(null, text);
+        Path tmp = Files.createTempFile(binary.toAbsolutePath().getParent(), "jmfeed-", ".tmp"); // $NON-NLS-1$ $NON-NLS-2$
+        try {
+            OutputStream os = Files.newOutputStream(tmp);
+            try {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16));
+                out.write(MAGIC);
+                out.writeInt(types.length);
+                for (int type : types) {
+                    out.writeInt(type);
+                }
+                out.writeLong(source.getRecords());
+                Cursor cursor = source.newCursor(ORDER_SHARED, 0, 1);
+                for (int r = 0; r < source.getRecords(); r++) {
+                    String[] values = ParameterBindingPlan.splitValues(cursor.readLine(r));
+                    if (values.length != types.length) {
+                        throw new IOException("Line " + (r + 1) + " of " + text + " has " + values.length
+                                + " values, expected " + types.length);
+                    }
+                    for (int i = 0; i < types.length; i++) {
+                        try {
+                            writeValue(out, types[i], values[i]);
+                        } catch (IllegalArgumentException e) {
+                            throw new IOException("Invalid value of parameter " + (i + 1) + " on line " + (r + 1)
+                                    + " of " + text + ": " + values[i]);
+                        }
+                    }
+                }
+                out.flush();
+            } finally {
+                os.close();
+            }
+            Files.move(tmp, binary, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, int type, String value) throws IOException {
+        if (value.equals(ParameterBindingPlan.NULL_MARKER)) {
+            out.writeByte(0);
+            return;
+        }
+        out.writeByte(1);
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                out.writeInt(Integer.parseInt(value));
+                break;
+            case Types.BIGINT:
+                out.writeLong(Long.parseLong(value));
+                break;
+            case Types.REAL:
+                out.writeFloat(Float.parseFloat(value));
+                break;
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                out.writeDouble(Double.parseDouble(value));
+                break;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                out.writeByte(ParameterBindingPlan.ParameterBinder.parseBoolean(value) ? 1 : 0);
+                break;
+            case Types.DATE:
+                out.writeLong(java.sql.Date.valueOf(value).getTime());
+                break;
+            case Types.TIME:
+                out.writeLong(java.sql.Time.valueOf(value).getTime());
+                break;
+            case Types.TIMESTAMP:
+                java.sql.Timestamp ts = java.sql.Timestamp.valueOf(value);
+                out.writeLong(ts.getTime());
+                out.writeInt(ts.getNanos());
+                break;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                BigDecimal decimal = new BigDecimal(value);
+                byte[] unscaled = decimal.unscaledValue().toByteArray();
+                out.writeInt(decimal.scale());
+                out.writeInt(unscaled.length);
+                out.write(unscaled);
+                break;
+            default:
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+        }
+    }
+
+    private static int skipValue(ByteBuffer buffer, int position, int type) {
+        if (buffer.get(position++) == 0) {
+            return position;
+        }
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.REAL:
+                return position + 4;
+            case Types.BIGINT:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.DATE:
+            case Types.TIME:
+                return position + 8;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return position + 1;
+            case Types.TIMESTAMP:
+                return position + 12;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return position + 8 + buffer.getInt(position + 4);
+            default:
+                return position + 4 + buffer.getInt(position);
+        }
+    }
+
+    /**
+     * @return number of records of the file
+     */
+    int getRecords() {
+        return records;
+    }
+
+    /**
+     * @return key identifying the file, format and parameter types of the feed
+     */
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * @param order       {@link #ORDER_SHARED} or {@link #ORDER_STRIDE}
+     * @param threadIndex 0-based index of the thread among the threads reading the feed
+     * @param threads     number of threads reading the feed
+     * @return a cursor for one thread
+     */
+    Cursor newCursor(String order, int threadIndex, int threads) {
+        return new Cursor(ORDER_STRIDE.equals(order), threadIndex, Math.max(1, threads));
+    }
+
+    /**
+     * Reads the feed for one thread through its own view of the mapped file.
+     */
+    final class Cursor {
+
+        private final ByteBuffer view = buffer.duplicate();
+        private final boolean stride;
+        private final int threads;
+        private long next;
+        private byte[] scratch = new byte[256];
+
+        private Cursor(boolean stride, int threadIndex, int threads) {
+            this.stride = stride;
+            this.threads = threads;
+            this.next = threadIndex;
+        }
+
+        ParameterFeed getFeed() {
+            return ParameterFeed.this;
+        }
+
+        /**
+         * Binds the values of the next record to a statement and registers its output parameters.
+         *
+         * @param pstmt statement to bind to
+         * @param plan  binding plan of the parameter types
+         * @return JDBC type of each output parameter, {@link Types#NULL} for input only parameters
+         * @throws SQLException  when the values do not match the plan or cannot be bound
+         * @throws IOException when a text record cannot be split
+         */
+        int[] bindNext(PreparedStatement pstmt, ParameterBindingPlan plan) throws SQLException, IOException {
+            int record;
+            if (stride) {
+                record = (int) (next % records);
+                next += threads;
+            } else {
+                record = (int) (sharedCursor.getAndIncrement() % records);
+            }
+            if (!binary) {
+                return plan.bind(pstmt, ParameterBindingPlan.splitValues(readLine(record)));
+            }
+            int[] outputs = new int[plan.size()];
+            int position = offsets[record];
+            for (int i = 0; i < plan.size(); i++) {
+                ParameterBindingPlan.ParameterBinder binder = plan.getBinder(i);
+                if (binder.isInput()) {
+                    bindValue(pstmt, i + 1, binder.getSqlType(), position);
+                }
+                position = skipValue(buffer, position, types[i]);
+                if (binder.isOutput()) {
+                    ((CallableStatement) pstmt).registerOutParameter(i + 1, binder.getSqlType());
+                    outputs[i] = binder.getSqlType();
+                } else {
+                    outputs[i] = Types.NULL;
+                }
+            }
+            return outputs;
+        }
+
+        private void bindValue(PreparedStatement pstmt, int index, int type, int position) throws SQLException {
+            if (buffer.get(position++) == 0) {
+                pstmt.setNull(index, type);
+                return;
+            }
+            switch (type) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                    pstmt.setInt(index, buffer.getInt(position));
+                    break;
+                case Types.BIGINT:
+                    pstmt.setLong(index, buffer.getLong(position));
+                    break;
+                case Types.REAL:
+                    pstmt.setFloat(index, buffer.getFloat(position));
+                    break;
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    pstmt.setDouble(index, buffer.getDouble(position));
+                    break;
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    pstmt.setBoolean(index, buffer.get(position) != 0);
+                    break;
+                case Types.DATE:
+                    pstmt.setDate(index, new java.sql.Date(buffer.getLong(position)));
+                    break;
+                case Types.TIME:
+                    pstmt.setTime(index, new java.sql.Time(buffer.getLong(position)));
+                    break;
+                case Types.TIMESTAMP:
+                    java.sql.Timestamp ts = new java.sql.Timestamp(buffer.getLong(position));
+                    ts.setNanos(buffer.getInt(position + 8));
+                    pstmt.setTimestamp(index, ts);
+                    break;
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                    int scale = buffer.getInt(position);
+                    byte[] unscaled = new byte[buffer.getInt(position + 4)];
+                    view.position(position + 8);
+                    view.get(unscaled);
+                    pstmt.setBigDecimal(index, new BigDecimal(new BigInteger(unscaled), scale));
+                    break;
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                    pstmt.setString(index, readString(position));
+                    break;
+                default:
+                    pstmt.setObject(index, readString(position), type);
+            }
+        }
+
+        private String readString(int position) {
+            int length = buffer.getInt(position);
+            return new String(read(position + 4, length), 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @param record 0-based record index of a text feed
+         * @return the line of the record
+         */
+        String readLine(int record) {
+            int start = offsets[2 * record];
+            int length = offsets[2 * record + 1] - start;
+            return new String(read(start, length), 0, length, StandardCharsets.UTF_8);
+        }
+
+        private byte[] read(int position, int length) {
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            view.position(position);
+            view.get(scratch, 0, length);
+            return scratch;
+        }
+    }
+}
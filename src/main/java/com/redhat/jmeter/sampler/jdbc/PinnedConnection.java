@@ -0,0 +1,193 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import org.apache.jmeter.protocol.jdbc.config.DataSourceElement;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.logging.LoggingManager;
+import org.apache.log.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection a JMeter thread checks out of a pool once and keeps for its lifetime, instead of a checkout
+ * and return per sample. There is one per thread and pool variable, shared by all the samplers of the thread
+ * that use the pool, so the pool must allow as many connections as there are threads using it.
+ * <p>
+ * Before a sample, a connection left unused for more than {@code jdbcsampler.pinned.validationinterval}
+ * milliseconds (default 5000, 0 to check before every sample) is checked with
+ * {@link Connection#isValid(int)}, waiting at most {@code jdbcsampler.pinned.validationtimeout} seconds
+ * (default 5). A connection that fails the check, is closed, or raised a connection exception is given back
+ * to the pool and replaced by a new one on the next sample. Pinned connections are given back when their
+ * thread finishes, and those still open when the test ends are given back then.
+ */
+final class PinnedConnection {
+
+    private static final Logger log = LoggingManager.getLoggerForClass();
+
+    private static final long VALIDATION_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            JMeterUtils.getPropDefault("jdbcsampler.pinned.validationinterval", 5000L)); // $NON-NLS-1$
+    private static final int VALIDATION_TIMEOUT =
+            JMeterUtils.getPropDefault("jdbcsampler.pinned.validationtimeout", 5); // $NON-NLS-1$
+
+    /**
+     * Pinned connections currently checked out, given back at the end of the test
+     */
+    private static final Set<PinnedConnection> OPEN =
+            Collections.newSetFromMap(new ConcurrentHashMap<PinnedConnection, Boolean>());
+
+    /**
+     * Pinned connections of the current thread by pool variable name
+     */
+    private static final ThreadLocal<Map<String, PinnedConnection>> THREAD_CONNECTIONS =
+            new ThreadLocal<Map<String, PinnedConnection>>() {
+                @Override
+                protected Map<String, PinnedConnection> initialValue() {
+                    return new HashMap<String, PinnedConnection>();
+                }
+            };
+
+    private final String dataSource;
+    private Connection connection;
+    private long lastUsed;
+    private boolean broken;
+    private int reconnects;
+
+    private PinnedConnection(String dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * @param dataSource pool variable name
+     * @return the pinned connection of the current thread for the pool, created if there is none yet
+     */
+    static PinnedConnection forThread(String dataSource) {
+        Map<String, PinnedConnection> connections = THREAD_CONNECTIONS.get();
+        PinnedConnection pinned = connections.get(dataSource);
+        if (pinned == null) {
+            pinned = new PinnedConnection(dataSource);
+            connections.put(dataSource, pinned);
+        }
+        return pinned;
+    }
+
+    /**
+     * @param dataSource pool variable name
+     * @return the pinned connection of the current thread for the pool, or {@code null} if there is none
+     */
+    static PinnedConnection ofThread(String dataSource) {
+        return THREAD_CONNECTIONS.get().get(dataSource);
+    }
+
+    /**
+     * Gives back the pinned connections of the current thread, when it finishes.
+     *
+     * @param statementCache cache whose statements of the connections are dropped
+     */
+    static void closeThread(PreparedStatementCache statementCache) {
+        for (PinnedConnection pinned : THREAD_CONNECTIONS.get().values()) {
+            pinned.close(statementCache);
+        }
+        THREAD_CONNECTIONS.remove();
+    }
+
+    /**
+     * Gets the pinned connection, checking it out of the pool first if there is none or the current one
+     * is no longer usable.
+     *
+     * @param statementCache cache whose statements of a replaced connection are dropped
+     * @return the connection
+     * @throws SQLException when no connection can be checked out
+     */
+    synchronized Connection get(PreparedStatementCache statementCache) throws SQLException {
+        if (connection != null && (broken || !isHealthy())) {
+            reconnects++;
+            log.info("Replacing pinned connection " + connection + " of " + dataSource + " (" + reconnects + " so far)");
+            close(statementCache);
+        }
+        if (connection == null) {
+            connection = DataSourceElement.getConnection(dataSource);
+            lastUsed = System.nanoTime();
+            OPEN.add(this);
+        }
+        return connection;
+    }
+
+    private boolean isHealthy() {
+        try {
+            if (System.nanoTime() - lastUsed < VALIDATION_INTERVAL_NANOS) {
+                return !connection.isClosed();
+            }
+            try {
+                return connection.isValid(VALIDATION_TIMEOUT);
+            } catch (AbstractMethodError e) {
+                // JDBC 3 driver without isValid
+                return !connection.isClosed();
+            }
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param conn a connection
+     * @return true if it is the pinned connection
+     */
+    synchronized boolean holds(Connection conn) {
+        return conn != null && conn == connection;
+    }
+
+    /**
+     * Records that the pinned connection is no longer usable, it is replaced before the next sample.
+     */
+    synchronized void markBroken() {
+        broken = connection != null;
+    }
+
+    /**
+     * Records the end of a sample on the pinned connection, which stays checked out.
+     */
+    synchronized void released() {
+        lastUsed = System.nanoTime();
+        try {
+            broken = broken || (connection != null && connection.isClosed());
+        } catch (SQLException e) {
+            broken = true;
+        }
+    }
+
+    /**
+     * Drops the cached statements of the connection and gives it back to the pool.
+     *
+     * @param statementCache cache whose statements of the connection are dropped
+     */
+    synchronized void close(PreparedStatementCache statementCache) {
+        OPEN.remove(this);
+        if (connection != null) {
+            statementCache.invalidate(connection);
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.warn("Error closing pinned connection of " + dataSource, e);
+            }
+            connection = null;
+        }
+        broken = false;
+    }
+
+    /**
+     * Gives back all pinned connections still checked out, at the end of the test.
+     *
+     * @param statementCache cache whose statements of the connections are dropped
+     */
+    static void closeAll(PreparedStatementCache statementCache) {
+        for (PinnedConnection pinned : OPEN) {
+            pinned.close(statementCache);
+        }
+    }
+}
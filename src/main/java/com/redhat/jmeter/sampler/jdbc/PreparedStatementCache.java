@@ -0,0 +1,343 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import org.apache.jmeter.protocol.jdbc.AbstractJDBCTestElement;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.logging.LoggingManager;
+import org.apache.log.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of PreparedStatements stored on a per-connection basis.
+ * <p>
+ * Connections are compared by identity. A cached statement references its connection, so a connection
+ * stays registered until it is evicted explicitly: with {@link #invalidate(Connection)} when it is found
+ * broken, given back to the pool closed, or closed as a pinned connection, and by a sweep of the closed
+ * connections whenever a new connection is registered and every {@code jdbcsampler.statementcache.sweepinterval}
+ * milliseconds (default 30000, 0 to sweep only on registration). A connection its pool closes therefore
+ * does not keep its statements on the heap.
+ * <p>
+ * At one time a Connection is only held by one thread, so the statements of a connection are kept in a
+ * plain LRU map that is read and written without locking by the thread holding the connection. No other
+ * thread touches that map: the sweep only unregisters the statements of a closed connection, which the
+ * driver closed with the connection, and the holder of the connection, if any, closes them on its next
+ * lookup.
+ */
+public class PreparedStatementCache {
+
+    private static final Logger log = LoggingManager.getLoggerForClass();
+
+    private static final long SWEEP_INTERVAL =
+            JMeterUtils.getPropDefault("jdbcsampler.statementcache.sweepinterval", 30000L); // $NON-NLS-1$
+
+    private static ScheduledExecutorService sweeper;
+
+    private final int maxStatements;
+    private final Map<ConnectionKey, ConnectionStatements> connections =
+            new ConcurrentHashMap<ConnectionKey, ConnectionStatements>();
+    private ScheduledFuture<?> sweep;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong prepareNanos = new AtomicLong();
+
+    /**
+     * @param maxStatements maximum number of statements kept open per connection
+     */
+    public PreparedStatementCache(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    /**
+     * Gets the statements of a connection, registering the connection on first use.
+     *
+     * @param conn connection held by the calling thread
+     * @return statements of the connection
+     */
+    public ConnectionStatements forConnection(Connection conn) {
+        ConnectionKey key = new ConnectionKey(conn);
+        ConnectionStatements statements = connections.get(key);
+        if (statements == null) {
+            expungeClosedConnections();
+            scheduleSweep();
+            statements = new ConnectionStatements(key);
+            // As a connection is held by only one thread, no other thread can register it concurrently
+            connections.put(key, statements);
+        }
+        return statements;
+    }
+
+    /**
+     * Closes and forgets the statements of a connection that is closed or no longer usable.
+     *
+     * @param conn connection to evict, held by the calling thread
+     */
+    public void invalidate(Connection conn) {
+        ConnectionStatements statements = connections.remove(new ConnectionKey(conn));
+        if (statements != null) {
+            statements.evict();
+        }
+    }
+
+    /**
+     * Closes all cached statements, logs the cache statistics and resets them. Called at the end of the
+     * test, once no thread holds a connection any more.
+     */
+    public void closeAll() {
+        synchronized (this) {
+            if (sweep != null) {
+                sweep.cancel(false);
+                sweep = null;
+            }
+        }
+        for (Iterator<ConnectionStatements> it = connections.values().iterator(); it.hasNext(); ) {
+            ConnectionStatements statements = it.next();
+            it.remove();
+            statements.closeAll();
+        }
+        if (hits.get() + misses.get() > 0) {
+            log.info("Prepared statement cache: " + this);
+        }
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+        prepareNanos.set(0);
+    }
+
+    /**
+     * Removes connections closed since the last sweep. The statements of another thread's connection are
+     * never closed here: a closed connection is only unregistered, so its holder, if any, finds its
+     * statements stale with {@link ConnectionStatements#isFor(Connection)} and closes them.
+     */
+    private void expungeClosedConnections() {
+        for (Iterator<ConnectionStatements> it = connections.values().iterator(); it.hasNext(); ) {
+            ConnectionStatements statements = it.next();
+            if (statements.isConnectionClosed()) {
+                it.remove();
+                statements.evicted = true;
+            }
+        }
+    }
+
+    private synchronized void scheduleSweep() {
+        if (sweep != null || SWEEP_INTERVAL <= 0) {
+            return;
+        }
+        sweep = getSweeper().scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                expungeClosedConnections();
+            }
+        }, SWEEP_INTERVAL, SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    private static synchronized ScheduledExecutorService getSweeper() {
+        if (sweeper == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "jdbc-statement-cache-sweep"); // $NON-NLS-1$
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            sweeper = executor;
+        }
+        return sweeper;
+    }
+
+    /**
+     * @return number of lookups that found an open statement
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of lookups that had to prepare a statement
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of statements closed because of the LRU limit or because their connection was evicted
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return time spent preparing statements on cache misses, in nanoseconds
+     */
+    public long getPrepareNanos() {
+        return prepareNanos.get();
+    }
+
+    /**
+     * @return estimated prepare time saved by cache hits, in nanoseconds, based on the average cost of a miss
+     */
+    public long getSavedPrepareNanos() {
+        long missCount = misses.get();
+        return missCount == 0 ? 0 : hits.get() * (prepareNanos.get() / missCount);
+    }
+
+    @Override
+    public String toString() {
+        return "connections=" + connections.size() // $NON-NLS-1$
+                + ", hits=" + hits.get() // $NON-NLS-1$
+                + ", misses=" + misses.get() // $NON-NLS-1$
+                + ", evictions=" + evictions.get() // $NON-NLS-1$
+                + ", prepare time=" + TimeUnit.NANOSECONDS.toMillis(prepareNanos.get()) + "ms" // $NON-NLS-1$ $NON-NLS-2$
+                + ", saved prepare time=" + TimeUnit.NANOSECONDS.toMillis(getSavedPrepareNanos()) + "ms"; // $NON-NLS-1$ $NON-NLS-2$
+    }
+
+    /**
+     * Connection compared by identity.
+     */
+    private static final class ConnectionKey {
+
+        private final Connection conn;
+
+        ConnectionKey(Connection conn) {
+            this.conn = conn;
+        }
+
+        Connection get() {
+            return conn;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(conn);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof ConnectionKey && conn == ((ConnectionKey) obj).conn;
+        }
+    }
+
+    /**
+     * LRU map of the statements of one connection, used only by the thread holding the connection.
+     */
+    public final class ConnectionStatements {
+
+        private final ConnectionKey key;
+        private final LinkedHashMap<String, PreparedStatement> statements;
+        private volatile boolean evicted;
+
+        private ConnectionStatements(ConnectionKey key) {
+            this.key = key;
+            this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() > maxStatements) {
+                        AbstractJDBCTestElement.close(eldest.getValue());
+                        evictions.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        /**
+         * @param conn connection held by the calling thread
+         * @return true if these are the live statements of the connection
+         */
+        public boolean isFor(Connection conn) {
+            return !evicted && key.get() == conn;
+        }
+
+        /**
+         * Closes the statements of a connection the sweep unregistered while the calling thread still held it.
+         *
+         * @param conn connection held by the calling thread
+         */
+        public void closeIfStale(Connection conn) {
+            if (evicted && key.get() == conn && !statements.isEmpty()) {
+                closeAll();
+            }
+        }
+
+        /**
+         * Gets the cached statement for a query or prepares and caches a new one.
+         *
+         * @param sql      statement text
+         * @param callable true to prepare a {@link java.sql.CallableStatement}
+         * @param stats    receives whether the lookup was a hit and the prepare time of a miss
+         * @return an open statement
+         * @throws SQLException when the statement cannot be prepared
+         */
+        public PreparedStatement get(String sql, boolean callable, ExecutionStatistics stats) throws SQLException {
+            return get(sql, callable, CursorOptions.DEFAULT, stats);
+        }
+
+        /**
+         * Gets the cached statement for a query and cursor options or prepares and caches a new one.
+         *
+         * @param sql      statement text
+         * @param callable true to prepare a {@link java.sql.CallableStatement}
+         * @param options  result set type, concurrency and holdability of the statement
+         * @param stats    receives whether the lookup was a hit and the prepare time of a miss
+         * @return an open statement
+         * @throws SQLException when the statement cannot be prepared
+         */
+        public PreparedStatement get(String sql, boolean callable, CursorOptions options, ExecutionStatistics stats)
+                throws SQLException {
+            String cacheKey = options.cacheKey(sql);
+            PreparedStatement pstmt = statements.get(cacheKey);
+            if (pstmt != null) {
+                hits.incrementAndGet();
+                stats.statementCacheHit();
+                return pstmt;
+            }
+            Connection conn = key.get();
+            long start = System.nanoTime();
+            pstmt = options.prepareStatement(conn, sql, callable);
+            long elapsed = System.nanoTime() - start;
+            misses.incrementAndGet();
+            prepareNanos.addAndGet(elapsed);
+            stats.statementCacheMiss(elapsed);
+            statements.put(cacheKey, pstmt);
+            return pstmt;
+        }
+
+        private boolean isConnectionClosed() {
+            try {
+                return key.get().isClosed();
+            } catch (SQLException e) {
+                return true;
+            }
+        }
+
+        private void evict() {
+            evicted = true;
+            evictions.addAndGet(statements.size());
+            closeAll();
+        }
+
+        private void closeAll() {
+            evicted = true;
+            for (PreparedStatement pstmt : statements.values()) {
+                AbstractJDBCTestElement.close(pstmt);
+            }
+            statements.clear();
+        }
+    }
+}
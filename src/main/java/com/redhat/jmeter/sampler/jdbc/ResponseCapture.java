@@ -0,0 +1,157 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Collects the encoded response of one sample. At most {@code limit} bytes are kept in memory,
+ * the remainder is either written to a spill file through a {@link FileChannel} or dropped.
+ * A negative limit keeps everything in memory.
+ * <p>
+ * An instance is used by one thread for one sample and must be closed afterwards.
+ */
+class ResponseCapture {
+
+    private final int limit;
+    private final String encoding;
+    private final Path spillFile;
+
+    private byte[] buffer = new byte[256];
+    private int count;
+    private long totalBytes;
+    private long spilledBytes;
+    private FileChannel spillChannel;
+
+    /**
+     * @param limit     number of bytes to keep in memory, negative for no limit
+     * @param encoding  charset used to encode the appended text
+     * @param spillFile file receiving the bytes over the limit, or {@code null} to drop them
+     */
+    ResponseCapture(int limit, String encoding, Path spillFile) {
+        this.limit = limit;
+        this.encoding = encoding;
+        this.spillFile = spillFile;
+    }
+
+    ResponseCapture append(CharSequence text) throws IOException {
+        if (text.length() > 0) {
+            byte[] bytes = text.toString().getBytes(encoding);
+            write(bytes, 0, bytes.length);
+        }
+        return this;
+    }
+
+    /**
+     * Appends text already encoded with the encoding of the response.
+     *
+     * @param bytes  buffer holding the encoded text, not kept
+     * @param offset offset of the text in the buffer
+     * @param length number of bytes of the text
+     * @return this capture
+     * @throws IOException
+     */
+    ResponseCapture append(byte[] bytes, int offset, int length) throws IOException {
+        if (length > 0) {
+            write(bytes, offset, length);
+        }
+        return this;
+    }
+
+    ResponseCapture append(Object o) throws IOException {
+        return append(String.valueOf(o));
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+        totalBytes += length;
+        int keep = limit < 0 ? length : Math.max(0, Math.min(length, limit - count));
+        if (keep > 0) {
+            ensureCapacity(count + keep);
+            System.arraycopy(bytes, offset, buffer, count, keep);
+            count += keep;
+        }
+        if (keep < length) {
+            spill(bytes, offset + keep, length - keep);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            int newLength = Math.max(buffer.length << 1, capacity);
+            if (limit >= 0) {
+                newLength = Math.min(newLength, limit);
+            }
+            buffer = Arrays.copyOf(buffer, newLength);
+        }
+    }
+
+    private void spill(byte[] bytes, int offset, int length) throws IOException {
+        if (spillFile == null) {
+            return;
+        }
+        if (spillChannel == null) {
+            spillChannel = FileChannel.open(spillFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        ByteBuffer src = ByteBuffer.wrap(bytes, offset, length);
+        while (src.hasRemaining()) {
+            spilledBytes += spillChannel.write(src);
+        }
+    }
+
+    /**
+     * @return copy of the bytes kept in memory
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    /**
+     * @return number of bytes appended, whether kept, spilled or dropped
+     */
+    long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * @return number of bytes kept in memory
+     */
+    int getCapturedBytes() {
+        return count;
+    }
+
+    /**
+     * @return number of bytes written to the spill file
+     */
+    long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * @return true if not all appended bytes are kept in memory
+     */
+    boolean isTruncated() {
+        return totalBytes > count;
+    }
+
+    /**
+     * @return file holding the bytes over the limit, or {@code null} if nothing was spilled
+     */
+    Path getSpillFile() {
+        return spillChannel == null ? null : spillFile;
+    }
+
+    /**
+     * Closes the spill file if one was opened.
+     *
+     * @throws IOException
+     */
+    void close() throws IOException {
+        if (spillChannel != null) {
+            spillChannel.close();
+        }
+    }
+}
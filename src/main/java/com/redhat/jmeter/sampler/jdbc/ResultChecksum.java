@@ -0,0 +1,259 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLXML;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Locale;
+
+/**
+ * 64-bit digest of the typed column values of a result set, computed as the rows are read, so a
+ * result of any size can be verified with constant memory. Each value is hashed from its typed form
+ * rather than its text: integral columns through {@link ResultSet#getLong(int)}, floating point ones
+ * through {@link ResultSet#getDouble(int)}, decimals without their trailing zeros, and timestamps with
+ * their nanoseconds, so the digest does not depend on the Java class the driver picks for a column.
+ * Large objects are read through their streams by a {@link LobReader} and hash like the same bytes or text
+ * in any other column. Values that have no stable form of their own (arrays, structs, refs, or driver
+ * objects without their own {@code toString}) cannot be hashed and fail the sample.
+ * <p>
+ * Row hashes are chained in order, or summed when the order of the rows must not matter, which
+ * makes the unordered digest a hash of the multiset of rows. The digest is rendered as
+ * {@code <mode>:<16 hex digits>:<row count>}.
+ */
+final class ResultChecksum {
+
+    static final String ORDERED = "ordered"; // $NON-NLS-1$
+    static final String UNORDERED = "unordered"; // $NON-NLS-1$
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+
+    private static final long NULL_HASH = 0x6e756c6c6e756c6cL;
+
+    private static final int KIND_INTEGRAL = 1;
+    private static final int KIND_FLOATING = 2;
+    private static final int KIND_DECIMAL = 3;
+    private static final int KIND_OTHER = 4;
+    private static final int KIND_BINARY_LOB = 5;
+    private static final int KIND_CHARACTER_LOB = 6;
+
+    private final boolean ordered;
+    private long digest;
+    private long rows;
+
+    ResultChecksum(boolean ordered) {
+        this.ordered = ordered;
+        this.digest = ordered ? FNV_OFFSET : 0;
+    }
+
+    /**
+     * Finds how each column of a result set is read and hashed.
+     *
+     * @param meta metadata of the result set
+     * @return the kind of each column, 0-based
+     * @throws SQLException
+     */
+    static int[] columnKinds(ResultSetMetaData meta) throws SQLException {
+        int[] kinds = new int[meta.getColumnCount()];
+        for (int i = 0; i < kinds.length; i++) {
+            switch (meta.getColumnType(i + 1)) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    kinds[i] = KIND_INTEGRAL;
+                    break;
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    kinds[i] = KIND_FLOATING;
+                    break;
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    kinds[i] = KIND_DECIMAL;
+                    break;
+                case Types.BLOB:
+                case Types.LONGVARBINARY:
+                    kinds[i] = KIND_BINARY_LOB;
+                    break;
+                case Types.CLOB:
+                case Types.NCLOB:
+                case Types.LONGVARCHAR:
+                case Types.LONGNVARCHAR:
+                    kinds[i] = KIND_CHARACTER_LOB;
+                    break;
+                default:
+                    kinds[i] = KIND_OTHER;
+            }
+        }
+        return kinds;
+    }
+
+    /**
+     * Adds the current row of a result set to the digest.
+     *
+     * @param rs    result set positioned on a row
+     * @param kinds kinds of the columns, from {@link #columnKinds(ResultSetMetaData)}
+     * @param lobs  reader of the large objects
+     * @return approximate number of bytes read
+     * @throws SQLException when a value cannot be read or has no stable form to hash
+     * @throws IOException  when a large object cannot be read
+     */
+    long addRow(ResultSet rs, int[] kinds, LobReader lobs) throws SQLException, IOException {
+        long row = FNV_OFFSET;
+        long size = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            long value;
+            switch (kinds[i]) {
+                case KIND_INTEGRAL:
+                    long l = rs.getLong(i + 1);
+                    value = rs.wasNull() ? NULL_HASH : mix(l);
+                    size += 8;
+                    break;
+                case KIND_FLOATING:
+                    double d = rs.getDouble(i + 1);
+                    value = rs.wasNull() ? NULL_HASH : mix(Double.doubleToLongBits(d == 0.0 ? 0.0 : d));
+                    size += 8;
+                    break;
+                case KIND_DECIMAL:
+                    BigDecimal decimal = rs.getBigDecimal(i + 1);
+                    value = decimal == null ? NULL_HASH : hashDecimal(decimal);
+                    size += decimal == null ? 0 : decimal.unscaledValue().bitLength() / 8 + 1;
+                    break;
+                case KIND_BINARY_LOB:
+                case KIND_CHARACTER_LOB:
+                    int lobKind = kinds[i] == KIND_BINARY_LOB ? LobReader.KIND_BINARY : LobReader.KIND_CHARACTER;
+                    value = lobs.digest(rs, i + 1, lobKind) ? mix(lobs.getHash()) : NULL_HASH;
+                    size += lobs.getLength();
+                    break;
+                default:
+                    Object o = rs.getObject(i + 1);
+                    if (o instanceof Blob) {
+                        value = lobs.digest((Blob) o) ? mix(lobs.getHash()) : NULL_HASH;
+                        size += lobs.getLength();
+                    } else if (o instanceof Clob) {
+                        value = lobs.digest((Clob) o) ? mix(lobs.getHash()) : NULL_HASH;
+                        size += lobs.getLength();
+                    } else {
+                        value = hashObject(o, rs, i + 1);
+                        size += sizeOf(o);
+                    }
+            }
+            row = (row ^ value) * FNV_PRIME;
+        }
+        row = mix(row);
+        if (ordered) {
+            digest = mix(digest * GOLDEN + row);
+        } else {
+            digest += row;
+        }
+        rows++;
+        return size;
+    }
+
+    private static long hashDecimal(BigDecimal decimal) {
+        BigDecimal normalized = decimal.signum() == 0 ? BigDecimal.ZERO : decimal.stripTrailingZeros();
+        if (normalized.scale() <= 0 && normalized.precision() - normalized.scale() < 19) {
+            // Integral values hash like the same value read from an integral column
+            return mix(normalized.longValue());
+        }
+        return mix(hashBytes(FNV_OFFSET, normalized.unscaledValue().toByteArray()) ^ normalized.scale());
+    }
+
+    private static long hashObject(Object o, ResultSet rs, int column) throws SQLException {
+        if (o == null) {
+            return NULL_HASH;
+        } else if (o instanceof CharSequence) {
+            CharSequence s = (CharSequence) o;
+            long h = FNV_OFFSET;
+            for (int i = 0; i < s.length(); i++) {
+                h = (h ^ s.charAt(i)) * FNV_PRIME;
+            }
+            return mix(h);
+        } else if (o instanceof byte[]) {
+            return mix(hashBytes(FNV_OFFSET, (byte[]) o));
+        } else if (o instanceof Timestamp) {
+            Timestamp ts = (Timestamp) o;
+            return mix(Math.floorDiv(ts.getTime(), 1000) * GOLDEN + ts.getNanos());
+        } else if (o instanceof java.util.Date) {
+            return mix(((java.util.Date) o).getTime());
+        } else if (o instanceof Boolean) {
+            return mix(((Boolean) o).booleanValue() ? 1 : 0);
+        } else if (o instanceof Long || o instanceof Integer || o instanceof Short || o instanceof Byte) {
+            return mix(((Number) o).longValue());
+        } else if (o instanceof Double || o instanceof Float) {
+            double d = ((Number) o).doubleValue();
+            return mix(Double.doubleToLongBits(d == 0.0 ? 0.0 : d));
+        } else if (o instanceof BigDecimal) {
+            return hashDecimal((BigDecimal) o);
+        } else if (o instanceof RowId) {
+            return mix(hashBytes(FNV_OFFSET, ((RowId) o).getBytes()));
+        } else if (o instanceof SQLXML) {
+            return hashObject(((SQLXML) o).getString(), rs, column);
+        } else if (!hasValueString(o)) {
+            throw new SQLException("Cannot checksum column " + rs.getMetaData().getColumnLabel(column) // $NON-NLS-1$
+                    + ": " + o.getClass().getName() + " values have no stable form to hash"); // $NON-NLS-1$ $NON-NLS-2$
+        }
+        return hashObject(o.toString(), rs, column);
+    }
+
+    /**
+     * @return false for arrays, structs, refs, result sets and objects rendered by {@link Object#toString()},
+     * whose text is not their value
+     */
+    private static boolean hasValueString(Object o) {
+        if (o instanceof java.sql.Array || o instanceof java.sql.Struct || o instanceof java.sql.Ref
+                || o instanceof ResultSet || o.getClass().isArray()) {
+            return false;
+        }
+        try {
+            return o.getClass().getMethod("toString").getDeclaringClass() != Object.class; // $NON-NLS-1$
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static long hashBytes(long h, byte[] bytes) {
+        for (byte b : bytes) {
+            h = (h ^ (b & 0xff)) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    private static long sizeOf(Object o) {
+        if (o == null) {
+            return 0;
+        } else if (o instanceof CharSequence) {
+            return ((CharSequence) o).length();
+        } else if (o instanceof byte[]) {
+            return ((byte[]) o).length;
+        }
+        return 8;
+    }
+
+    /**
+     * Finalizer of SplitMix64, spreading every input bit over the whole hash.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH, "%s:%016x:%d", ordered ? ORDERED : UNORDERED, digest, rows); // $NON-NLS-1$
+    }
+}
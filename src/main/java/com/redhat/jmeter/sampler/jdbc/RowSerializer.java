@@ -0,0 +1,263 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Formats the rows of the text response. The getter of each column is resolved once per result set from
+ * {@link ResultSetMetaData#getColumnClassName(int)}: columns the driver maps to {@code Integer}, {@code Long},
+ * {@code Short}, {@code Byte}, {@code Float}, {@code Double} or {@code Boolean} are read with the primitive
+ * getter and {@link ResultSet#wasNull()}, {@code String} columns with {@link ResultSet#getString(int)}, and
+ * the others with {@link ResultSet#getObject(int)}. Values are appended to a reusable row buffer, which
+ * formats primitives without boxing or intermediate strings, and each row is encoded into a reusable byte
+ * buffer handed to the {@link ResponseCapture}.
+ * <p>
+ * The text is the one of {@link StringBuilder#append(Object)} on the value {@code getObject} returns, with
+ * {@code byte[]} values decoded with the sampler encoding, so the response bytes do not change.
+ * <p>
+ * An instance belongs to one thread and is reused for every result set it reads.
+ */
+final class RowSerializer {
+
+    private static final int KIND_OBJECT = 0;
+    private static final int KIND_INT = 1;
+    private static final int KIND_LONG = 2;
+    private static final int KIND_SHORT = 3;
+    private static final int KIND_BYTE = 4;
+    private static final int KIND_FLOAT = 5;
+    private static final int KIND_DOUBLE = 6;
+    private static final int KIND_BOOLEAN = 7;
+    private static final int KIND_STRING = 8;
+
+    /**
+     * Buffers grown over this many chars by a large row are dropped after the row
+     */
+    private static final int RETAINED_CAPACITY = 1 << 16;
+
+    private final String encoding;
+    private final CharsetEncoder encoder;
+    private StringBuilder row = new StringBuilder(256);
+    private char[] chars = new char[256];
+    private byte[] bytes = new byte[256];
+    private int[] kinds = new int[0];
+    private boolean wasNull;
+
+    RowSerializer(String encoding) {
+        this.encoding = encoding;
+        // Same replacement of unmappable characters as String.getBytes(String)
+        this.encoder = Charset.forName(encoding).newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Resolves the getter of each column of a result set.
+     *
+     * @param meta metadata of the result set
+     * @throws SQLException
+     */
+    void prepare(ResultSetMetaData meta) throws SQLException {
+        int numColumns = meta.getColumnCount();
+        if (kinds.length != numColumns) {
+            kinds = new int[numColumns];
+        }
+        for (int i = 0; i < numColumns; i++) {
+            kinds[i] = kindOf(meta.getColumnClassName(i + 1));
+        }
+        row.setLength(0);
+    }
+
+    private static int kindOf(String className) {
+        if (Integer.class.getName().equals(className)) {
+            return KIND_INT;
+        } else if (Long.class.getName().equals(className)) {
+            return KIND_LONG;
+        } else if (Short.class.getName().equals(className)) {
+            return KIND_SHORT;
+        } else if (Byte.class.getName().equals(className)) {
+            return KIND_BYTE;
+        } else if (Float.class.getName().equals(className)) {
+            return KIND_FLOAT;
+        } else if (Double.class.getName().equals(className)) {
+            return KIND_DOUBLE;
+        } else if (Boolean.class.getName().equals(className)) {
+            return KIND_BOOLEAN;
+        } else if (String.class.getName().equals(className)) {
+            return KIND_STRING;
+        }
+        return KIND_OBJECT;
+    }
+
+    /**
+     * Reads a column of the current row with its resolved getter and appends its text.
+     *
+     * @param rs     result set positioned on a row
+     * @param column 1-based column index
+     * @return approximate number of bytes read
+     * @throws SQLException
+     * @throws UnsupportedEncodingException
+     */
+    long appendColumn(ResultSet rs, int column) throws SQLException, UnsupportedEncodingException {
+        switch (kinds[column - 1]) {
+            case KIND_INT:
+                int i = rs.getInt(column);
+                if (appendIfNull(rs)) {
+                    return 0;
+                }
+                row.append(i);
+                return 4;
+            case KIND_LONG:
+                long l = rs.getLong(column);
+                if (appendIfNull(rs)) {
+                    return 0;
+                }
+                row.append(l);
+                return 8;
+            case KIND_SHORT:
+                short s = rs.getShort(column);
+                if (appendIfNull(rs)) {
+                    return 0;
+                }
+                row.append(s);
+                return 2;
+            case KIND_BYTE:
+                byte b = rs.getByte(column);
+                if (appendIfNull(rs)) {
+                    return 0;
+                }
+                row.append(b);
+                return 1;
+            case KIND_FLOAT:
+                float f = rs.getFloat(column);
+                if (appendIfNull(rs)) {
+                    return 0;
+                }
+                row.append(f);
+                return 4;
+            case KIND_DOUBLE:
+                double d = rs.getDouble(column);
+                if (appendIfNull(rs)) {
+                    return 0;
+                }
+                row.append(d);
+                return 8;
+            case KIND_BOOLEAN:
+                boolean z = rs.getBoolean(column);
+                if (appendIfNull(rs)) {
+                    return 0;
+                }
+                row.append(z);
+                return 1;
+            case KIND_STRING:
+                String text = rs.getString(column);
+                appendValue(text);
+                return text == null ? 0 : text.length();
+            default:
+                Object o = rs.getObject(column);
+                appendValue(o);
+                return AbstractJDBCAdvancedTestElement.approximateSize(o);
+        }
+    }
+
+    /**
+     * Appends "null" if the primitive just read was NULL.
+     *
+     * @return true if the value was NULL
+     */
+    private boolean appendIfNull(ResultSet rs) throws SQLException {
+        wasNull = rs.wasNull();
+        if (wasNull) {
+            row.append("null"); // $NON-NLS-1$
+        }
+        return wasNull;
+    }
+
+    /**
+     * Appends the text of a value read by the caller.
+     *
+     * @param o value returned by {@link ResultSet#getObject(int)}, or text already decoded
+     * @throws UnsupportedEncodingException
+     */
+    void appendValue(Object o) throws UnsupportedEncodingException {
+        wasNull = o == null;
+        if (o instanceof byte[]) {
+            row.append(new String((byte[]) o, encoding));
+        } else if (o instanceof String) {
+            row.append((String) o);
+        } else {
+            row.append(o);
+        }
+    }
+
+    /**
+     * @return true if the value last appended was NULL
+     */
+    boolean wasNull() {
+        return wasNull;
+    }
+
+    RowSerializer append(String text) {
+        row.append(text);
+        return this;
+    }
+
+    RowSerializer append(char c) {
+        row.append(c);
+        return this;
+    }
+
+    /**
+     * @return number of chars of the current row
+     */
+    int length() {
+        return row.length();
+    }
+
+    /**
+     * @param start offset in the current row
+     * @return the text of the current row from an offset, typically the text of the last column appended
+     */
+    String substring(int start) {
+        return row.substring(start);
+    }
+
+    /**
+     * Encodes the current row into the response and starts a new row.
+     *
+     * @param response response receiving the bytes
+     * @throws IOException
+     */
+    void writeTo(ResponseCapture response) throws IOException {
+        int n = row.length();
+        if (n == 0) {
+            return;
+        }
+        if (chars.length < n) {
+            chars = new char[Math.max(n, chars.length * 2)];
+        }
+        row.getChars(0, n, chars, 0);
+        int maxBytes = (int) Math.ceil(n * (double) encoder.maxBytesPerChar());
+        if (bytes.length < maxBytes) {
+            bytes = new byte[Math.max(maxBytes, bytes.length * 2)];
+        }
+        ByteBuffer out = ByteBuffer.wrap(bytes);
+        encoder.reset();
+        encoder.encode(CharBuffer.wrap(chars, 0, n), out, true);
+        encoder.flush(out);
+        response.append(bytes, 0, out.position());
+        row.setLength(0);
+        if (chars.length > RETAINED_CAPACITY) {
+            row = new StringBuilder(256);
+            chars = new char[256];
+            bytes = new byte[256];
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.logging.LoggingManager;
+import org.apache.log.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of one sampler, shared by all threads running a sampler of that name and registered in the
+ * platform MBean server as {@code com.redhat.jmeter.sampler.jdbc:type=SamplerMetrics,name=<sampler name>}.
+ * Counters are {@link LongAdder}s and durations go to {@link LatencyHistogram}s, so recording never locks.
+ * <p>
+ * Besides what the database returned, the metrics tell where the time of a sample went: in the
+ * connection pool, waiting for the driver (execution, first row and the fetches after it), in the
+ * configured read delay, or in the sampler itself. A growing sampler overhead while the database times
+ * stay flat points at a saturated load generator rather than a saturated database.
+ */
+public final class SamplerMetrics implements SamplerMetricsMBean {
+
+    private static final Logger log = LoggingManager.getLoggerForClass();
+
+    private static final String DOMAIN = "com.redhat.jmeter.sampler.jdbc"; // $NON-NLS-1$
+
+    /** Longest time the percentiles exported to variables are reused before they are computed again. */
+    private static final long PERCENTILE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            JMeterUtils.getPropDefault("jdbcsampler.metrics.percentileinterval", 1000L)); // $NON-NLS-1$
+
+    private static final ConcurrentMap<String, SamplerMetrics> samplers = new ConcurrentHashMap<String, SamplerMetrics>();
+
+    private final String samplerName;
+    private ObjectName objectName;
+
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder resultSets = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LongAdder truncatedResponses = new LongAdder();
+    private final LongAdder fetchRoundTrips = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final LongAdder prepareNanos = new LongAdder();
+    private final LongAdder batchRows = new LongAdder();
+    private final LongAdder readDelayNanos = new LongAdder();
+    private final LongAdder databaseNanos = new LongAdder();
+    private final LongAdder connectNanos = new LongAdder();
+    private final LongAdder sampleNanos = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> resultSetHandlers = new ConcurrentHashMap<String, LongAdder>();
+
+    private final LatencyHistogram sampleTimes = new LatencyHistogram();
+    private final LatencyHistogram connectTimes = new LatencyHistogram();
+    private final LatencyHistogram executeTimes = new LatencyHistogram();
+    private final LatencyHistogram firstRowTimes = new LatencyHistogram();
+    private final LatencyHistogram fetchTimes = new LatencyHistogram();
+
+    private final AtomicLong percentilesComputed = new AtomicLong();
+    private volatile double[] exportedPercentiles;
+
+    private SamplerMetrics(String samplerName) {
+        this.samplerName = samplerName;
+    }
+
+    /**
+     * Gets the metrics of a sampler, creating and registering them on first use.
+     *
+     * @param samplerName name of the sampler
+     * @return the shared metrics
+     */
+    public static SamplerMetrics forSampler(String samplerName) {
+        SamplerMetrics metrics = samplers.get(samplerName);
+        if (metrics == null) {
+            metrics = new SamplerMetrics(samplerName);
+            SamplerMetrics existing = samplers.putIfAbsent(samplerName, metrics);
+            if (existing != null) {
+                return existing;
+            }
+            metrics.register();
+        }
+        return metrics;
+    }
+
+    /**
+     * Unregisters and forgets the metrics of all samplers, so the next test starts from zero.
+     */
+    public static void clear() {
+        for (SamplerMetrics metrics : samplers.values()) {
+            metrics.unregister();
+        }
+        samplers.clear();
+    }
+
+    /**
+     * Logs the metrics of a sampler, if it recorded any sample.
+     *
+     * @param samplerName name of the sampler
+     */
+    public static void logSummary(String samplerName) {
+        SamplerMetrics metrics = samplers.get(samplerName);
+        if (metrics != null && metrics.getSamples() > 0) {
+            log.info("Sampler metrics of " + metrics);
+        }
+    }
+
+    private void register() {
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":type=SamplerMetrics,name=" + ObjectName.quote(samplerName)); // $NON-NLS-1$
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            objectName = name;
+        } catch (Exception e) {
+            log.warn("Could not register the metrics of " + samplerName + ": " + e);
+        }
+    }
+
+    private void unregister() {
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (Exception e) {
+                log.debug("Could not unregister " + objectName, e);
+            }
+        }
+    }
+
+    /**
+     * Records the counters and phase times of one executed statement.
+     *
+     * @param statistics       counters of the statement
+     * @param resultSetHandler result set handler the statement was read with
+     */
+    void statementExecuted(ExecutionStatistics statistics, String resultSetHandler) {
+        statements.increment();
+        resultSets.add(statistics.getResultSets());
+        rows.add(statistics.getRows());
+        bytes.add(statistics.getBytes());
+        responseBytes.add(statistics.getResponseBytes());
+        if (statistics.isTruncated()) {
+            truncatedResponses.increment();
+        }
+        fetchRoundTrips.add(statistics.getFetches());
+        statementCacheHits.add(statistics.getStatementCacheHits());
+        statementCacheMisses.add(statistics.getStatementCacheMisses());
+        prepareNanos.add(statistics.getPrepareNanos());
+        batchRows.add(statistics.getBatchRows());
+        readDelayNanos.add(statistics.getPausedNanos());
+        executeTimes.record(statistics.getExecuteNanos());
+        long database = statistics.getPrepareNanos() + statistics.getExecuteNanos() + statistics.getFetchWaitNanos();
+        if (statistics.getResultSets() > 0) {
+            firstRowTimes.record(statistics.getTimeToFirstRowNanos());
+            fetchTimes.record(statistics.getFetchNanos());
+            database += statistics.getTimeToFirstRowNanos() - statistics.getExecuteNanos();
+        }
+        databaseNanos.add(database);
+        LongAdder handler = resultSetHandlers.get(resultSetHandler);
+        if (handler == null) {
+            resultSetHandlers.putIfAbsent(resultSetHandler, new LongAdder());
+            handler = resultSetHandlers.get(resultSetHandler);
+        }
+        handler.increment();
+    }
+
+    /**
+     * Records a finished sample.
+     *
+     * @param successful   outcome of the sample
+     * @param nanos        elapsed time of the sample, in nanoseconds
+     * @param connectNanos time spent getting connections from the pool, in nanoseconds
+     */
+    public void sampleEnded(boolean successful, long nanos, long connectNanos) {
+        samples.increment();
+        if (!successful) {
+            errors.increment();
+        }
+        sampleNanos.add(nanos);
+        sampleTimes.record(nanos);
+        this.connectNanos.add(connectNanos);
+        connectTimes.record(connectNanos);
+    }
+
+    /**
+     * Stores the metrics in JMeter variables named {@code <prefix>_metrics_<name>}, times in milliseconds.
+     * The percentiles are computed at most once per {@code jdbcsampler.metrics.percentileinterval} ms
+     * (default 1000) and reused by the samples in between.
+     *
+     * @param vars   variables of the sampling thread
+     * @param prefix variable name prefix
+     */
+    public void exportTo(JMeterVariables vars, String prefix) {
+        String p = prefix + "_metrics_"; // $NON-NLS-1$
+        double[] percentiles = getExportedPercentiles();
+        vars.put(p + "samples", Long.toString(getSamples())); // $NON-NLS-1$
+        vars.put(p + "errors", Long.toString(getErrors())); // $NON-NLS-1$
+        vars.put(p + "rows", Long.toString(getRows())); // $NON-NLS-1$
+        vars.put(p + "bytes", Long.toString(getBytes())); // $NON-NLS-1$
+        vars.put(p + "fetch_round_trips", Long.toString(getFetchRoundTrips())); // $NON-NLS-1$
+        vars.put(p + "statement_cache_hit_ratio", format(getStatementCacheHitRatio())); // $NON-NLS-1$
+        vars.put(p + "read_delay_ms", format(getReadDelayMillis())); // $NON-NLS-1$
+        vars.put(p + "sample_p50_ms", format(percentiles[0])); // $NON-NLS-1$
+        vars.put(p + "sample_p99_ms", format(percentiles[1])); // $NON-NLS-1$
+        vars.put(p + "execute_p50_ms", format(percentiles[2])); // $NON-NLS-1$
+        vars.put(p + "execute_p99_ms", format(percentiles[3])); // $NON-NLS-1$
+        vars.put(p + "first_row_p99_ms", format(percentiles[4])); // $NON-NLS-1$
+        vars.put(p + "fetch_p99_ms", format(percentiles[5])); // $NON-NLS-1$
+        vars.put(p + "read_delay_ratio", format(getReadDelayRatio())); // $NON-NLS-1$
+        vars.put(p + "sampler_overhead_ratio", format(getSamplerOverheadRatio())); // $NON-NLS-1$
+    }
+
+    /**
+     * @return sample p50 and p99, execute p50 and p99, first row p99 and fetch p99, in milliseconds
+     */
+    private double[] getExportedPercentiles() {
+        double[] percentiles = exportedPercentiles;
+        long computed = percentilesComputed.get();
+        long now = System.nanoTime();
+        if (percentiles == null
+                || now - computed >= PERCENTILE_INTERVAL_NANOS && percentilesComputed.compareAndSet(computed, now)) {
+            double[] sample = sampleTimes.getPercentilesMillis(50, 99);
+            double[] execute = executeTimes.getPercentilesMillis(50, 99);
+            percentiles = new double[]{sample[0], sample[1], execute[0], execute[1],
+                    firstRowTimes.getPercentileMillis(99), fetchTimes.getPercentileMillis(99)};
+            percentilesComputed.set(now);
+            exportedPercentiles = percentiles;
+        }
+        return percentiles;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ENGLISH, "%.3f", value); // $NON-NLS-1$
+    }
+
+    private static double millis(LongAdder nanos) {
+        return nanos.sum() / 1e6;
+    }
+
+    public String getSamplerName() {
+        return samplerName;
+    }
+
+    public long getSamples() {
+        return samples.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public long getResultSets() {
+        return resultSets.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    public long getTruncatedResponses() {
+        return truncatedResponses.sum();
+    }
+
+    public long getFetchRoundTrips() {
+        return fetchRoundTrips.sum();
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    public double getStatementCacheHitRatio() {
+        long hits = statementCacheHits.sum();
+        long total = hits + statementCacheMisses.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public double getPrepareMillis() {
+        return millis(prepareNanos);
+    }
+
+    public long getBatchRows() {
+        return batchRows.sum();
+    }
+
+    public double getReadDelayMillis() {
+        return millis(readDelayNanos);
+    }
+
+    public String getResultSetHandlers() {
+        Map<String, Long> counts = new TreeMap<String, Long>();
+        for (Map.Entry<String, LongAdder> entry : resultSetHandlers.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counts.toString();
+    }
+
+    public double getSampleMillisMean() {
+        return sampleTimes.getMeanMillis();
+    }
+
+    public double getSampleMillisP50() {
+        return sampleTimes.getPercentileMillis(50);
+    }
+
+    public double getSampleMillisP99() {
+        return sampleTimes.getPercentileMillis(99);
+    }
+
+    public double getSampleMillisMax() {
+        return sampleTimes.getMaxMillis();
+    }
+
+    public double getConnectMillisP50() {
+        return connectTimes.getPercentileMillis(50);
+    }
+
+    public double getConnectMillisP99() {
+        return connectTimes.getPercentileMillis(99);
+    }
+
+    public double getConnectMillisMax() {
+        return connectTimes.getMaxMillis();
+    }
+
+    public double getExecuteMillisP50() {
+        return executeTimes.getPercentileMillis(50);
+    }
+
+    public double getExecuteMillisP99() {
+        return executeTimes.getPercentileMillis(99);
+    }
+
+    public double getExecuteMillisMax() {
+        return executeTimes.getMaxMillis();
+    }
+
+    public double getFirstRowMillisP50() {
+        return firstRowTimes.getPercentileMillis(50);
+    }
+
+    public double getFirstRowMillisP99() {
+        return firstRowTimes.getPercentileMillis(99);
+    }
+
+    public double getFirstRowMillisMax() {
+        return firstRowTimes.getMaxMillis();
+    }
+
+    public double getFetchMillisP50() {
+        return fetchTimes.getPercentileMillis(50);
+    }
+
+    public double getFetchMillisP99() {
+        return fetchTimes.getPercentileMillis(99);
+    }
+
+    public double getFetchMillisMax() {
+        return fetchTimes.getMaxMillis();
+    }
+
+    public double getReadDelayRatio() {
+        long total = sampleNanos.sum();
+        return total == 0 ? 0 : Math.min(1, (double) readDelayNanos.sum() / total);
+    }
+
+    public double getSamplerOverheadRatio() {
+        long total = sampleNanos.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long accounted = connectNanos.sum() + databaseNanos.sum() + readDelayNanos.sum();
+        return Math.max(0, Math.min(1, 1 - (double) accounted / total));
+    }
+
+    public void reset() {
+        LongAdder[] counters = {samples, errors, statements, resultSets, rows, bytes, responseBytes,
+                truncatedResponses, fetchRoundTrips, statementCacheHits, statementCacheMisses, prepareNanos,
+                batchRows, readDelayNanos, databaseNanos, connectNanos, sampleNanos};
+        for (LongAdder counter : counters) {
+            counter.reset();
+        }
+        resultSetHandlers.clear();
+        LatencyHistogram[] histograms = {sampleTimes, connectTimes, executeTimes, firstRowTimes, fetchTimes};
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        exportedPercentiles = null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH, "%s: %d samples, %d errors, %d rows, sample p50/p99/max (ms) %.3f/%.3f/%.3f," // $NON-NLS-1$
+                        + " execute p99 (ms) %.3f, statement cache hit ratio %.3f, sampler overhead %.3f", // $NON-NLS-1$
+                samplerName, getSamples(), getErrors(), getRows(), getSampleMillisP50(), getSampleMillisP99(),
+                getSampleMillisMax(), getExecuteMillisP99(), getStatementCacheHitRatio(), getSamplerOverheadRatio());
+    }
+}
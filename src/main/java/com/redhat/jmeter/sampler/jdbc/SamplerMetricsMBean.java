@@ -0,0 +1,89 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+/**
+ * Management interface of {@link SamplerMetrics}. Times are in milliseconds and cover the whole test so far.
+ */
+public interface SamplerMetricsMBean {
+
+    String getSamplerName();
+
+    long getSamples();
+
+    long getErrors();
+
+    long getStatements();
+
+    long getResultSets();
+
+    long getRows();
+
+    long getBytes();
+
+    long getResponseBytes();
+
+    long getTruncatedResponses();
+
+    long getFetchRoundTrips();
+
+    long getStatementCacheHits();
+
+    long getStatementCacheMisses();
+
+    double getStatementCacheHitRatio();
+
+    double getPrepareMillis();
+
+    long getBatchRows();
+
+    double getReadDelayMillis();
+
+    /**
+     * @return statements executed per result set handler, as {@code handler=count} pairs
+     */
+    String getResultSetHandlers();
+
+    double getSampleMillisMean();
+
+    double getSampleMillisP50();
+
+    double getSampleMillisP99();
+
+    double getSampleMillisMax();
+
+    double getConnectMillisP50();
+
+    double getConnectMillisP99();
+
+    double getConnectMillisMax();
+
+    double getExecuteMillisP50();
+
+    double getExecuteMillisP99();
+
+    double getExecuteMillisMax();
+
+    double getFirstRowMillisP50();
+
+    double getFirstRowMillisP99();
+
+    double getFirstRowMillisMax();
+
+    double getFetchMillisP50();
+
+    double getFetchMillisP99();
+
+    double getFetchMillisMax();
+
+    /**
+     * @return share of the sample time spent in the configured read delay, between 0 and 1
+     */
+    double getReadDelayRatio();
+
+    /**
+     * @return share of the sample time not spent in the connection pool, the database calls or the read
+     * delay, i.e. spent by the sampler itself, between 0 and 1
+     */
+    double getSamplerOverheadRatio();
+
+    void reset();
+}
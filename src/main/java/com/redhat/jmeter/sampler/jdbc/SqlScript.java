@@ -0,0 +1,188 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ordered list of statements run on one connection. A statement ends with a line ending with a
+ * semicolon, or at the end of the text.
+ * <p>
+ * Besides the {@code ?} markers, which take the parameter values of the sampler in order across all
+ * steps, a step can reference a column of the first row returned by an earlier step with
+ * {@code #{COLUMN_LABEL}}. The reference is replaced by a marker and bound with the column value as
+ * returned by the driver, without going through a string. Scripts are parsed once per distinct text
+ * and shared by all threads.
+ */
+public final class SqlScript {
+
+    private static final String STATEMENT_SEPARATOR = ";"; // $NON-NLS-1$
+    private static final String REFERENCE_START = "#{"; // $NON-NLS-1$
+    private static final char REFERENCE_END = '}';
+    private static final char MARKER = '?';
+    private static final char QUOTE = '\'';
+
+    /**
+     * Upper bound of cached scripts, reached only when the script itself comes from variables
+     */
+    private static final int MAX_SCRIPTS = 1000;
+
+    private static final Map<String, SqlScript> scripts = new ConcurrentHashMap<String, SqlScript>();
+
+    private final List<Step> steps;
+    private final int argumentCount;
+
+    private SqlScript(List<Step> steps, int argumentCount) {
+        this.steps = Collections.unmodifiableList(steps);
+        this.argumentCount = argumentCount;
+    }
+
+    /**
+     * Gets the parsed form of a script, parsing and caching it on first use.
+     *
+     * @param text script text
+     * @return the shared script
+     */
+    public static SqlScript forText(String text) {
+        SqlScript script = scripts.get(text);
+        if (script == null) {
+            script = parse(text);
+            if (scripts.size() >= MAX_SCRIPTS) {
+                scripts.clear();
+            }
+            scripts.put(text, script);
+        }
+        return script;
+    }
+
+    private static SqlScript parse(String text) {
+        List<Step> steps = new ArrayList<Step>();
+        int arguments = 0;
+        for (String statement : split(text)) {
+            Step step = Step.parse(statement, arguments);
+            arguments += step.getArgumentCount();
+            steps.add(step);
+        }
+        return new SqlScript(steps, arguments);
+    }
+
+    /**
+     * Splits a script into statements.
+     *
+     * @param text script text
+     * @return the statements, without the separators
+     */
+    public static List<String> split(String text) {
+        List<String> statements = new ArrayList<String>();
+        StringBuilder current = new StringBuilder();
+        for (String line : text.split("\r?\n")) { // $NON-NLS-1$
+            String trimmed = line.trim();
+            if (trimmed.endsWith(STATEMENT_SEPARATOR)) {
+                current.append(trimmed, 0, trimmed.length() - 1);
+                addStatement(statements, current);
+            } else if (trimmed.length() > 0) {
+                current.append(trimmed).append('\n');
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().trim();
+        if (statement.length() > 0) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+
+    /**
+     * @return the steps, in execution order
+     */
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return number of {@code ?} markers of all steps, i.e. the number of parameter values expected
+     */
+    public int getArgumentCount() {
+        return argumentCount;
+    }
+
+    /**
+     * One statement of a script, with its references rewritten to parameter markers.
+     */
+    public static final class Step {
+
+        private final String sql;
+        private final String[] references;
+        private final int firstArgument;
+        private final int argumentCount;
+
+        private Step(String sql, String[] references, int firstArgument, int argumentCount) {
+            this.sql = sql;
+            this.references = references;
+            this.firstArgument = firstArgument;
+            this.argumentCount = argumentCount;
+        }
+
+        static Step parse(String statement, int firstArgument) {
+            StringBuilder sql = new StringBuilder(statement.length());
+            List<String> references = new ArrayList<String>();
+            int arguments = 0;
+            boolean quoted = false;
+            for (int i = 0; i < statement.length(); i++) {
+                char c = statement.charAt(i);
+                if (c == QUOTE) {
+                    quoted = !quoted;
+                } else if (!quoted && c == MARKER) {
+                    references.add(null);
+                    arguments++;
+                } else if (!quoted && statement.startsWith(REFERENCE_START, i)) {
+                    int end = statement.indexOf(REFERENCE_END, i);
+                    if (end > 0) {
+                        references.add(statement.substring(i + REFERENCE_START.length(), end).trim().toUpperCase(Locale.ENGLISH));
+                        sql.append(MARKER);
+                        i = end;
+                        continue;
+                    }
+                }
+                sql.append(c);
+            }
+            return new Step(sql.toString(), references.toArray(new String[references.size()]), firstArgument, arguments);
+        }
+
+        /**
+         * @return statement text with references replaced by {@code ?}
+         */
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * @return for each parameter marker, the upper case label of the referenced column, or
+         * {@code null} for a marker taking the next parameter value of the sampler
+         */
+        public String[] getReferences() {
+            return references;
+        }
+
+        /**
+         * @return 0-based index of the sampler parameter value taken by the first {@code ?} of the step
+         */
+        public int getFirstArgument() {
+            return firstArgument;
+        }
+
+        /**
+         * @return number of {@code ?} markers of the step
+         */
+        public int getArgumentCount() {
+            return argumentCount;
+        }
+    }
+}
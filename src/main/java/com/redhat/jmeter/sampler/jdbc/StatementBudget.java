@@ -0,0 +1,204 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.logging.LoggingManager;
+import org.apache.log.Logger;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits on the work of one sample: rows read, bytes read and wall-clock time from the start of the
+ * execution. The row and byte budgets stop the reading of the results once they are used up and more rows
+ * are left, the sample is then marked {@link #TRUNCATED}. The time budget does not rely on the driver
+ * honouring the query timeout during the fetch: when it runs out a shared scheduler calls
+ * {@link Statement#cancel()}, and the reading stops at the next row for drivers that ignore the cancel. The
+ * sample is then marked {@link #CANCELLED}.
+ * <p>
+ * The scheduler runs {@code jdbcsampler.budget.cancelthreads} (default 1) daemon threads. A cancel is never
+ * sent once {@link #finish()} has returned, so it cannot hit the next statement of the connection.
+ * <p>
+ * An instance is used by one thread for one sample.
+ */
+final class StatementBudget {
+
+    private static final Logger log = LoggingManager.getLoggerForClass();
+
+    static final String TRUNCATED = "TRUNCATED"; // $NON-NLS-1$
+    static final String CANCELLED = "CANCELLED"; // $NON-NLS-1$
+
+    private static final int CANCEL_THREADS = Math.max(1, JMeterUtils.getPropDefault("jdbcsampler.budget.cancelthreads", 1)); // $NON-NLS-1$
+
+    /**
+     * Budget without limits
+     */
+    static final StatementBudget NONE = new StatementBudget(0, 0, 0);
+
+    private static ScheduledThreadPoolExecutor scheduler;
+
+    private final long maxRows;
+    private final long maxBytes;
+    private final long timeMillis;
+
+    private boolean started;
+    private long deadline;
+    private Statement statement;
+    private ScheduledFuture<?> cancellation;
+    private boolean finished;
+    private volatile String stop;
+
+    private StatementBudget(long maxRows, long maxBytes, long timeMillis) {
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+        this.timeMillis = timeMillis;
+    }
+
+    /**
+     * Parses the budgets of a sample. Empty, invalid and non-positive values mean no limit.
+     *
+     * @param rows      maximum number of rows read
+     * @param kilobytes maximum number of KB read
+     * @param millis    maximum time from the start of the execution, in milliseconds
+     * @return the budget, {@link #NONE} without limits
+     */
+    static StatementBudget create(String rows, String kilobytes, String millis) {
+        long maxRows = Math.max(0, NumberUtils.toLong(rows.trim(), 0));
+        long maxBytes = Math.max(0, NumberUtils.toLong(kilobytes.trim(), 0)) * 1024;
+        long timeMillis = Math.max(0, NumberUtils.toLong(millis.trim(), 0));
+        if (maxRows == 0 && maxBytes == 0 && timeMillis == 0) {
+            return NONE;
+        }
+        return new StatementBudget(maxRows, maxBytes, timeMillis);
+    }
+
+    /**
+     * Starts the clock of the time budget, just before the statement is executed.
+     *
+     * @param stmt statement cancelled when the time budget runs out
+     */
+    void start(Statement stmt) {
+        if (timeMillis == 0) {
+            return;
+        }
+        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeMillis);
+        started = true;
+        synchronized (this) {
+            statement = stmt;
+            cancellation = getScheduler().schedule(new Runnable() {
+                public void run() {
+                    cancel();
+                }
+            }, timeMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void cancel() {
+        if (finished) {
+            return;
+        }
+        stop = CANCELLED;
+        try {
+            statement.cancel();
+        } catch (SQLException e) {
+            log.debug("Could not cancel statement after " + timeMillis + " ms", e);
+        } catch (AbstractMethodError e) {
+            log.debug("Driver cannot cancel statements", e);
+        }
+    }
+
+    /**
+     * Checks the budgets after a row has been fetched, before it is read.
+     *
+     * @param rows  rows read so far by the sample
+     * @param bytes bytes read so far by the sample
+     * @return true if the row may be read, false if a budget is used up and the reading must stop
+     */
+    boolean allows(long rows, long bytes) {
+        if (maxRows > 0 && rows >= maxRows || maxBytes > 0 && bytes >= maxBytes) {
+            stopped(TRUNCATED);
+            return false;
+        } else if (started && System.nanoTime() - deadline >= 0) {
+            stopped(CANCELLED);
+            return false;
+        }
+        return true;
+    }
+
+    private synchronized void stopped(String code) {
+        if (stop == null) {
+            stop = code;
+        }
+    }
+
+    /**
+     * Ends the sample: the pending cancel is dropped, or waited for if it is being sent.
+     */
+    void finish() {
+        if (timeMillis == 0) {
+            return;
+        }
+        synchronized (this) {
+            finished = true;
+            statement = null;
+            if (cancellation != null) {
+                cancellation.cancel(false);
+                cancellation = null;
+            }
+        }
+    }
+
+    /**
+     * @return true if the time budget ran out, the statement being cancelled or its reading stopped
+     */
+    boolean isCancelled() {
+        return CANCELLED.equals(stop);
+    }
+
+    /**
+     * @return {@link #TRUNCATED}, {@link #CANCELLED}, or {@code null} if the sample stayed within its budgets
+     */
+    String getStop() {
+        return stop;
+    }
+
+    /**
+     * @return a description of the budget that stopped the sample, or {@code null}
+     */
+    String getStopMessage() {
+        if (CANCELLED.equals(stop)) {
+            return "Time budget of " + timeMillis + " ms used up, statement cancelled"; // $NON-NLS-1$ $NON-NLS-2$
+        } else if (TRUNCATED.equals(stop)) {
+            StringBuilder sb = new StringBuilder("Results truncated at"); // $NON-NLS-1$
+            if (maxRows > 0) {
+                sb.append(' ').append(maxRows).append(" rows"); // $NON-NLS-1$
+            }
+            if (maxBytes > 0) {
+                sb.append(maxRows > 0 ? " or " : " ").append(maxBytes / 1024).append(" KB"); // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$
+            }
+            return sb.toString();
+        }
+        return null;
+    }
+
+    private static synchronized ScheduledThreadPoolExecutor getScheduler() {
+        if (scheduler == null) {
+            final AtomicInteger threads = new AtomicInteger();
+            scheduler = new ScheduledThreadPoolExecutor(CANCEL_THREADS, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "jdbc-budget-cancel-" + threads.incrementAndGet()); // $NON-NLS-1$
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            // Samples ending within their budget drop their cancel, do not keep it queued until it is due
+            scheduler.setRemoveOnCancelPolicy(true);
+        }
+        return scheduler;
+    }
+}
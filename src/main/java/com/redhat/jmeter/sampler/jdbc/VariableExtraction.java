@@ -0,0 +1,102 @@
+package com.redhat.jmeter.sampler.jdbc;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.jmeter.util.JMeterUtils;
+
+import java.util.Random;
+
+/**
+ * Chooses which rows of a result set are stored in the "Variable names" variables, so the number of
+ * variables, and the strings behind them, stays bounded whatever the size of the result:
+ * <ul>
+ * <li>{@link #ALL_ROWS}: every row, as the JDBC sampler always did</li>
+ * <li>{@link #FIRST_ROWS}: the first N rows</li>
+ * <li>{@link #LAST_ROW}: only the last row, in {@code <name>_1}</li>
+ * <li>{@link #EVERY_KTH_ROW}: rows 1, k + 1, 2k + 1, ...</li>
+ * <li>{@link #RESERVOIR}: N rows drawn uniformly from the whole result, with a random generator seeded
+ * with {@code jdbcsampler.variables.seed} (default 42) on each execution, so the same result always
+ * yields the same rows</li>
+ * </ul>
+ * Stored rows are numbered from 1 without gaps and {@code <name>_#} holds their number.
+ */
+final class VariableExtraction {
+
+    static final String ALL_ROWS = "All rows"; // $NON-NLS-1$
+    static final String FIRST_ROWS = "First N rows"; // $NON-NLS-1$
+    static final String LAST_ROW = "Last row"; // $NON-NLS-1$
+    static final String EVERY_KTH_ROW = "Every Kth row"; // $NON-NLS-1$
+    static final String RESERVOIR = "Reservoir sample"; // $NON-NLS-1$
+
+    /**
+     * Index returned for a row whose values must be kept aside until the result set ends
+     */
+    static final int DEFERRED = -1;
+
+    private static final long SEED = JMeterUtils.getPropDefault("jdbcsampler.variables.seed", 42L); // $NON-NLS-1$
+
+    private final String policy;
+    private final int size;
+    private Random random;
+
+    private VariableExtraction(String policy, int size) {
+        this.policy = policy;
+        this.size = size;
+    }
+
+    /**
+     * @param policy one of the policy names, anything else stores all rows
+     * @param size   N or k of the policy, 100 when not a positive number
+     * @return the extraction of one result set
+     */
+    static VariableExtraction create(String policy, String size) {
+        int n = NumberUtils.toInt(size == null ? null : size.trim(), 0);
+        return new VariableExtraction(policy == null ? ALL_ROWS : policy, n > 0 ? n : 100);
+    }
+
+    /**
+     * @param row 1-based number of the row just read
+     * @return 1-based index of the variables receiving the values of the row, 0 if the row is not stored,
+     * or {@link #DEFERRED} if its values must be kept and stored under index 1 if it turns out to be the last
+     */
+    int indexFor(int row) {
+        if (FIRST_ROWS.equals(policy)) {
+            return row <= size ? row : 0;
+        } else if (LAST_ROW.equals(policy)) {
+            return DEFERRED;
+        } else if (EVERY_KTH_ROW.equals(policy)) {
+            return (row - 1) % size == 0 ? (row - 1) / size + 1 : 0;
+        } else if (RESERVOIR.equals(policy)) {
+            if (row <= size) {
+                return row;
+            }
+            if (random == null) {
+                random = new Random(SEED);
+            }
+            int slot = random.nextInt(row);
+            return slot < size ? slot + 1 : 0;
+        }
+        return row;
+    }
+
+    /**
+     * @return true if the values of the rows are kept aside and stored once the result set ends
+     */
+    boolean isDeferred() {
+        return LAST_ROW.equals(policy);
+    }
+
+    /**
+     * @param rows number of rows read
+     * @return number of rows stored, the value of {@code <name>_#}
+     */
+    int getCount(int rows) {
+        if (FIRST_ROWS.equals(policy) || RESERVOIR.equals(policy)) {
+            return Math.min(rows, size);
+        } else if (LAST_ROW.equals(policy)) {
+            return Math.min(rows, 1);
+        } else if (EVERY_KTH_ROW.equals(policy)) {
+            return (rows + size - 1) / size;
+        }
+        return rows;
+    }
+}
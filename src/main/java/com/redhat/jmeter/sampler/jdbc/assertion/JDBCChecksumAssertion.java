@@ -0,0 +1,134 @@
+package com.redhat.jmeter.sampler.jdbc.assertion;
+
+import org.apache.jmeter.assertions.Assertion;
+import org.apache.jmeter.assertions.AssertionResult;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.testbeans.TestBean;
+import org.apache.jmeter.testelement.AbstractTestElement;
+import org.apache.jmeter.testelement.TestStateListener;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the digest returned by a JDBC sampler whose result set handler is one of the checksum modes,
+ * either against an expected value or against the digest of the first sample with the same label in
+ * the test, so every thread must read the same data under concurrency. A callable statement returning
+ * several result sets has one digest per line, all compared.
+ */
+public class JDBCChecksumAssertion extends AbstractTestElement implements Assertion, TestBean, TestStateListener {
+
+    private static final long serialVersionUID = 1L;
+
+    static final String COMPARE_EXPECTED = "Expected checksum"; // $NON-NLS-1$
+    static final String COMPARE_PREVIOUS = "Previous sample"; // $NON-NLS-1$
+
+    private static final Pattern DIGEST = Pattern.compile("(?:un)?ordered:[0-9a-f]{16}:(\\d+)"); // $NON-NLS-1$
+
+    /**
+     * First digest of each sample label in the test, shared by all threads
+     */
+    private static final ConcurrentMap<String, String> baselines = new ConcurrentHashMap<String, String>();
+
+    private String compareWith = COMPARE_EXPECTED;
+    private String expectedChecksum = "";
+
+    public AssertionResult getResult(SampleResult response) {
+        AssertionResult result = new AssertionResult(getName());
+        if (!response.isSuccessful()) {
+            // The sampler already reported why there is no digest
+            return result;
+        }
+        String digest = response.getResponseDataAsString().trim();
+        if (!isDigest(digest)) {
+            return result.setResultForFailure("Response is not a checksum, the result set handler must be a checksum mode: "
+                    + abbreviate(digest));
+        }
+        String expected;
+        if (COMPARE_PREVIOUS.equals(getCompareWith())) {
+            String previous = baselines.putIfAbsent(response.getSampleLabel(), digest);
+            if (previous == null) {
+                return result;
+            }
+            expected = previous;
+        } else {
+            expected = getExpectedChecksum().trim();
+        }
+        if (!expected.equals(digest)) {
+            result.setFailure(true);
+            result.setFailureMessage("Expected checksum " + expected + " but got " + digest + rowDifference(expected, digest));
+        }
+        return result;
+    }
+
+    private static boolean isDigest(String text) {
+        if (text.length() == 0) {
+            return false;
+        }
+        for (String line : text.split("\n")) { // $NON-NLS-1$
+            if (!DIGEST.matcher(line.trim()).matches()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return a hint when the digests differ because rows are missing or extra, empty otherwise
+     */
+    private static String rowDifference(String expected, String actual) {
+        long difference = rows(actual) - rows(expected);
+        if (difference == 0 || rows(expected) < 0) {
+            return ""; // $NON-NLS-1$
+        }
+        return " (" + (difference > 0 ? difference + " more" : -difference + " fewer") + " rows)"; // $NON-NLS-1$
+    }
+
+    private static long rows(String digests) {
+        long rows = 0;
+        for (String line : digests.split("\n")) { // $NON-NLS-1$
+            Matcher m = DIGEST.matcher(line.trim());
+            if (!m.matches()) {
+                return -1;
+            }
+            rows += Long.parseLong(m.group(1));
+        }
+        return rows;
+    }
+
+    private static String abbreviate(String text) {
+        return text.length() > 100 ? text.substring(0, 100) + "..." : text; // $NON-NLS-1$
+    }
+
+    public void testStarted() {
+        baselines.clear();
+    }
+
+    public void testStarted(String host) {
+        testStarted();
+    }
+
+    public void testEnded() {
+    }
+
+    public void testEnded(String host) {
+    }
+
+    public String getCompareWith() {
+        return compareWith;
+    }
+
+    public void setCompareWith(String compareWith) {
+        this.compareWith = compareWith;
+    }
+
+    public String getExpectedChecksum() {
+        return expectedChecksum;
+    }
+
+    public void setExpectedChecksum(String expectedChecksum) {
+        this.expectedChecksum = expectedChecksum;
+    }
+}
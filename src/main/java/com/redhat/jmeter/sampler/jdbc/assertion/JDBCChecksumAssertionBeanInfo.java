@@ -0,0 +1,32 @@
+package com.redhat.jmeter.sampler.jdbc.assertion;
+
+import org.apache.jmeter.testbeans.BeanInfoSupport;
+
+import java.beans.PropertyDescriptor;
+
+/**
+ * Properties of {@link JDBCChecksumAssertion}.
+ */
+public class JDBCChecksumAssertionBeanInfo extends BeanInfoSupport {
+    public JDBCChecksumAssertionBeanInfo() {
+        super(JDBCChecksumAssertion.class);
+        createPropertyGroup("checksum", // $NON-NLS-1$
+                new String[]{
+                        "compareWith", // $NON-NLS-1$
+                        "expectedChecksum" // $NON-NLS-1$
+                });
+
+        PropertyDescriptor p = property("compareWith"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, JDBCChecksumAssertion.COMPARE_EXPECTED);
+        p.setValue(NOT_OTHER, Boolean.TRUE);
+        p.setValue(TAGS, new String[]{
+                JDBCChecksumAssertion.COMPARE_EXPECTED,
+                JDBCChecksumAssertion.COMPARE_PREVIOUS
+        });
+
+        p = property("expectedChecksum"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, ""); // $NON-NLS-1$
+    }
+}
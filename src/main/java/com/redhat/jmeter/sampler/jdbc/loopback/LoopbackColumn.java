@@ -0,0 +1,470 @@
+package com.redhat.jmeter.sampler.jdbc.loopback;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.sql.rowset.serial.SerialBlob;
+import javax.sql.rowset.serial.SerialClob;
+
+/**
+ * Generated column of a loopback result set. Values are a function of the row index, computed when read.
+ */
+final class LoopbackColumn {
+
+    private static final Pattern TYPE = Pattern.compile("\\s*(\\w+)\\s*(?:\\(\\s*(\\d+)\\s*\\))?\\s*"); // $NON-NLS-1$
+    private static final int DEFAULT_WIDTH = 16;
+    private static final int DECIMAL_SCALE = 2;
+
+    /**
+     * 2016-01-01T00:00:00Z, first generated timestamp
+     */
+    private static final long EPOCH = 1451606400000L;
+    private static final long MILLIS_PER_DAY = 86400000L;
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz"; // $NON-NLS-1$
+
+    private final int index;
+    private final String label;
+    private final String typeName;
+    private final int sqlType;
+    private final int width;
+    private final long nullEvery;
+    /**
+     * Text the values of character columns are cut from, the alphabet repeated past the column width
+     */
+    private final String text;
+
+    private LoopbackColumn(int index, String typeName, int sqlType, int width, long nullEvery) {
+        this.index = index;
+        this.label = "C" + index; // $NON-NLS-1$
+        this.typeName = typeName;
+        this.sqlType = sqlType;
+        this.width = width;
+        this.nullEvery = index > 1 ? nullEvery : 0;
+        // Large objects are generated as they are read, without a text the size of the column
+        int textLength = sqlType == Types.VARCHAR || sqlType == Types.CHAR ? width + ALPHABET.length() : 0;
+        StringBuilder sb = new StringBuilder(textLength);
+        while (sb.length() < textLength) {
+            sb.append(ALPHABET);
+        }
+        this.text = sb.toString();
+    }
+
+    /**
+     * @param types     comma separated column types
+     * @param nullEvery period of the NULL rows, 0 for none
+     * @return the columns
+     * @throws SQLException when a type is not supported
+     */
+    static LoopbackColumn[] parse(String types, long nullEvery) throws SQLException {
+        String[] parts = types.split(","); // $NON-NLS-1$
+        LoopbackColumn[] columns = new LoopbackColumn[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            Matcher m = TYPE.matcher(parts[i]);
+            if (!m.matches()) {
+                throw new SQLException("Invalid loopback column type: " + parts[i]);
+            }
+            String typeName = m.group(1).toUpperCase(Locale.ENGLISH);
+            int width = m.group(2) != null ? Integer.parseInt(m.group(2)) : DEFAULT_WIDTH;
+            try {
+                columns[i] = new LoopbackColumn(i + 1, typeName, sqlType(typeName), width, nullEvery);
+            } catch (IllegalArgumentException e) {
+                throw new SQLException(e.getMessage());
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * @param sqlType        JDBC type of an output parameter
+     * @param parameterIndex index of the parameter
+     * @return a column generating the value of the parameter as row 0
+     */
+    static LoopbackColumn forOutParameter(int sqlType, int parameterIndex) {
+        String typeName;
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                typeName = "INTEGER"; // $NON-NLS-1$
+                break;
+            case Types.BIGINT:
+                typeName = "BIGINT"; // $NON-NLS-1$
+                break;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                typeName = "DOUBLE"; // $NON-NLS-1$
+                break;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                typeName = "DECIMAL"; // $NON-NLS-1$
+                break;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                typeName = "BOOLEAN"; // $NON-NLS-1$
+                break;
+            case Types.DATE:
+                typeName = "DATE"; // $NON-NLS-1$
+                break;
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                typeName = "TIMESTAMP"; // $NON-NLS-1$
+                break;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                typeName = "VARBINARY"; // $NON-NLS-1$
+                break;
+            case Types.BLOB:
+                typeName = "BLOB"; // $NON-NLS-1$
+                break;
+            case Types.CLOB:
+                typeName = "CLOB"; // $NON-NLS-1$
+                break;
+            default:
+                typeName = "VARCHAR"; // $NON-NLS-1$
+        }
+        return new LoopbackColumn(parameterIndex, typeName, sqlType(typeName), DEFAULT_WIDTH, 0);
+    }
+
+    private static int sqlType(String typeName) {
+        if ("INTEGER".equals(typeName) || "INT".equals(typeName)) { // $NON-NLS-1$ $NON-NLS-2$
+            return Types.INTEGER;
+        } else if ("BIGINT".equals(typeName)) { // $NON-NLS-1$
+            return Types.BIGINT;
+        } else if ("DOUBLE".equals(typeName)) { // $NON-NLS-1$
+            return Types.DOUBLE;
+        } else if ("DECIMAL".equals(typeName) || "NUMERIC".equals(typeName)) { // $NON-NLS-1$ $NON-NLS-2$
+            return Types.DECIMAL;
+        } else if ("BOOLEAN".equals(typeName)) { // $NON-NLS-1$
+            return Types.BOOLEAN;
+        } else if ("DATE".equals(typeName)) { // $NON-NLS-1$
+            return Types.DATE;
+        } else if ("TIMESTAMP".equals(typeName)) { // $NON-NLS-1$
+            return Types.TIMESTAMP;
+        } else if ("VARCHAR".equals(typeName)) { // $NON-NLS-1$
+            return Types.VARCHAR;
+        } else if ("CHAR".equals(typeName)) { // $NON-NLS-1$
+            return Types.CHAR;
+        } else if ("VARBINARY".equals(typeName)) { // $NON-NLS-1$
+            return Types.VARBINARY;
+        } else if ("BLOB".equals(typeName)) { // $NON-NLS-1$
+            return Types.BLOB;
+        } else if ("CLOB".equals(typeName)) { // $NON-NLS-1$
+            return Types.CLOB;
+        }
+        throw new IllegalArgumentException("Unsupported loopback column type: " + typeName);
+    }
+
+    boolean isNull(long row) {
+        return nullEvery > 0 && (row + 1) % nullEvery == 0;
+    }
+
+    /**
+     * @param row 0-based row index
+     * @return the value, {@code null} on NULL rows
+     * @throws SQLException
+     */
+    Object getObject(long row) throws SQLException {
+        if (isNull(row)) {
+            return null;
+        }
+        switch (sqlType) {
+            case Types.INTEGER:
+                return Integer.valueOf(intValue(row));
+            case Types.BIGINT:
+                return Long.valueOf(longValue(row));
+            case Types.DOUBLE:
+                return Double.valueOf(doubleValue(row));
+            case Types.DECIMAL:
+                return BigDecimal.valueOf(longValue(row), DECIMAL_SCALE);
+            case Types.BOOLEAN:
+                return Boolean.valueOf(((row + index) & 1) == 0);
+            case Types.DATE:
+                return new java.sql.Date(EPOCH + row * MILLIS_PER_DAY);
+            case Types.TIMESTAMP:
+                return new Timestamp(EPOCH + row * 1000L + index);
+            case Types.VARBINARY:
+                return getBytes(row);
+            case Types.BLOB:
+                return new SerialBlob(getBytes(row));
+            case Types.CLOB:
+                return new SerialClob(getString(row).toCharArray());
+            default:
+                return getString(row);
+        }
+    }
+
+    /**
+     * @param row 0-based row index
+     * @return the value as text, {@code null} on NULL rows
+     * @throws SQLException
+     */
+    String getString(long row) throws SQLException {
+        if (isNull(row)) {
+            return null;
+        }
+        switch (sqlType) {
+            case Types.INTEGER:
+                return Integer.toString(intValue(row));
+            case Types.BIGINT:
+                return Long.toString(longValue(row));
+            case Types.VARCHAR:
+            case Types.CHAR:
+                int start = (int) ((row + index) % ALPHABET.length());
+                return text.substring(start, start + width);
+            case Types.CLOB:
+                return new String(getBytes(row), StandardCharsets.US_ASCII);
+            default:
+                return String.valueOf(getObject(row));
+        }
+    }
+
+    /**
+     * @param row 0-based row index
+     * @return the value as a number, 0 on NULL rows
+     * @throws SQLException when the column is not numeric
+     */
+    long getLong(long row) throws SQLException {
+        if (isNull(row)) {
+            return 0;
+        }
+        switch (sqlType) {
+            case Types.INTEGER:
+                return intValue(row);
+            case Types.BIGINT:
+                return longValue(row);
+            case Types.DOUBLE:
+                return (long) doubleValue(row);
+            case Types.DECIMAL:
+                return longValue(row) / 100;
+            case Types.BOOLEAN:
+                return ((row + index) & 1) == 0 ? 1 : 0;
+            default:
+                throw new SQLException("Column " + label + " of type " + typeName + " is not numeric", "22018"); // $NON-NLS-1$
+        }
+    }
+
+    /**
+     * @param row 0-based row index
+     * @return the value as a floating point number, 0 on NULL rows
+     * @throws SQLException when the column is not numeric
+     */
+    double getDouble(long row) throws SQLException {
+        if (isNull(row)) {
+            return 0;
+        }
+        switch (sqlType) {
+            case Types.DOUBLE:
+                return doubleValue(row);
+            case Types.DECIMAL:
+                return longValue(row) / 100.0;
+            default:
+                return getLong(row);
+        }
+    }
+
+    /**
+     * @param row 0-based row index
+     * @return the value as bytes, {@code null} on NULL rows
+     * @throws SQLException
+     */
+    byte[] getBytes(long row) throws SQLException {
+        if (isNull(row)) {
+            return null;
+        }
+        if (sqlType != Types.VARBINARY && sqlType != Types.BLOB && sqlType != Types.CLOB) {
+            return getString(row).getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[width];
+        for (int i = 0; i < width; i++) {
+            bytes[i] = (byte) ALPHABET.charAt((int) ((row + index + i) % ALPHABET.length()));
+        }
+        return bytes;
+    }
+
+    /**
+     * @param row 0-based row index
+     * @return the value as a stream of bytes, generated as it is read for BLOB columns, {@code null} on NULL rows
+     * @throws SQLException
+     */
+    InputStream getBinaryStream(long row) throws SQLException {
+        if (isNull(row)) {
+            return null;
+        } else if (sqlType == Types.BLOB || sqlType == Types.CLOB) {
+            return new PatternStream(row + index, width);
+        }
+        return new ByteArrayInputStream(getBytes(row));
+    }
+
+    /**
+     * @param row 0-based row index
+     * @return the value as a stream of characters, generated as it is read for CLOB columns, {@code null} on NULL rows
+     * @throws SQLException
+     */
+    Reader getCharacterStream(long row) throws SQLException {
+        if (isNull(row)) {
+            return null;
+        } else if (sqlType == Types.BLOB || sqlType == Types.CLOB) {
+            return new PatternReader(row + index, width);
+        }
+        return new StringReader(getString(row));
+    }
+
+    private int intValue(long row) {
+        return (int) (row * 31 + index);
+    }
+
+    private long longValue(long row) {
+        return row * 1000003L + index;
+    }
+
+    private double doubleValue(long row) {
+        return row + index / 8.0;
+    }
+
+    String getLabel() {
+        return label;
+    }
+
+    String getTypeName() {
+        return typeName;
+    }
+
+    int getSqlType() {
+        return sqlType;
+    }
+
+    /**
+     * @return number of characters or bytes of character and binary columns, digits of numeric columns
+     */
+    int getWidth() {
+        switch (sqlType) {
+            case Types.INTEGER:
+                return 10;
+            case Types.BIGINT:
+                return 19;
+            case Types.DOUBLE:
+                return 17;
+            case Types.DECIMAL:
+                return 19;
+            case Types.BOOLEAN:
+                return 1;
+            case Types.DATE:
+                return 10;
+            case Types.TIMESTAMP:
+                return 23;
+            default:
+                return width;
+        }
+    }
+
+    int getScale() {
+        return sqlType == Types.DECIMAL ? DECIMAL_SCALE : 0;
+    }
+
+    boolean isNullable() {
+        return nullEvery > 0;
+    }
+
+    String getClassName() {
+        switch (sqlType) {
+            case Types.INTEGER:
+                return Integer.class.getName();
+            case Types.BIGINT:
+                return Long.class.getName();
+            case Types.DOUBLE:
+                return Double.class.getName();
+            case Types.DECIMAL:
+                return BigDecimal.class.getName();
+            case Types.BOOLEAN:
+                return Boolean.class.getName();
+            case Types.DATE:
+                return java.sql.Date.class.getName();
+            case Types.TIMESTAMP:
+                return Timestamp.class.getName();
+            case Types.VARBINARY:
+                return byte[].class.getName();
+            case Types.BLOB:
+                return Blob.class.getName();
+            case Types.CLOB:
+                return Clob.class.getName();
+            default:
+                return String.class.getName();
+        }
+    }
+
+    /**
+     * Bytes of a large object, the alphabet from a given offset, generated as they are read
+     */
+    private static final class PatternStream extends InputStream {
+
+        private final long offset;
+        private final long length;
+        private long position;
+
+        PatternStream(long offset, long length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int read() {
+            return position < length ? ALPHABET.charAt((int) ((offset + position++) % ALPHABET.length())) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= length) {
+                return -1;
+            }
+            int n = (int) Math.min(len, length - position);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) ALPHABET.charAt((int) ((offset + position++) % ALPHABET.length()));
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Characters of a large object, the alphabet from a given offset, generated as they are read
+     */
+    private static final class PatternReader extends Reader {
+
+        private final long offset;
+        private final long length;
+        private long position;
+
+        PatternReader(long offset, long length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (position >= length) {
+                return -1;
+            }
+            int n = (int) Math.min(len, length - position);
+            for (int i = 0; i < n; i++) {
+                cbuf[off + i] = ALPHABET.charAt((int) ((offset + position++) % ALPHABET.length()));
+            }
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
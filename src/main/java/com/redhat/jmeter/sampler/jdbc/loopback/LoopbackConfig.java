@@ -0,0 +1,129 @@
+package com.redhat.jmeter.sampler.jdbc.loopback;
+
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Options of a loopback connection, read from the driver properties and then from the URL. The URL is
+ * {@code jdbc:loopback:} followed by {@code name=value} pairs separated by semicolons:
+ * <ul>
+ * <li>{@code rows}: rows per result set, default 100</li>
+ * <li>{@code columns}: comma separated column types, default {@code INTEGER,VARCHAR(16),TIMESTAMP}. Supported are
+ * INTEGER, BIGINT, DOUBLE, DECIMAL, BOOLEAN, DATE, TIMESTAMP, and VARCHAR, CHAR, VARBINARY, BLOB and CLOB
+ * with an optional width, 16 by default. BLOB and CLOB values are generated as their streams are read</li>
+ * <li>{@code fetchLatency}: round trip time in milliseconds, fractions allowed, default 0</li>
+ * <li>{@code resultSets}: result sets returned by a query, default 1</li>
+ * <li>{@code updateCount}: rows reported by an update and by each batch entry, default 1</li>
+ * <li>{@code nullEvery}: every that many rows the columns after the first are NULL, default 0 for never</li>
+ * </ul>
+ */
+final class LoopbackConfig {
+
+    static final String URL_PREFIX = "jdbc:loopback:"; // $NON-NLS-1$
+
+    private static final String ROWS = "rows"; // $NON-NLS-1$
+    private static final String COLUMNS = "columns"; // $NON-NLS-1$
+    private static final String FETCH_LATENCY = "fetchLatency"; // $NON-NLS-1$
+    private static final String RESULT_SETS = "resultSets"; // $NON-NLS-1$
+    private static final String UPDATE_COUNT = "updateCount"; // $NON-NLS-1$
+    private static final String NULL_EVERY = "nullEvery"; // $NON-NLS-1$
+
+    private static final String[] OPTIONS = {ROWS, COLUMNS, FETCH_LATENCY, RESULT_SETS, UPDATE_COUNT, NULL_EVERY};
+
+    private long rows = 100;
+    private String columnTypes = "INTEGER,VARCHAR(16),TIMESTAMP"; // $NON-NLS-1$
+    private LoopbackColumn[] columns;
+    private double fetchLatency = 0;
+    private int resultSets = 1;
+    private int updateCount = 1;
+    private long nullEvery = 0;
+
+    private LoopbackConfig() {
+    }
+
+    /**
+     * @param url  connection URL
+     * @param info driver properties, may be {@code null}
+     * @return the options of the connection
+     * @throws SQLException when an option is unknown or its value invalid
+     */
+    static LoopbackConfig parse(String url, Properties info) throws SQLException {
+        LoopbackConfig config = new LoopbackConfig();
+        if (info != null) {
+            for (String option : OPTIONS) {
+                String value = info.getProperty(option);
+                if (value != null) {
+                    config.set(option, value);
+                }
+            }
+        }
+        for (String pair : url.substring(URL_PREFIX.length()).split(";")) { // $NON-NLS-1$
+            if (pair.trim().length() == 0) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            if (equals < 0) {
+                throw new SQLException("Invalid loopback option, expected name=value: " + pair);
+            }
+            config.set(pair.substring(0, equals).trim(), pair.substring(equals + 1).trim());
+        }
+        config.columns = LoopbackColumn.parse(config.columnTypes, config.nullEvery);
+        return config;
+    }
+
+    private void set(String option, String value) throws SQLException {
+        try {
+            if (ROWS.equalsIgnoreCase(option)) {
+                rows = Long.parseLong(value);
+            } else if (COLUMNS.equalsIgnoreCase(option)) {
+                columnTypes = value;
+            } else if (FETCH_LATENCY.equalsIgnoreCase(option)) {
+                fetchLatency = Double.parseDouble(value);
+            } else if (RESULT_SETS.equalsIgnoreCase(option)) {
+                resultSets = Integer.parseInt(value);
+            } else if (UPDATE_COUNT.equalsIgnoreCase(option)) {
+                updateCount = Integer.parseInt(value);
+            } else if (NULL_EVERY.equalsIgnoreCase(option)) {
+                nullEvery = Long.parseLong(value);
+            } else {
+                throw new SQLException("Unknown loopback option: " + option);
+            }
+        } catch (NumberFormatException e) {
+            throw new SQLException("Invalid value of loopback option " + option + ": " + value);
+        }
+    }
+
+    DriverPropertyInfo[] getPropertyInfo() {
+        List<DriverPropertyInfo> properties = new ArrayList<DriverPropertyInfo>();
+        properties.add(new DriverPropertyInfo(ROWS, Long.toString(rows)));
+        properties.add(new DriverPropertyInfo(COLUMNS, columnTypes));
+        properties.add(new DriverPropertyInfo(FETCH_LATENCY, Double.toString(fetchLatency)));
+        properties.add(new DriverPropertyInfo(RESULT_SETS, Integer.toString(resultSets)));
+        properties.add(new DriverPropertyInfo(UPDATE_COUNT, Integer.toString(updateCount)));
+        properties.add(new DriverPropertyInfo(NULL_EVERY, Long.toString(nullEvery)));
+        return properties.toArray(new DriverPropertyInfo[properties.size()]);
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    LoopbackColumn[] getColumns() {
+        return columns;
+    }
+
+    long getRoundTripNanos() {
+        return (long) (fetchLatency * 1000000L);
+    }
+
+    int getResultSets() {
+        return resultSets;
+    }
+
+    int getUpdateCount() {
+        return updateCount;
+    }
+}
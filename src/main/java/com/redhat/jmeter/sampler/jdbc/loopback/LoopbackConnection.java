@@ -0,0 +1,299 @@
+package com.redhat.jmeter.sampler.jdbc.loopback;
+
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+/**
+ * Connection of the loopback driver. Transactions only cost their round trip.
+ */
+final class LoopbackConnection implements Connection {
+
+    private final String url;
+    private final LoopbackConfig config;
+
+    private boolean autoCommit = true;
+    private boolean readOnly;
+    private int transactionIsolation = TRANSACTION_READ_COMMITTED;
+    private int holdability = ResultSet.HOLD_CURSORS_OVER_COMMIT;
+    private String catalog;
+    private String schema;
+    private volatile boolean closed;
+
+    LoopbackConnection(String url, LoopbackConfig config) {
+        this.url = url;
+        this.config = config;
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection is closed", "08003"); // $NON-NLS-1$
+        }
+    }
+
+    private LoopbackStatement statement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+            throws SQLException {
+        checkOpen();
+        return new LoopbackStatement(this, config, sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    public Statement createStatement() throws SQLException {
+        return statement(null, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, holdability);
+    }
+
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        return statement(null, resultSetType, resultSetConcurrency, holdability);
+    }
+
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return statement(null, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return statement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, holdability);
+    }
+
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return statement(sql, resultSetType, resultSetConcurrency, holdability);
+    }
+
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        return statement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        return statement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, holdability);
+    }
+
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return statement(sql, resultSetType, resultSetConcurrency, holdability);
+    }
+
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency,
+                                         int resultSetHoldability) throws SQLException {
+        return statement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    public String nativeSQL(String sql) throws SQLException {
+        checkOpen();
+        return sql;
+    }
+
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        checkOpen();
+        this.autoCommit = autoCommit;
+    }
+
+    public boolean getAutoCommit() throws SQLException {
+        checkOpen();
+        return autoCommit;
+    }
+
+    public void commit() throws SQLException {
+        checkOpen();
+        LoopbackDriver.roundTrip(config.getRoundTripNanos());
+    }
+
+    public void rollback() throws SQLException {
+        checkOpen();
+        LoopbackDriver.roundTrip(config.getRoundTripNanos());
+    }
+
+    public void close() {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public boolean isValid(int timeout) {
+        return !closed;
+    }
+
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        checkOpen();
+        this.readOnly = readOnly;
+    }
+
+    public boolean isReadOnly() throws SQLException {
+        checkOpen();
+        return readOnly;
+    }
+
+    public void setCatalog(String catalog) throws SQLException {
+        checkOpen();
+        this.catalog = catalog;
+    }
+
+    public String getCatalog() throws SQLException {
+        checkOpen();
+        return catalog;
+    }
+
+    public void setSchema(String schema) throws SQLException {
+        checkOpen();
+        this.schema = schema;
+    }
+
+    public String getSchema() throws SQLException {
+        checkOpen();
+        return schema;
+    }
+
+    public void setTransactionIsolation(int level) throws SQLException {
+        checkOpen();
+        transactionIsolation = level;
+    }
+
+    public int getTransactionIsolation() throws SQLException {
+        checkOpen();
+        return transactionIsolation;
+    }
+
+    public void setHoldability(int holdability) throws SQLException {
+        checkOpen();
+        this.holdability = holdability;
+    }
+
+    public int getHoldability() throws SQLException {
+        checkOpen();
+        return holdability;
+    }
+
+    public SQLWarning getWarnings() throws SQLException {
+        checkOpen();
+        return null;
+    }
+
+    public void clearWarnings() throws SQLException {
+        checkOpen();
+    }
+
+    public void setClientInfo(String name, String value) {
+    }
+
+    public void setClientInfo(Properties properties) {
+    }
+
+    public String getClientInfo(String name) throws SQLException {
+        checkOpen();
+        return null;
+    }
+
+    public Properties getClientInfo() throws SQLException {
+        checkOpen();
+        return new Properties();
+    }
+
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+
+    // Operations a load generator does not need
+
+    public void abort(Executor executor) throws SQLException {
+        throw LoopbackDriver.unsupported("abort"); // $NON-NLS-1$
+    }
+
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        throw LoopbackDriver.unsupported("prepareStatement"); // $NON-NLS-1$
+    }
+
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        throw LoopbackDriver.unsupported("prepareStatement"); // $NON-NLS-1$
+    }
+
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        throw LoopbackDriver.unsupported("prepareStatement"); // $NON-NLS-1$
+    }
+
+    public void rollback(Savepoint savepoint) throws SQLException {
+        throw LoopbackDriver.unsupported("rollback"); // $NON-NLS-1$
+    }
+
+    public DatabaseMetaData getMetaData() throws SQLException {
+        throw LoopbackDriver.unsupported("getMetaData"); // $NON-NLS-1$
+    }
+
+    public Map<String, Class<?>> getTypeMap() throws SQLException {
+        throw LoopbackDriver.unsupported("getTypeMap"); // $NON-NLS-1$
+    }
+
+    public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+        throw LoopbackDriver.unsupported("setTypeMap"); // $NON-NLS-1$
+    }
+
+    public Savepoint setSavepoint() throws SQLException {
+        throw LoopbackDriver.unsupported("setSavepoint"); // $NON-NLS-1$
+    }
+
+    public Savepoint setSavepoint(String name) throws SQLException {
+        throw LoopbackDriver.unsupported("setSavepoint"); // $NON-NLS-1$
+    }
+
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        throw LoopbackDriver.unsupported("releaseSavepoint"); // $NON-NLS-1$
+    }
+
+    public Clob createClob() throws SQLException {
+        throw LoopbackDriver.unsupported("createClob"); // $NON-NLS-1$
+    }
+
+    public Blob createBlob() throws SQLException {
+        throw LoopbackDriver.unsupported("createBlob"); // $NON-NLS-1$
+    }
+
+    public NClob createNClob() throws SQLException {
+        throw LoopbackDriver.unsupported("createNClob"); // $NON-NLS-1$
+    }
+
+    public SQLXML createSQLXML() throws SQLException {
+        throw LoopbackDriver.unsupported("createSQLXML"); // $NON-NLS-1$
+    }
+
+    public Array createArrayOf(String name, Object[] elements) throws SQLException {
+        throw LoopbackDriver.unsupported("createArrayOf"); // $NON-NLS-1$
+    }
+
+    public Struct createStruct(String name, Object[] elements) throws SQLException {
+        throw LoopbackDriver.unsupported("createStruct"); // $NON-NLS-1$
+    }
+
+    public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+        throw LoopbackDriver.unsupported("setNetworkTimeout"); // $NON-NLS-1$
+    }
+
+    public int getNetworkTimeout() throws SQLException {
+        throw LoopbackDriver.unsupported("getNetworkTimeout"); // $NON-NLS-1$
+    }
+}
@@ -0,0 +1,86 @@
+package com.redhat.jmeter.sampler.jdbc.loopback;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver answering every statement itself, so the throughput of the sampler can be measured without
+ * a database. Result sets are generated row by row from the URL options and never held in memory; the
+ * same URL always produces the same data. See {@link LoopbackConfig} for the URL format, e.g.
+ * {@code jdbc:loopback:rows=1000;columns=INTEGER,VARCHAR(32),TIMESTAMP;fetchLatency=0.5}.
+ * <p>
+ * Each execute, commit, rollback and each fetch after the first costs one round trip of
+ * {@code fetchLatency} milliseconds, a fetch being {@link java.sql.Statement#setFetchSize(int)} rows.
+ * Statements starting with SELECT, WITH, VALUES or CALL return {@code resultSets} result sets, other
+ * statements return {@code updateCount}. Parameter values are accepted and ignored.
+ */
+public class LoopbackDriver implements Driver {
+
+    static {
+        try {
+            DriverManager.registerDriver(new LoopbackDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        return new LoopbackConnection(url, LoopbackConfig.parse(url, info));
+    }
+
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(LoopbackConfig.URL_PREFIX);
+    }
+
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+        LoopbackConfig config = LoopbackConfig.parse(acceptsURL(url) ? url : LoopbackConfig.URL_PREFIX, info);
+        return config.getPropertyInfo();
+    }
+
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw unsupported("getParentLogger"); // $NON-NLS-1$
+    }
+
+    static SQLFeatureNotSupportedException unsupported(String operation) {
+        return new SQLFeatureNotSupportedException("Loopback driver does not support " + operation);
+    }
+
+    /**
+     * Simulates one round trip to the server.
+     *
+     * @param nanos round trip time, in nanoseconds
+     */
+    static void roundTrip(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + nanos;
+        long remaining = nanos;
+        while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,895 @@
+package com.redhat.jmeter.sampler.jdbc.loopback;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * Read-only result set generating its rows on demand. Only the index of the current row is kept, so
+ * scrolling is free and memory use does not depend on the number of rows. Each fetch after the first
+ * one costs a round trip, the first fetch being part of the execution of the statement.
+ */
+final class LoopbackResultSet implements ResultSet {
+
+    private final LoopbackStatement statement;
+    private final LoopbackColumn[] columns;
+    private final long rows;
+    private final long roundTripNanos;
+    private final int type;
+    private final int concurrency;
+    private final int holdability;
+
+    private int fetchSize;
+    private long row = -1;
+    private boolean wasNull;
+    private boolean closed;
+
+    LoopbackResultSet(LoopbackStatement statement, LoopbackConfig config, long maxRows, int fetchSize,
+                      int type, int concurrency, int holdability) {
+        this.statement = statement;
+        this.columns = config.getColumns();
+        this.rows = maxRows > 0 ? Math.min(maxRows, config.getRows()) : config.getRows();
+        this.roundTripNanos = config.getRoundTripNanos();
+        this.fetchSize = fetchSize;
+        this.type = type;
+        this.concurrency = concurrency;
+        this.holdability = holdability;
+    }
+
+    public boolean next() throws SQLException {
+        checkOpen();
+        if (row + 1 >= rows) {
+            row = rows;
+            return false;
+        }
+        row++;
+        if (row > 0 && row % fetchSize == 0) {
+            LoopbackDriver.roundTrip(roundTripNanos);
+            statement.checkCancelled();
+        }
+        return true;
+    }
+
+    public void close() {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("ResultSet is closed"); // $NON-NLS-1$
+        }
+    }
+
+    private LoopbackColumn column(int columnIndex) throws SQLException {
+        checkOpen();
+        if (columnIndex < 1 || columnIndex > columns.length) {
+            throw new SQLException("Invalid column index: " + columnIndex, "07009"); // $NON-NLS-1$
+        }
+        if (row < 0 || row >= rows) {
+            throw new SQLException("No current row", "24000"); // $NON-NLS-1$
+        }
+        LoopbackColumn column = columns[columnIndex - 1];
+        wasNull = column.isNull(row);
+        return column;
+    }
+
+    public boolean wasNull() {
+        return wasNull;
+    }
+
+    public int findColumn(String columnLabel) throws SQLException {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].getLabel().equalsIgnoreCase(columnLabel)) {
+                return i + 1;
+            }
+        }
+        throw new SQLException("Unknown column: " + columnLabel, "42S22"); // $NON-NLS-1$
+    }
+
+    public ResultSetMetaData getMetaData() throws SQLException {
+        checkOpen();
+        return new LoopbackResultSetMetaData(columns);
+    }
+
+    public Object getObject(int columnIndex) throws SQLException {
+        return column(columnIndex).getObject(row);
+    }
+
+    public String getString(int columnIndex) throws SQLException {
+        return column(columnIndex).getString(row);
+    }
+
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        return column(columnIndex).getLong(row) != 0;
+    }
+
+    public byte getByte(int columnIndex) throws SQLException {
+        return (byte) column(columnIndex).getLong(row);
+    }
+
+    public short getShort(int columnIndex) throws SQLException {
+        return (short) column(columnIndex).getLong(row);
+    }
+
+    public int getInt(int columnIndex) throws SQLException {
+        return (int) column(columnIndex).getLong(row);
+    }
+
+    public long getLong(int columnIndex) throws SQLException {
+        return column(columnIndex).getLong(row);
+    }
+
+    public float getFloat(int columnIndex) throws SQLException {
+        return (float) column(columnIndex).getDouble(row);
+    }
+
+    public double getDouble(int columnIndex) throws SQLException {
+        return column(columnIndex).getDouble(row);
+    }
+
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+        Object o = column(columnIndex).getObject(row);
+        if (o == null || o instanceof BigDecimal) {
+            return (BigDecimal) o;
+        }
+        try {
+            return new BigDecimal(o.toString());
+        } catch (NumberFormatException e) {
+            throw new SQLException("Column " + columnIndex + " is not numeric", "22018"); // $NON-NLS-1$
+        }
+    }
+
+    public byte[] getBytes(int columnIndex) throws SQLException {
+        return column(columnIndex).getBytes(row);
+    }
+
+    public Date getDate(int columnIndex) throws SQLException {
+        java.util.Date date = getDateValue(columnIndex);
+        return date == null || date instanceof Date ? (Date) date : new Date(date.getTime());
+    }
+
+    public Time getTime(int columnIndex) throws SQLException {
+        java.util.Date date = getDateValue(columnIndex);
+        return date == null ? null : new Time(date.getTime());
+    }
+
+    public Timestamp getTimestamp(int columnIndex) throws SQLException {
+        java.util.Date date = getDateValue(columnIndex);
+        return date == null || date instanceof Timestamp ? (Timestamp) date : new Timestamp(date.getTime());
+    }
+
+    private java.util.Date getDateValue(int columnIndex) throws SQLException {
+        Object o = column(columnIndex).getObject(row);
+        if (o == null || o instanceof java.util.Date) {
+            return (java.util.Date) o;
+        }
+        throw new SQLException("Column " + columnIndex + " is not a date", "22007"); // $NON-NLS-1$
+    }
+
+    public Object getObject(String columnLabel) throws SQLException {
+        return getObject(findColumn(columnLabel));
+    }
+
+    public String getString(String columnLabel) throws SQLException {
+        return getString(findColumn(columnLabel));
+    }
+
+    public boolean getBoolean(String columnLabel) throws SQLException {
+        return getBoolean(findColumn(columnLabel));
+    }
+
+    public byte getByte(String columnLabel) throws SQLException {
+        return getByte(findColumn(columnLabel));
+    }
+
+    public short getShort(String columnLabel) throws SQLException {
+        return getShort(findColumn(columnLabel));
+    }
+
+    public int getInt(String columnLabel) throws SQLException {
+        return getInt(findColumn(columnLabel));
+    }
+
+    public long getLong(String columnLabel) throws SQLException {
+        return getLong(findColumn(columnLabel));
+    }
+
+    public float getFloat(String columnLabel) throws SQLException {
+        return getFloat(findColumn(columnLabel));
+    }
+
+    public double getDouble(String columnLabel) throws SQLException {
+        return getDouble(findColumn(columnLabel));
+    }
+
+    public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+        return getBigDecimal(findColumn(columnLabel));
+    }
+
+    public byte[] getBytes(String columnLabel) throws SQLException {
+        return getBytes(findColumn(columnLabel));
+    }
+
+    public Date getDate(String columnLabel) throws SQLException {
+        return getDate(findColumn(columnLabel));
+    }
+
+    public Time getTime(String columnLabel) throws SQLException {
+        return getTime(findColumn(columnLabel));
+    }
+
+    public Timestamp getTimestamp(String columnLabel) throws SQLException {
+        return getTimestamp(findColumn(columnLabel));
+    }
+
+    public boolean isBeforeFirst() throws SQLException {
+        checkOpen();
+        return row < 0 && rows > 0;
+    }
+
+    public boolean isAfterLast() throws SQLException {
+        checkOpen();
+        return row >= rows && rows > 0;
+    }
+
+    public boolean isFirst() throws SQLException {
+        checkOpen();
+        return row == 0 && rows > 0;
+    }
+
+    public boolean isLast() throws SQLException {
+        checkOpen();
+        return row == rows - 1;
+    }
+
+    public void beforeFirst() throws SQLException {
+        checkOpen();
+        row = -1;
+    }
+
+    public void afterLast() throws SQLException {
+        checkOpen();
+        row = rows;
+    }
+
+    public boolean first() throws SQLException {
+        return absolute(1);
+    }
+
+    public boolean last() throws SQLException {
+        return absolute(-1);
+    }
+
+    public int getRow() throws SQLException {
+        checkOpen();
+        return row >= 0 && row < rows ? (int) (row + 1) : 0;
+    }
+
+    public boolean absolute(int position) throws SQLException {
+        checkOpen();
+        long target = position >= 0 ? position - 1 : rows + position;
+        row = Math.max(-1, Math.min(rows, target));
+        return row >= 0 && row < rows;
+    }
+
+    public boolean relative(int offset) throws SQLException {
+        checkOpen();
+        row = Math.max(-1, Math.min(rows, row + offset));
+        return row >= 0 && row < rows;
+    }
+
+    public boolean previous() throws SQLException {
+        return relative(-1);
+    }
+
+    public void setFetchDirection(int direction) throws SQLException {
+        checkOpen();
+    }
+
+    public int getFetchDirection() {
+        return FETCH_FORWARD;
+    }
+
+    public void setFetchSize(int rows) throws SQLException {
+        checkOpen();
+        fetchSize = LoopbackStatement.effectiveFetchSize(rows);
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getHoldability() {
+        return holdability;
+    }
+
+    public Statement getStatement() {
+        return statement;
+    }
+
+    public SQLWarning getWarnings() {
+        return null;
+    }
+
+    public void clearWarnings() {
+    }
+
+    public String getCursorName() throws SQLException {
+        throw LoopbackDriver.unsupported("getCursorName"); // $NON-NLS-1$
+    }
+
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    // Operations a load generator does not need
+
+    public void updateBytes(int columnIndex, byte[] x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBytes"); // $NON-NLS-1$
+    }
+
+    public void updateBytes(String columnLabel, byte[] x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBytes"); // $NON-NLS-1$
+    }
+
+    public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException {
+        throw LoopbackDriver.unsupported("getObject"); // $NON-NLS-1$
+    }
+
+    public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException {
+        throw LoopbackDriver.unsupported("getObject"); // $NON-NLS-1$
+    }
+
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+        throw LoopbackDriver.unsupported("getObject"); // $NON-NLS-1$
+    }
+
+    public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+        throw LoopbackDriver.unsupported("getObject"); // $NON-NLS-1$
+    }
+
+    public Ref getRef(String columnLabel) throws SQLException {
+        throw LoopbackDriver.unsupported("getRef"); // $NON-NLS-1$
+    }
+
+    public Ref getRef(int columnIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getRef"); // $NON-NLS-1$
+    }
+
+    public Array getArray(int columnIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getArray"); // $NON-NLS-1$
+    }
+
+    public Array getArray(String columnLabel) throws SQLException {
+        throw LoopbackDriver.unsupported("getArray"); // $NON-NLS-1$
+    }
+
+    public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("getTimestamp"); // $NON-NLS-1$
+    }
+
+    public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("getTimestamp"); // $NON-NLS-1$
+    }
+
+    @Deprecated
+    public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
+        throw LoopbackDriver.unsupported("getBigDecimal"); // $NON-NLS-1$
+    }
+
+    @Deprecated
+    public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
+        throw LoopbackDriver.unsupported("getBigDecimal"); // $NON-NLS-1$
+    }
+
+    public Time getTime(String columnLabel, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("getTime"); // $NON-NLS-1$
+    }
+
+    public Time getTime(int columnIndex, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("getTime"); // $NON-NLS-1$
+    }
+
+    public void updateTime(int columnIndex, Time x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateTime"); // $NON-NLS-1$
+    }
+
+    public void updateTime(String columnLabel, Time x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateTime"); // $NON-NLS-1$
+    }
+
+    public Date getDate(String columnLabel, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("getDate"); // $NON-NLS-1$
+    }
+
+    public Date getDate(int columnIndex, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("getDate"); // $NON-NLS-1$
+    }
+
+    public URL getURL(int columnIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getURL"); // $NON-NLS-1$
+    }
+
+    public URL getURL(String columnLabel) throws SQLException {
+        throw LoopbackDriver.unsupported("getURL"); // $NON-NLS-1$
+    }
+
+    public Blob getBlob(String columnLabel) throws SQLException {
+        throw LoopbackDriver.unsupported("getBlob"); // $NON-NLS-1$
+    }
+
+    public Blob getBlob(int columnIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getBlob"); // $NON-NLS-1$
+    }
+
+    public Clob getClob(int columnIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getClob"); // $NON-NLS-1$
+    }
+
+    public Clob getClob(String columnLabel) throws SQLException {
+        throw LoopbackDriver.unsupported("getClob"); // $NON-NLS-1$
+    }
+
+    public RowId getRowId(int columnIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getRowId"); // $NON-NLS-1$
+    }
+
+    public RowId getRowId(String columnLabel) throws SQLException {
+        throw LoopbackDriver.unsupported("getRowId"); // $NON-NLS-1$
+    }
+
+    public NClob getNClob(String columnLabel) throws SQLException {
+        throw LoopbackDriver.unsupported("getNClob"); // $NON-NLS-1$
+    }
+
+    public NClob getNClob(int columnIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getNClob"); // $NON-NLS-1$
+    }
+
+    public SQLXML getSQLXML(String columnLabel) throws SQLException {
+        throw LoopbackDriver.unsupported("getSQLXML"); // $NON-NLS-1$
+    }
+
+    public SQLXML getSQLXML(int columnIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getSQLXML"); // $NON-NLS-1$
+    }
+
+    public String getNString(int columnIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getNString"); // $NON-NLS-1$
+    }
+
+    public String getNString(String columnLabel) throws SQLException {
+        throw LoopbackDriver.unsupported("getNString"); // $NON-NLS-1$
+    }
+
+    public Reader getNCharacterStream(String columnLabel) throws SQLException {
+        throw LoopbackDriver.unsupported("getNCharacterStream"); // $NON-NLS-1$
+    }
+
+    public Reader getNCharacterStream(int columnIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getNCharacterStream"); // $NON-NLS-1$
+    }
+
+    public Reader getCharacterStream(String columnLabel) throws SQLException {
+        return getCharacterStream(findColumn(columnLabel));
+    }
+
+    public Reader getCharacterStream(int columnIndex) throws SQLException {
+        return column(columnIndex).getCharacterStream(row);
+    }
+
+    public InputStream getAsciiStream(String columnLabel) throws SQLException {
+        throw LoopbackDriver.unsupported("getAsciiStream"); // $NON-NLS-1$
+    }
+
+    public InputStream getAsciiStream(int columnIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getAsciiStream"); // $NON-NLS-1$
+    }
+
+    public InputStream getBinaryStream(int columnIndex) throws SQLException {
+        return column(columnIndex).getBinaryStream(row);
+    }
+
+    public InputStream getBinaryStream(String columnLabel) throws SQLException {
+        return getBinaryStream(findColumn(columnLabel));
+    }
+
+    @Deprecated
+    public InputStream getUnicodeStream(int columnIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getUnicodeStream"); // $NON-NLS-1$
+    }
+
+    @Deprecated
+    public InputStream getUnicodeStream(String columnLabel) throws SQLException {
+        throw LoopbackDriver.unsupported("getUnicodeStream"); // $NON-NLS-1$
+    }
+
+    public boolean rowUpdated() throws SQLException {
+        throw LoopbackDriver.unsupported("rowUpdated"); // $NON-NLS-1$
+    }
+
+    public boolean rowInserted() throws SQLException {
+        throw LoopbackDriver.unsupported("rowInserted"); // $NON-NLS-1$
+    }
+
+    public boolean rowDeleted() throws SQLException {
+        throw LoopbackDriver.unsupported("rowDeleted"); // $NON-NLS-1$
+    }
+
+    public void updateNull(int columnIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("updateNull"); // $NON-NLS-1$
+    }
+
+    public void updateNull(String columnLabel) throws SQLException {
+        throw LoopbackDriver.unsupported("updateNull"); // $NON-NLS-1$
+    }
+
+    public void updateBoolean(String columnLabel, boolean value) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBoolean"); // $NON-NLS-1$
+    }
+
+    public void updateBoolean(int columnIndex, boolean value) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBoolean"); // $NON-NLS-1$
+    }
+
+    public void updateByte(int columnIndex, byte x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateByte"); // $NON-NLS-1$
+    }
+
+    public void updateByte(String columnLabel, byte x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateByte"); // $NON-NLS-1$
+    }
+
+    public void updateShort(int columnIndex, short x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateShort"); // $NON-NLS-1$
+    }
+
+    public void updateShort(String columnLabel, short x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateShort"); // $NON-NLS-1$
+    }
+
+    public void updateInt(String columnLabel, int x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateInt"); // $NON-NLS-1$
+    }
+
+    public void updateInt(int columnIndex, int x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateInt"); // $NON-NLS-1$
+    }
+
+    public void updateLong(int columnIndex, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateLong"); // $NON-NLS-1$
+    }
+
+    public void updateLong(String columnLabel, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateLong"); // $NON-NLS-1$
+    }
+
+    public void updateFloat(String columnLabel, float x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateFloat"); // $NON-NLS-1$
+    }
+
+    public void updateFloat(int columnIndex, float x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateFloat"); // $NON-NLS-1$
+    }
+
+    public void updateDouble(int columnIndex, double x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateDouble"); // $NON-NLS-1$
+    }
+
+    public void updateDouble(String columnLabel, double x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateDouble"); // $NON-NLS-1$
+    }
+
+    public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBigDecimal"); // $NON-NLS-1$
+    }
+
+    public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBigDecimal"); // $NON-NLS-1$
+    }
+
+    public void updateString(String columnLabel, String x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateString"); // $NON-NLS-1$
+    }
+
+    public void updateString(int columnIndex, String x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateString"); // $NON-NLS-1$
+    }
+
+    public void updateDate(String columnLabel, Date x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateDate"); // $NON-NLS-1$
+    }
+
+    public void updateDate(int columnIndex, Date x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateDate"); // $NON-NLS-1$
+    }
+
+    public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateTimestamp"); // $NON-NLS-1$
+    }
+
+    public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateTimestamp"); // $NON-NLS-1$
+    }
+
+    public void updateAsciiStream(String columnLabel, InputStream x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateAsciiStream"); // $NON-NLS-1$
+    }
+
+    public void updateAsciiStream(String columnLabel, InputStream x, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateAsciiStream"); // $NON-NLS-1$
+    }
+
+    public void updateAsciiStream(int columnIndex, InputStream x, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateAsciiStream"); // $NON-NLS-1$
+    }
+
+    public void updateAsciiStream(int columnIndex, InputStream x, int length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateAsciiStream"); // $NON-NLS-1$
+    }
+
+    public void updateAsciiStream(int columnIndex, InputStream x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateAsciiStream"); // $NON-NLS-1$
+    }
+
+    public void updateAsciiStream(String columnLabel, InputStream x, int length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateAsciiStream"); // $NON-NLS-1$
+    }
+
+    public void updateBinaryStream(String columnLabel, InputStream x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBinaryStream"); // $NON-NLS-1$
+    }
+
+    public void updateBinaryStream(String columnLabel, InputStream x, int length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBinaryStream"); // $NON-NLS-1$
+    }
+
+    public void updateBinaryStream(int columnIndex, InputStream x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBinaryStream"); // $NON-NLS-1$
+    }
+
+    public void updateBinaryStream(String columnLabel, InputStream x, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBinaryStream"); // $NON-NLS-1$
+    }
+
+    public void updateBinaryStream(int columnIndex, InputStream x, int length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBinaryStream"); // $NON-NLS-1$
+    }
+
+    public void updateBinaryStream(int columnIndex, InputStream x, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBinaryStream"); // $NON-NLS-1$
+    }
+
+    public void updateCharacterStream(int columnIndex, Reader reader, int length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void updateCharacterStream(String columnLabel, Reader reader, int length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void updateCharacterStream(String columnLabel, Reader reader) throws SQLException {
+        throw LoopbackDriver.unsupported("updateCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void updateCharacterStream(int columnIndex, Reader reader) throws SQLException {
+        throw LoopbackDriver.unsupported("updateCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void updateCharacterStream(int columnIndex, Reader reader, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void updateCharacterStream(String columnLabel, Reader reader, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException {
+        throw LoopbackDriver.unsupported("updateObject"); // $NON-NLS-1$
+    }
+
+    public void updateObject(int columnIndex, Object x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateObject"); // $NON-NLS-1$
+    }
+
+    public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException {
+        throw LoopbackDriver.unsupported("updateObject"); // $NON-NLS-1$
+    }
+
+    public void updateObject(String columnLabel, Object x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateObject"); // $NON-NLS-1$
+    }
+
+    public void insertRow() throws SQLException {
+        throw LoopbackDriver.unsupported("insertRow"); // $NON-NLS-1$
+    }
+
+    public void updateRow() throws SQLException {
+        throw LoopbackDriver.unsupported("updateRow"); // $NON-NLS-1$
+    }
+
+    public void deleteRow() throws SQLException {
+        throw LoopbackDriver.unsupported("deleteRow"); // $NON-NLS-1$
+    }
+
+    public void refreshRow() throws SQLException {
+        throw LoopbackDriver.unsupported("refreshRow"); // $NON-NLS-1$
+    }
+
+    public void cancelRowUpdates() throws SQLException {
+        throw LoopbackDriver.unsupported("cancelRowUpdates"); // $NON-NLS-1$
+    }
+
+    public void moveToInsertRow() throws SQLException {
+        throw LoopbackDriver.unsupported("moveToInsertRow"); // $NON-NLS-1$
+    }
+
+    public void moveToCurrentRow() throws SQLException {
+        throw LoopbackDriver.unsupported("moveToCurrentRow"); // $NON-NLS-1$
+    }
+
+    public void updateRef(String columnLabel, Ref x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateRef"); // $NON-NLS-1$
+    }
+
+    public void updateRef(int columnIndex, Ref x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateRef"); // $NON-NLS-1$
+    }
+
+    public void updateBlob(int columnIndex, InputStream x, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBlob"); // $NON-NLS-1$
+    }
+
+    public void updateBlob(String columnLabel, InputStream x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBlob"); // $NON-NLS-1$
+    }
+
+    public void updateBlob(String columnLabel, InputStream x, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBlob"); // $NON-NLS-1$
+    }
+
+    public void updateBlob(int columnIndex, InputStream x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBlob"); // $NON-NLS-1$
+    }
+
+    public void updateBlob(String columnLabel, Blob x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBlob"); // $NON-NLS-1$
+    }
+
+    public void updateBlob(int columnIndex, Blob x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateBlob"); // $NON-NLS-1$
+    }
+
+    public void updateClob(int columnIndex, Reader reader) throws SQLException {
+        throw LoopbackDriver.unsupported("updateClob"); // $NON-NLS-1$
+    }
+
+    public void updateClob(String columnLabel, Reader reader) throws SQLException {
+        throw LoopbackDriver.unsupported("updateClob"); // $NON-NLS-1$
+    }
+
+    public void updateClob(String columnLabel, Clob x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateClob"); // $NON-NLS-1$
+    }
+
+    public void updateClob(int columnIndex, Reader reader, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateClob"); // $NON-NLS-1$
+    }
+
+    public void updateClob(int columnIndex, Clob x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateClob"); // $NON-NLS-1$
+    }
+
+    public void updateClob(String columnLabel, Reader reader, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateClob"); // $NON-NLS-1$
+    }
+
+    public void updateArray(String columnLabel, Array x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateArray"); // $NON-NLS-1$
+    }
+
+    public void updateArray(int columnIndex, Array x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateArray"); // $NON-NLS-1$
+    }
+
+    public void updateRowId(int columnIndex, RowId x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateRowId"); // $NON-NLS-1$
+    }
+
+    public void updateRowId(String columnLabel, RowId x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateRowId"); // $NON-NLS-1$
+    }
+
+    public void updateNString(int columnIndex, String x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateNString"); // $NON-NLS-1$
+    }
+
+    public void updateNString(String columnLabel, String x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateNString"); // $NON-NLS-1$
+    }
+
+    public void updateNClob(String columnLabel, NClob x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateNClob"); // $NON-NLS-1$
+    }
+
+    public void updateNClob(int columnIndex, Reader reader) throws SQLException {
+        throw LoopbackDriver.unsupported("updateNClob"); // $NON-NLS-1$
+    }
+
+    public void updateNClob(String columnLabel, Reader reader) throws SQLException {
+        throw LoopbackDriver.unsupported("updateNClob"); // $NON-NLS-1$
+    }
+
+    public void updateNClob(int columnIndex, NClob x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateNClob"); // $NON-NLS-1$
+    }
+
+    public void updateNClob(String columnLabel, Reader reader, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateNClob"); // $NON-NLS-1$
+    }
+
+    public void updateNClob(int columnIndex, Reader reader, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateNClob"); // $NON-NLS-1$
+    }
+
+    public void updateSQLXML(String columnLabel, SQLXML x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateSQLXML"); // $NON-NLS-1$
+    }
+
+    public void updateSQLXML(int columnIndex, SQLXML x) throws SQLException {
+        throw LoopbackDriver.unsupported("updateSQLXML"); // $NON-NLS-1$
+    }
+
+    public void updateNCharacterStream(String columnLabel, Reader reader, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateNCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void updateNCharacterStream(int columnIndex, Reader reader) throws SQLException {
+        throw LoopbackDriver.unsupported("updateNCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void updateNCharacterStream(String columnLabel, Reader reader) throws SQLException {
+        throw LoopbackDriver.unsupported("updateNCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void updateNCharacterStream(int columnIndex, Reader reader, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("updateNCharacterStream"); // $NON-NLS-1$
+    }
+}
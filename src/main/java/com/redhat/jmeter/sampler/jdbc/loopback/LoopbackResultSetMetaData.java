@@ -0,0 +1,139 @@
+package com.redhat.jmeter.sampler.jdbc.loopback;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Description of the generated columns.
+ */
+final class LoopbackResultSetMetaData implements ResultSetMetaData {
+
+    private static final String TABLE = "LOOPBACK"; // $NON-NLS-1$
+
+    private final LoopbackColumn[] columns;
+
+    LoopbackResultSetMetaData(LoopbackColumn[] columns) {
+        this.columns = columns;
+    }
+
+    private LoopbackColumn column(int column) throws SQLException {
+        if (column < 1 || column > columns.length) {
+            throw new SQLException("Invalid column index: " + column, "07009"); // $NON-NLS-1$
+        }
+        return columns[column - 1];
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public boolean isAutoIncrement(int column) throws SQLException {
+        column(column);
+        return false;
+    }
+
+    public boolean isCaseSensitive(int column) throws SQLException {
+        int type = column(column).getSqlType();
+        return type == Types.VARCHAR || type == Types.CHAR;
+    }
+
+    public boolean isSearchable(int column) throws SQLException {
+        column(column);
+        return true;
+    }
+
+    public boolean isCurrency(int column) throws SQLException {
+        column(column);
+        return false;
+    }
+
+    public int isNullable(int column) throws SQLException {
+        return column(column).isNullable() ? columnNullable : columnNoNulls;
+    }
+
+    public boolean isSigned(int column) throws SQLException {
+        switch (column(column).getSqlType()) {
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.DOUBLE:
+            case Types.DECIMAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public int getColumnDisplaySize(int column) throws SQLException {
+        return column(column).getWidth();
+    }
+
+    public String getColumnLabel(int column) throws SQLException {
+        return column(column).getLabel();
+    }
+
+    public String getColumnName(int column) throws SQLException {
+        return column(column).getLabel();
+    }
+
+    public String getSchemaName(int column) throws SQLException {
+        column(column);
+        return ""; // $NON-NLS-1$
+    }
+
+    public int getPrecision(int column) throws SQLException {
+        return column(column).getWidth();
+    }
+
+    public int getScale(int column) throws SQLException {
+        return column(column).getScale();
+    }
+
+    public String getTableName(int column) throws SQLException {
+        column(column);
+        return TABLE;
+    }
+
+    public String getCatalogName(int column) throws SQLException {
+        column(column);
+        return ""; // $NON-NLS-1$
+    }
+
+    public int getColumnType(int column) throws SQLException {
+        return column(column).getSqlType();
+    }
+
+    public String getColumnTypeName(int column) throws SQLException {
+        return column(column).getTypeName();
+    }
+
+    public boolean isReadOnly(int column) throws SQLException {
+        column(column);
+        return true;
+    }
+
+    public boolean isWritable(int column) throws SQLException {
+        column(column);
+        return false;
+    }
+
+    public boolean isDefinitelyWritable(int column) throws SQLException {
+        column(column);
+        return false;
+    }
+
+    public String getColumnClassName(int column) throws SQLException {
+        return column(column).getClassName();
+    }
+
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
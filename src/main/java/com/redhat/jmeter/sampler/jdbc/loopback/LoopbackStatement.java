@@ -0,0 +1,1075 @@
+package com.redhat.jmeter.sampler.jdbc.loopback;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * Statement, prepared statement and callable statement of the loopback driver. Parameter values are
+ * checked for their index only and not kept; output parameters return a generated value of their
+ * registered type.
+ */
+final class LoopbackStatement implements CallableStatement {
+
+    /**
+     * Rows per fetch when the fetch size is left to the driver
+     */
+    private static final int DEFAULT_FETCH_SIZE = 10;
+
+    private static final String[] QUERY_KEYWORDS = {"SELECT", "WITH", "VALUES", "CALL"}; // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$ $NON-NLS-4$
+
+    private final LoopbackConnection connection;
+    private final LoopbackConfig config;
+    private final String sql;
+    private final int resultSetType;
+    private final int resultSetConcurrency;
+    private final int resultSetHoldability;
+
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+    private int maxRows;
+    private int queryTimeout;
+    private boolean closed;
+    private volatile boolean cancelled;
+
+    private LoopbackResultSet resultSet;
+    private int resultSetIndex;
+    private int updateCount = -1;
+    private int batchSize;
+    private int[] outParameterTypes = new int[0];
+    private boolean wasNull;
+
+    /**
+     * @param sql statement text of a prepared or callable statement, {@code null} for a plain statement
+     */
+    LoopbackStatement(LoopbackConnection connection, LoopbackConfig config, String sql,
+                      int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+        this.connection = connection;
+        this.config = config;
+        this.sql = sql;
+        this.resultSetType = resultSetType;
+        this.resultSetConcurrency = resultSetConcurrency;
+        this.resultSetHoldability = resultSetHoldability;
+    }
+
+    static int effectiveFetchSize(int rows) {
+        return rows > 0 ? rows : DEFAULT_FETCH_SIZE;
+    }
+
+    private static boolean isQuery(String sql) {
+        int start = 0;
+        while (start < sql.length() && (Character.isWhitespace(sql.charAt(start)) || sql.charAt(start) == '{'
+                || sql.charAt(start) == '(')) {
+            start++;
+        }
+        for (String keyword : QUERY_KEYWORDS) {
+            if (sql.regionMatches(true, start, keyword, 0, keyword.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Statement is closed"); // $NON-NLS-1$
+        }
+    }
+
+    void checkCancelled() throws SQLException {
+        if (cancelled) {
+            cancelled = false;
+            throw new SQLException("Statement was cancelled", "57014"); // $NON-NLS-1$
+        }
+    }
+
+    private String sql() throws SQLException {
+        if (sql == null) {
+            throw new SQLException("No statement text, use the methods taking the SQL"); // $NON-NLS-1$
+        }
+        return sql;
+    }
+
+    /**
+     * Runs a statement: one round trip, then either the first result set or the update count.
+     *
+     * @return true if the statement returned a result set
+     */
+    private boolean run(String text) throws SQLException {
+        checkOpen();
+        closeResultSet();
+        cancelled = false;
+        LoopbackDriver.roundTrip(config.getRoundTripNanos());
+        checkCancelled();
+        if (isQuery(text) && config.getResultSets() > 0) {
+            resultSetIndex = 0;
+            resultSet = newResultSet();
+            updateCount = -1;
+            return true;
+        }
+        updateCount = config.getUpdateCount();
+        return false;
+    }
+
+    private LoopbackResultSet newResultSet() {
+        return new LoopbackResultSet(this, config, maxRows, fetchSize, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    private void closeResultSet() {
+        if (resultSet != null) {
+            resultSet.close();
+            resultSet = null;
+        }
+    }
+
+    public ResultSet executeQuery() throws SQLException {
+        return executeQuery(sql());
+    }
+
+    public ResultSet executeQuery(String sql) throws SQLException {
+        checkOpen();
+        closeResultSet();
+        cancelled = false;
+        LoopbackDriver.roundTrip(config.getRoundTripNanos());
+        checkCancelled();
+        resultSetIndex = 0;
+        resultSet = newResultSet();
+        updateCount = -1;
+        return resultSet;
+    }
+
+    public int executeUpdate() throws SQLException {
+        return executeUpdate(sql());
+    }
+
+    public int executeUpdate(String sql) throws SQLException {
+        run("UPDATE"); // $NON-NLS-1$
+        return updateCount;
+    }
+
+    public boolean execute() throws SQLException {
+        return run(sql());
+    }
+
+    public boolean execute(String sql) throws SQLException {
+        return run(sql);
+    }
+
+    public ResultSet getResultSet() throws SQLException {
+        checkOpen();
+        return resultSet;
+    }
+
+    public int getUpdateCount() throws SQLException {
+        checkOpen();
+        return updateCount;
+    }
+
+    public boolean getMoreResults() throws SQLException {
+        return getMoreResults(CLOSE_CURRENT_RESULT);
+    }
+
+    public boolean getMoreResults(int current) throws SQLException {
+        checkOpen();
+        boolean more = resultSet != null && resultSetIndex + 1 < config.getResultSets();
+        closeResultSet();
+        updateCount = -1;
+        if (more) {
+            resultSetIndex++;
+            resultSet = newResultSet();
+        }
+        return more;
+    }
+
+    public void addBatch() throws SQLException {
+        checkOpen();
+        batchSize++;
+    }
+
+    public void addBatch(String sql) throws SQLException {
+        checkOpen();
+        batchSize++;
+    }
+
+    public void clearBatch() throws SQLException {
+        checkOpen();
+        batchSize = 0;
+    }
+
+    public int[] executeBatch() throws SQLException {
+        checkOpen();
+        cancelled = false;
+        LoopbackDriver.roundTrip(config.getRoundTripNanos());
+        int[] counts = new int[batchSize];
+        Arrays.fill(counts, config.getUpdateCount());
+        batchSize = 0;
+        checkCancelled();
+        return counts;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public void close() {
+        closeResultSet();
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public ResultSetMetaData getMetaData() throws SQLException {
+        checkOpen();
+        return sql != null && isQuery(sql) ? new LoopbackResultSetMetaData(config.getColumns()) : null;
+    }
+
+    public void setFetchSize(int rows) throws SQLException {
+        checkOpen();
+        if (rows < 0) {
+            throw new SQLException("Invalid fetch size: " + rows);
+        }
+        fetchSize = effectiveFetchSize(rows);
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchDirection(int direction) throws SQLException {
+        checkOpen();
+    }
+
+    public int getFetchDirection() {
+        return ResultSet.FETCH_FORWARD;
+    }
+
+    public void setMaxRows(int max) throws SQLException {
+        checkOpen();
+        maxRows = max;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public void setQueryTimeout(int seconds) throws SQLException {
+        checkOpen();
+        queryTimeout = seconds;
+    }
+
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    public void setMaxFieldSize(int max) throws SQLException {
+        checkOpen();
+    }
+
+    public int getMaxFieldSize() {
+        return 0;
+    }
+
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        checkOpen();
+    }
+
+    public void setPoolable(boolean poolable) throws SQLException {
+        checkOpen();
+    }
+
+    public boolean isPoolable() {
+        return true;
+    }
+
+    public void closeOnCompletion() throws SQLException {
+        checkOpen();
+    }
+
+    public boolean isCloseOnCompletion() {
+        return false;
+    }
+
+    public int getResultSetType() {
+        return resultSetType;
+    }
+
+    public int getResultSetConcurrency() {
+        return resultSetConcurrency;
+    }
+
+    public int getResultSetHoldability() {
+        return resultSetHoldability;
+    }
+
+    public SQLWarning getWarnings() {
+        return null;
+    }
+
+    public void clearWarnings() {
+    }
+
+    public void clearParameters() throws SQLException {
+        checkOpen();
+    }
+
+    private void parameter(int parameterIndex) throws SQLException {
+        checkOpen();
+        if (parameterIndex < 1) {
+            throw new SQLException("Invalid parameter index: " + parameterIndex, "07009"); // $NON-NLS-1$
+        }
+    }
+
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setByte(int parameterIndex, byte x) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setShort(int parameterIndex, short x) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setFloat(int parameterIndex, float x) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setDouble(int parameterIndex, double x) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setString(int parameterIndex, String x) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setDate(int parameterIndex, Date x) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setTime(int parameterIndex, Time x) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+        parameter(parameterIndex);
+    }
+
+    public void registerOutParameter(int parameterIndex, int sqlType) throws SQLException {
+        parameter(parameterIndex);
+        if (parameterIndex > outParameterTypes.length) {
+            outParameterTypes = Arrays.copyOf(outParameterTypes, parameterIndex);
+        }
+        outParameterTypes[parameterIndex - 1] = sqlType;
+    }
+
+    public void registerOutParameter(int parameterIndex, int sqlType, int scale) throws SQLException {
+        registerOutParameter(parameterIndex, sqlType);
+    }
+
+    public void registerOutParameter(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        registerOutParameter(parameterIndex, sqlType);
+    }
+
+    private Object getOutValue(int parameterIndex) throws SQLException {
+        parameter(parameterIndex);
+        if (parameterIndex > outParameterTypes.length) {
+            throw new SQLException("Parameter " + parameterIndex + " is not an output parameter", "07009"); // $NON-NLS-1$
+        }
+        int sqlType = outParameterTypes[parameterIndex - 1];
+        Object value = sqlType == Types.REF_CURSOR || sqlType == Types.OTHER
+                ? newResultSet() // a cursor over the configured rows, as returned by stored procedures
+                : LoopbackColumn.forOutParameter(sqlType, parameterIndex).getObject(0);
+        wasNull = value == null;
+        return value;
+    }
+
+    public boolean wasNull() {
+        return wasNull;
+    }
+
+    public Object getObject(int parameterIndex) throws SQLException {
+        return getOutValue(parameterIndex);
+    }
+
+    public String getString(int parameterIndex) throws SQLException {
+        Object value = getOutValue(parameterIndex);
+        return value == null ? null : value.toString();
+    }
+
+    public int getInt(int parameterIndex) throws SQLException {
+        return (int) getLong(parameterIndex);
+    }
+
+    public long getLong(int parameterIndex) throws SQLException {
+        Object value = getOutValue(parameterIndex);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        throw new SQLException("Parameter " + parameterIndex + " is not numeric", "22018"); // $NON-NLS-1$
+    }
+
+    public double getDouble(int parameterIndex) throws SQLException {
+        Object value = getOutValue(parameterIndex);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        throw new SQLException("Parameter " + parameterIndex + " is not numeric", "22018"); // $NON-NLS-1$
+    }
+
+    public BigDecimal getBigDecimal(int parameterIndex) throws SQLException {
+        Object value = getOutValue(parameterIndex);
+        return value == null || value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+    }
+
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    @Override
+    public String toString() {
+        return sql != null ? sql : super.toString();
+    }
+
+    // Operations a load generator does not need
+
+    public boolean getBoolean(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getBoolean"); // $NON-NLS-1$
+    }
+
+    public boolean getBoolean(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getBoolean"); // $NON-NLS-1$
+    }
+
+    public byte getByte(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getByte"); // $NON-NLS-1$
+    }
+
+    public byte getByte(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getByte"); // $NON-NLS-1$
+    }
+
+    public short getShort(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getShort"); // $NON-NLS-1$
+    }
+
+    public short getShort(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getShort"); // $NON-NLS-1$
+    }
+
+    public int getInt(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getInt"); // $NON-NLS-1$
+    }
+
+    public long getLong(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getLong"); // $NON-NLS-1$
+    }
+
+    public float getFloat(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getFloat"); // $NON-NLS-1$
+    }
+
+    public float getFloat(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getFloat"); // $NON-NLS-1$
+    }
+
+    public double getDouble(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getDouble"); // $NON-NLS-1$
+    }
+
+    public byte[] getBytes(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getBytes"); // $NON-NLS-1$
+    }
+
+    public byte[] getBytes(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getBytes"); // $NON-NLS-1$
+    }
+
+    public void setBoolean(String parameterName, boolean value) throws SQLException {
+        throw LoopbackDriver.unsupported("setBoolean"); // $NON-NLS-1$
+    }
+
+    public void setByte(String parameterName, byte x) throws SQLException {
+        throw LoopbackDriver.unsupported("setByte"); // $NON-NLS-1$
+    }
+
+    public void setShort(String parameterName, short x) throws SQLException {
+        throw LoopbackDriver.unsupported("setShort"); // $NON-NLS-1$
+    }
+
+    public void setInt(String parameterName, int x) throws SQLException {
+        throw LoopbackDriver.unsupported("setInt"); // $NON-NLS-1$
+    }
+
+    public void setLong(String parameterName, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("setLong"); // $NON-NLS-1$
+    }
+
+    public void setFloat(String parameterName, float x) throws SQLException {
+        throw LoopbackDriver.unsupported("setFloat"); // $NON-NLS-1$
+    }
+
+    public void setDouble(String parameterName, double x) throws SQLException {
+        throw LoopbackDriver.unsupported("setDouble"); // $NON-NLS-1$
+    }
+
+    public <T> T getObject(String parameterName, Class<T> type) throws SQLException {
+        throw LoopbackDriver.unsupported("getObject"); // $NON-NLS-1$
+    }
+
+    public Object getObject(int parameterIndex, Map<String, Class<?>> map) throws SQLException {
+        throw LoopbackDriver.unsupported("getObject"); // $NON-NLS-1$
+    }
+
+    public <T> T getObject(int parameterIndex, Class<T> type) throws SQLException {
+        throw LoopbackDriver.unsupported("getObject"); // $NON-NLS-1$
+    }
+
+    public Object getObject(String parameterName, Map<String, Class<?>> map) throws SQLException {
+        throw LoopbackDriver.unsupported("getObject"); // $NON-NLS-1$
+    }
+
+    public Object getObject(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getObject"); // $NON-NLS-1$
+    }
+
+    public Ref getRef(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getRef"); // $NON-NLS-1$
+    }
+
+    public Ref getRef(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getRef"); // $NON-NLS-1$
+    }
+
+    public Array getArray(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getArray"); // $NON-NLS-1$
+    }
+
+    public Array getArray(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getArray"); // $NON-NLS-1$
+    }
+
+    public void setURL(String parameterName, URL x) throws SQLException {
+        throw LoopbackDriver.unsupported("setURL"); // $NON-NLS-1$
+    }
+
+    public Timestamp getTimestamp(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getTimestamp"); // $NON-NLS-1$
+    }
+
+    public Timestamp getTimestamp(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getTimestamp"); // $NON-NLS-1$
+    }
+
+    public Timestamp getTimestamp(int parameterIndex, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("getTimestamp"); // $NON-NLS-1$
+    }
+
+    public Timestamp getTimestamp(String parameterName, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("getTimestamp"); // $NON-NLS-1$
+    }
+
+    public String getString(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getString"); // $NON-NLS-1$
+    }
+
+    public BigDecimal getBigDecimal(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getBigDecimal"); // $NON-NLS-1$
+    }
+
+    @Deprecated
+    public BigDecimal getBigDecimal(int parameterIndex, int scale) throws SQLException {
+        throw LoopbackDriver.unsupported("getBigDecimal"); // $NON-NLS-1$
+    }
+
+    public Time getTime(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getTime"); // $NON-NLS-1$
+    }
+
+    public Time getTime(String parameterName, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("getTime"); // $NON-NLS-1$
+    }
+
+    public Time getTime(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getTime"); // $NON-NLS-1$
+    }
+
+    public Time getTime(int parameterIndex, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("getTime"); // $NON-NLS-1$
+    }
+
+    public void setTime(String parameterName, Time x) throws SQLException {
+        throw LoopbackDriver.unsupported("setTime"); // $NON-NLS-1$
+    }
+
+    public void setTime(String parameterName, Time x, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("setTime"); // $NON-NLS-1$
+    }
+
+    public void setDate(String parameterName, Date x) throws SQLException {
+        throw LoopbackDriver.unsupported("setDate"); // $NON-NLS-1$
+    }
+
+    public void setDate(String parameterName, Date x, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("setDate"); // $NON-NLS-1$
+    }
+
+    public Date getDate(String parameterName, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("getDate"); // $NON-NLS-1$
+    }
+
+    public Date getDate(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getDate"); // $NON-NLS-1$
+    }
+
+    public Date getDate(int parameterIndex, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("getDate"); // $NON-NLS-1$
+    }
+
+    public Date getDate(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getDate"); // $NON-NLS-1$
+    }
+
+    public URL getURL(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getURL"); // $NON-NLS-1$
+    }
+
+    public URL getURL(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getURL"); // $NON-NLS-1$
+    }
+
+    public void setNull(String parameterName, int sqlType) throws SQLException {
+        throw LoopbackDriver.unsupported("setNull"); // $NON-NLS-1$
+    }
+
+    public void setNull(String parameterName, int sqlType, String typeName) throws SQLException {
+        throw LoopbackDriver.unsupported("setNull"); // $NON-NLS-1$
+    }
+
+    public void setBigDecimal(String parameterName, BigDecimal x) throws SQLException {
+        throw LoopbackDriver.unsupported("setBigDecimal"); // $NON-NLS-1$
+    }
+
+    public void setString(String parameterName, String x) throws SQLException {
+        throw LoopbackDriver.unsupported("setString"); // $NON-NLS-1$
+    }
+
+    public void setBytes(String parameterName, byte[] x) throws SQLException {
+        throw LoopbackDriver.unsupported("setBytes"); // $NON-NLS-1$
+    }
+
+    public void setTimestamp(String parameterName, Timestamp x) throws SQLException {
+        throw LoopbackDriver.unsupported("setTimestamp"); // $NON-NLS-1$
+    }
+
+    public void setTimestamp(String parameterName, Timestamp x, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("setTimestamp"); // $NON-NLS-1$
+    }
+
+    public void setAsciiStream(String parameterName, InputStream x) throws SQLException {
+        throw LoopbackDriver.unsupported("setAsciiStream"); // $NON-NLS-1$
+    }
+
+    public void setAsciiStream(String parameterName, InputStream x, int length) throws SQLException {
+        throw LoopbackDriver.unsupported("setAsciiStream"); // $NON-NLS-1$
+    }
+
+    public void setAsciiStream(String parameterName, InputStream x, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("setAsciiStream"); // $NON-NLS-1$
+    }
+
+    public void setBinaryStream(String parameterName, InputStream x, int length) throws SQLException {
+        throw LoopbackDriver.unsupported("setBinaryStream"); // $NON-NLS-1$
+    }
+
+    public void setBinaryStream(String parameterName, InputStream x, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("setBinaryStream"); // $NON-NLS-1$
+    }
+
+    public void setBinaryStream(String parameterName, InputStream x) throws SQLException {
+        throw LoopbackDriver.unsupported("setBinaryStream"); // $NON-NLS-1$
+    }
+
+    public void setObject(String parameterName, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+        throw LoopbackDriver.unsupported("setObject"); // $NON-NLS-1$
+    }
+
+    public void setObject(String parameterName, Object x, int targetSqlType) throws SQLException {
+        throw LoopbackDriver.unsupported("setObject"); // $NON-NLS-1$
+    }
+
+    public void setObject(String parameterName, Object x) throws SQLException {
+        throw LoopbackDriver.unsupported("setObject"); // $NON-NLS-1$
+    }
+
+    public void setCharacterStream(String parameterName, Reader reader) throws SQLException {
+        throw LoopbackDriver.unsupported("setCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void setCharacterStream(String parameterName, Reader reader, int length) throws SQLException {
+        throw LoopbackDriver.unsupported("setCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void setCharacterStream(String parameterName, Reader reader, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("setCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void setBlob(String parameterName, Blob x) throws SQLException {
+        throw LoopbackDriver.unsupported("setBlob"); // $NON-NLS-1$
+    }
+
+    public void setBlob(String parameterName, InputStream x, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("setBlob"); // $NON-NLS-1$
+    }
+
+    public void setBlob(String parameterName, InputStream x) throws SQLException {
+        throw LoopbackDriver.unsupported("setBlob"); // $NON-NLS-1$
+    }
+
+    public void setClob(String parameterName, Reader reader, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("setClob"); // $NON-NLS-1$
+    }
+
+    public void setClob(String parameterName, Clob x) throws SQLException {
+        throw LoopbackDriver.unsupported("setClob"); // $NON-NLS-1$
+    }
+
+    public void setClob(String parameterName, Reader reader) throws SQLException {
+        throw LoopbackDriver.unsupported("setClob"); // $NON-NLS-1$
+    }
+
+    public void setRowId(String parameterName, RowId x) throws SQLException {
+        throw LoopbackDriver.unsupported("setRowId"); // $NON-NLS-1$
+    }
+
+    public void setNString(String parameterName, String x) throws SQLException {
+        throw LoopbackDriver.unsupported("setNString"); // $NON-NLS-1$
+    }
+
+    public void setNCharacterStream(String parameterName, Reader reader) throws SQLException {
+        throw LoopbackDriver.unsupported("setNCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void setNCharacterStream(String parameterName, Reader reader, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("setNCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void setNClob(String parameterName, Reader reader) throws SQLException {
+        throw LoopbackDriver.unsupported("setNClob"); // $NON-NLS-1$
+    }
+
+    public void setNClob(String parameterName, NClob x) throws SQLException {
+        throw LoopbackDriver.unsupported("setNClob"); // $NON-NLS-1$
+    }
+
+    public void setNClob(String parameterName, Reader reader, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("setNClob"); // $NON-NLS-1$
+    }
+
+    public void setSQLXML(String parameterName, SQLXML x) throws SQLException {
+        throw LoopbackDriver.unsupported("setSQLXML"); // $NON-NLS-1$
+    }
+
+    public void registerOutParameter(String parameterName, int sqlType) throws SQLException {
+        throw LoopbackDriver.unsupported("registerOutParameter"); // $NON-NLS-1$
+    }
+
+    public void registerOutParameter(String parameterName, int sqlType, int scale) throws SQLException {
+        throw LoopbackDriver.unsupported("registerOutParameter"); // $NON-NLS-1$
+    }
+
+    public void registerOutParameter(String parameterName, int sqlType, String typeName) throws SQLException {
+        throw LoopbackDriver.unsupported("registerOutParameter"); // $NON-NLS-1$
+    }
+
+    public Blob getBlob(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getBlob"); // $NON-NLS-1$
+    }
+
+    public Blob getBlob(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getBlob"); // $NON-NLS-1$
+    }
+
+    public Clob getClob(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getClob"); // $NON-NLS-1$
+    }
+
+    public Clob getClob(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getClob"); // $NON-NLS-1$
+    }
+
+    public RowId getRowId(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getRowId"); // $NON-NLS-1$
+    }
+
+    public RowId getRowId(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getRowId"); // $NON-NLS-1$
+    }
+
+    public NClob getNClob(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getNClob"); // $NON-NLS-1$
+    }
+
+    public NClob getNClob(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getNClob"); // $NON-NLS-1$
+    }
+
+    public SQLXML getSQLXML(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getSQLXML"); // $NON-NLS-1$
+    }
+
+    public SQLXML getSQLXML(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getSQLXML"); // $NON-NLS-1$
+    }
+
+    public String getNString(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getNString"); // $NON-NLS-1$
+    }
+
+    public String getNString(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getNString"); // $NON-NLS-1$
+    }
+
+    public Reader getNCharacterStream(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getNCharacterStream"); // $NON-NLS-1$
+    }
+
+    public Reader getNCharacterStream(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getNCharacterStream"); // $NON-NLS-1$
+    }
+
+    public Reader getCharacterStream(int parameterIndex) throws SQLException {
+        throw LoopbackDriver.unsupported("getCharacterStream"); // $NON-NLS-1$
+    }
+
+    public Reader getCharacterStream(String parameterName) throws SQLException {
+        throw LoopbackDriver.unsupported("getCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void setURL(int parameterIndex, URL x) throws SQLException {
+        throw LoopbackDriver.unsupported("setURL"); // $NON-NLS-1$
+    }
+
+    public void setArray(int parameterIndex, Array x) throws SQLException {
+        throw LoopbackDriver.unsupported("setArray"); // $NON-NLS-1$
+    }
+
+    public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("setTime"); // $NON-NLS-1$
+    }
+
+    public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("setDate"); // $NON-NLS-1$
+    }
+
+    public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+        throw LoopbackDriver.unsupported("setTimestamp"); // $NON-NLS-1$
+    }
+
+    public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("setAsciiStream"); // $NON-NLS-1$
+    }
+
+    public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+        throw LoopbackDriver.unsupported("setAsciiStream"); // $NON-NLS-1$
+    }
+
+    public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        throw LoopbackDriver.unsupported("setAsciiStream"); // $NON-NLS-1$
+    }
+
+    @Deprecated
+    public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        throw LoopbackDriver.unsupported("setUnicodeStream"); // $NON-NLS-1$
+    }
+
+    public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+        throw LoopbackDriver.unsupported("setBinaryStream"); // $NON-NLS-1$
+    }
+
+    public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("setBinaryStream"); // $NON-NLS-1$
+    }
+
+    public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        throw LoopbackDriver.unsupported("setBinaryStream"); // $NON-NLS-1$
+    }
+
+    public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+        throw LoopbackDriver.unsupported("setCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("setCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+        throw LoopbackDriver.unsupported("setCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void setRef(int parameterIndex, Ref x) throws SQLException {
+        throw LoopbackDriver.unsupported("setRef"); // $NON-NLS-1$
+    }
+
+    public void setBlob(int parameterIndex, Blob x) throws SQLException {
+        throw LoopbackDriver.unsupported("setBlob"); // $NON-NLS-1$
+    }
+
+    public void setBlob(int parameterIndex, InputStream x) throws SQLException {
+        throw LoopbackDriver.unsupported("setBlob"); // $NON-NLS-1$
+    }
+
+    public void setBlob(int parameterIndex, InputStream x, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("setBlob"); // $NON-NLS-1$
+    }
+
+    public void setClob(int parameterIndex, Clob x) throws SQLException {
+        throw LoopbackDriver.unsupported("setClob"); // $NON-NLS-1$
+    }
+
+    public void setClob(int parameterIndex, Reader reader) throws SQLException {
+        throw LoopbackDriver.unsupported("setClob"); // $NON-NLS-1$
+    }
+
+    public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("setClob"); // $NON-NLS-1$
+    }
+
+    public ParameterMetaData getParameterMetaData() throws SQLException {
+        throw LoopbackDriver.unsupported("getParameterMetaData"); // $NON-NLS-1$
+    }
+
+    public void setRowId(int parameterIndex, RowId x) throws SQLException {
+        throw LoopbackDriver.unsupported("setRowId"); // $NON-NLS-1$
+    }
+
+    public void setNString(int parameterIndex, String x) throws SQLException {
+        throw LoopbackDriver.unsupported("setNString"); // $NON-NLS-1$
+    }
+
+    public void setNCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("setNCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void setNCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+        throw LoopbackDriver.unsupported("setNCharacterStream"); // $NON-NLS-1$
+    }
+
+    public void setNClob(int parameterIndex, NClob x) throws SQLException {
+        throw LoopbackDriver.unsupported("setNClob"); // $NON-NLS-1$
+    }
+
+    public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+        throw LoopbackDriver.unsupported("setNClob"); // $NON-NLS-1$
+    }
+
+    public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        throw LoopbackDriver.unsupported("setNClob"); // $NON-NLS-1$
+    }
+
+    public void setSQLXML(int parameterIndex, SQLXML x) throws SQLException {
+        throw LoopbackDriver.unsupported("setSQLXML"); // $NON-NLS-1$
+    }
+
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        throw LoopbackDriver.unsupported("execute"); // $NON-NLS-1$
+    }
+
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        throw LoopbackDriver.unsupported("execute"); // $NON-NLS-1$
+    }
+
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        throw LoopbackDriver.unsupported("execute"); // $NON-NLS-1$
+    }
+
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        throw LoopbackDriver.unsupported("executeUpdate"); // $NON-NLS-1$
+    }
+
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        throw LoopbackDriver.unsupported("executeUpdate"); // $NON-NLS-1$
+    }
+
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        throw LoopbackDriver.unsupported("executeUpdate"); // $NON-NLS-1$
+    }
+
+    public void setCursorName(String name) throws SQLException {
+        throw LoopbackDriver.unsupported("setCursorName"); // $NON-NLS-1$
+    }
+
+    public ResultSet getGeneratedKeys() throws SQLException {
+        throw LoopbackDriver.unsupported("getGeneratedKeys"); // $NON-NLS-1$
+    }
+}
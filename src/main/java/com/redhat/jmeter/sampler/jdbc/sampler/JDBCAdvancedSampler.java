@@ -1,9 +1,10 @@
 package com.redhat.jmeter.sampler.jdbc.sampler;
 
 import com.redhat.jmeter.sampler.jdbc.AbstractJDBCAdvancedTestElement;
+import com.redhat.jmeter.sampler.jdbc.ExecutionStatistics;
+import com.redhat.jmeter.sampler.jdbc.SamplerMetrics;
 import org.apache.jmeter.config.ConfigTestElement;
 import org.apache.jmeter.engine.util.ConfigMergabilityIndicator;
-import org.apache.jmeter.protocol.jdbc.config.DataSourceElement;
 import org.apache.jmeter.protocol.jdbc.sampler.JDBCSampler;
 import org.apache.jmeter.samplers.Entry;
 import org.apache.jmeter.samplers.SampleResult;
@@ -14,11 +15,13 @@ import org.apache.jorphan.logging.LoggingManager;
 import org.apache.jorphan.util.JOrphanUtils;
 import org.apache.log.Logger;
 
+import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by vklevko on 2/29/16.
@@ -31,6 +34,11 @@ public class JDBCAdvancedSampler extends AbstractJDBCAdvancedTestElement impleme
             Arrays.asList(new String[]{
                     "org.apache.jmeter.config.gui.SimpleConfigGui"}));
 
+    /**
+     * {@code SampleResult#setConnectTime(long)}, or {@code null} on JMeter versions without a connect time field
+     */
+    private static final Method SET_CONNECT_TIME = findSetConnectTime();
+
 
 
     public SampleResult sample(Entry entry) {
@@ -50,6 +58,9 @@ public class JDBCAdvancedSampler extends AbstractJDBCAdvancedTestElement impleme
 
 
         res.sampleStart();
+        long start = System.nanoTime();
+        long connectNanos = 0;
+        boolean executed = false;
         Connection conn = null;
 
         try {
@@ -58,12 +69,13 @@ public class JDBCAdvancedSampler extends AbstractJDBCAdvancedTestElement impleme
             }
 
             try {
-                conn = DataSourceElement.getConnection(getDataSource());
+                conn = getConnection();
             } finally {
-                // FIXME: there is separate connect time field now
-                res.latencyEnd(); // use latency to measure connection time
+                connectNanos = System.nanoTime() - start;
+                setConnectTime(res, TimeUnit.NANOSECONDS.toMillis(connectNanos));
             }
             res.setResponseHeaders(conn.toString());
+            executed = true;
             res.setResponseData(execute(conn));
         } catch (SQLException ex) {
             final String errCode = Integer.toString(ex.getErrorCode());
@@ -77,14 +89,68 @@ public class JDBCAdvancedSampler extends AbstractJDBCAdvancedTestElement impleme
             res.setResponseData(ex.getMessage().getBytes());
             res.setSuccessful(false);
         } finally {
-            close(conn);
+            long closeStart = System.nanoTime();
+            releaseConnection(conn);
+            if (executed) {
+                getExecutionStatistics().addCloseNanos(System.nanoTime() - closeStart);
+            }
+        }
+
+        if (executed) {
+            ExecutionStatistics statistics = getExecutionStatistics();
+            if (statistics.getBudgetStop() != null && res.isSuccessful()) {
+                res.setResponseCode(statistics.getBudgetStop());
+                res.setResponseMessage(statistics.getBudgetMessage());
+                res.setSuccessful(!statistics.isCancelled());
+            }
+            statistics.setConnectNanos(connectNanos);
+            long firstRow = statistics.getFirstRowTime();
+            res.setLatency(TimeUnit.NANOSECONDS.toMillis((firstRow != 0 ? firstRow : System.nanoTime()) - start));
+            res.setResponseHeaders(res.getResponseHeaders() + "\n" + statistics); // $NON-NLS-1$
+            String prefix = getStatisticsVariable().trim();
+            if (prefix.length() > 0) {
+                statistics.exportTo(getThreadContext().getVariables(), prefix);
+            }
+        } else {
+            res.latencyEnd();
         }
 
         // TODO: process warnings? Set Code and Message to success?
         res.sampleEnd();
+
+        SamplerMetrics metrics = getSamplerMetrics();
+        metrics.sampleEnded(res.isSuccessful(), System.nanoTime() - start, connectNanos);
+        String prefix = getStatisticsVariable().trim();
+        if (isExportMetrics() && prefix.length() > 0) {
+            metrics.exportTo(getThreadContext().getVariables(), prefix);
+        }
         return res;
     }
 
+    /**
+     * Stores the connect time in the dedicated field of {@link SampleResult}, which exists from JMeter 2.13 on.
+     *
+     * @param res         result of the sample
+     * @param connectTime time taken to get the connection, in milliseconds
+     */
+    private static void setConnectTime(SampleResult res, long connectTime) {
+        if (SET_CONNECT_TIME != null) {
+            try {
+                SET_CONNECT_TIME.invoke(res, Long.valueOf(connectTime));
+            } catch (Exception e) {
+                log.debug("Could not set connect time", e);
+            }
+        }
+    }
+
+    private static Method findSetConnectTime() {
+        try {
+            return SampleResult.class.getMethod("setConnectTime", long.class); // $NON-NLS-1$
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
     public boolean applies(ConfigTestElement configTestElement) {
         String guiClass = configTestElement.getProperty(TestElement.GUI_CLASS).getStringValue();
         return APPLIABLE_CONFIG_CLASSES.contains(guiClass);
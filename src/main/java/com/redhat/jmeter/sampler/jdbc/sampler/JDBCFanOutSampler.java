@@ -0,0 +1,403 @@
+package com.redhat.jmeter.sampler.jdbc.sampler;
+
+import com.redhat.jmeter.sampler.jdbc.AbstractJDBCAdvancedTestElement;
+import com.redhat.jmeter.sampler.jdbc.ExecutionStatistics;
+import com.redhat.jmeter.sampler.jdbc.SamplerMetrics;
+import com.redhat.jmeter.sampler.jdbc.SqlScript;
+import org.apache.jmeter.config.ConfigTestElement;
+import org.apache.jmeter.engine.util.ConfigMergabilityIndicator;
+import org.apache.jmeter.protocol.jdbc.config.DataSourceElement;
+import org.apache.jmeter.samplers.Entry;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.Sampler;
+import org.apache.jmeter.testbeans.TestBean;
+import org.apache.jmeter.testelement.AbstractTestElement;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.threads.AbstractThreadGroup;
+import org.apache.jmeter.threads.JMeterContext;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.logging.LoggingManager;
+import org.apache.jorphan.util.JOrphanUtils;
+import org.apache.log.Logger;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs several statements concurrently, each on its own connection of the same pool, the way an
+ * application page issues its queries in parallel. Every statement gets a sub-result; the elapsed
+ * time of the parent result is the critical path, i.e. the time until the slowest statement is done.
+ * <p>
+ * Statements run on virtual threads when the JVM provides them, otherwise on a shared pool of at most
+ * {@code jdbcsampler.fanout.maxthreads} platform threads. Each statement takes its connection from the
+ * pool itself, so the time spent waiting for connections is on the critical path rather than summed, and
+ * the pool must allow at least as many connections per thread as there are statements. The pool wait of
+ * each statement is its connect time and the time it waited for a free thread is reported apart.
+ * <p>
+ * Statements are executed with the query type, parameters and result set options of the sampler, read
+ * the variables of the JMeter thread, which waits for them, but do not store values in JMeter variables.
+ * Their elements are created once per thread, before the first sample is timed, and keep their buffers
+ * and parameter file positions across samples.
+ */
+public class JDBCFanOutSampler extends AbstractJDBCAdvancedTestElement implements Sampler, TestBean, ConfigMergabilityIndicator {
+
+    private static final Logger log = LoggingManager.getLoggerForClass();
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Set<String> APPLIABLE_CONFIG_CLASSES = new HashSet<String>(
+            Arrays.asList(new String[]{
+                    "org.apache.jmeter.config.gui.SimpleConfigGui"}));
+
+    private static final int MAX_THREADS =
+            JMeterUtils.getPropDefault("jdbcsampler.fanout.maxthreads", 64); // $NON-NLS-1$
+
+    /**
+     * {@code Executors#newVirtualThreadPerTaskExecutor()}, or {@code null} on JVMs without virtual threads
+     */
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+
+    private static ExecutorService sharedExecutor;
+
+    /**
+     * Properties copied from the sampler to the element of each statement, found on first use
+     */
+    private static PropertyDescriptor[] beanProperties;
+
+    /**
+     * Properties each statement element sets itself rather than copying them from the sampler
+     */
+    private static final Set<String> BRANCH_PROPERTIES = new HashSet<String>(Arrays.asList(new String[]{
+            "statements", "query", "variableNames", "resultVariable", "statisticsVariable"})); // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$ $NON-NLS-4$ $NON-NLS-5$
+
+    private String statements = "";
+
+    /**
+     * Elements running the statements, kept across the samples of this thread with their buffers and
+     * parameter cursors
+     */
+    private transient JDBCFanOutSampler[] branchElements;
+
+    /**
+     * Statements the elements were built for
+     */
+    private transient String branchStatements;
+
+    /**
+     * Property values last copied to the elements, in the order of {@link #getBeanProperties()}
+     */
+    private transient Object[] branchValues;
+
+    public SampleResult sample(Entry entry) {
+        log.debug("sampling jdbc fan-out");
+
+        SampleResult res = new SampleResult();
+        res.setSampleLabel(getName());
+        res.setSamplerData(getStatements());
+        res.setDataType(SampleResult.TEXT);
+        res.setContentType("text/plain"); // $NON-NLS-1$
+        res.setDataEncoding(ENCODING);
+        res.setSuccessful(true);
+        res.setResponseMessageOK();
+        res.setResponseCodeOK();
+
+        // Prepared before the clock starts: only the statements themselves are on the critical path
+        JDBCFanOutSampler[] elements = null;
+        Exception setupError = null;
+        try {
+            elements = getBranchElements();
+        } catch (Exception ex) {
+            setupError = ex;
+        }
+        List<SampleResult> subResults = new ArrayList<SampleResult>(elements == null ? 0 : elements.length);
+
+        res.sampleStart();
+        long sampleStart = System.nanoTime();
+        long connectNanos = 0;
+        ExecutorService executor = null;
+        try {
+            if (JOrphanUtils.isBlank(getDataSource())) {
+                throw new IllegalArgumentException("Variable Name must not be null in " + getName());
+            }
+            if (setupError != null) {
+                throw setupError;
+            }
+            JMeterContext threadContext = getThreadContext();
+            List<Branch> branches = new ArrayList<Branch>(elements.length);
+            for (int i = 0; i < elements.length; i++) {
+                branches.add(new Branch(elements[i], threadContext, getName() + "-" + (i + 1))); // $NON-NLS-1$
+            }
+            executor = newExecutor();
+            for (Future<SampleResult> future : executor.invokeAll(branches)) {
+                subResults.add(future.get());
+            }
+            for (Branch branch : branches) {
+                // The longest pool wait, the waits of the statements overlap
+                connectNanos = Math.max(connectNanos, branch.connectNanos);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            setError(res, ex, "000"); // $NON-NLS-1$
+        } catch (ExecutionException ex) {
+            setError(res, ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex, "000"); // $NON-NLS-1$
+        } catch (SQLException ex) {
+            setError(res, ex, ex.getSQLState() + " " + ex.getErrorCode()); // $NON-NLS-1$
+        } catch (Exception ex) {
+            setError(res, ex, "000"); // $NON-NLS-1$
+        } finally {
+            if (executor != null && executor != sharedExecutor) {
+                executor.shutdown();
+            }
+        }
+        res.sampleEnd();
+
+        if (res.isSuccessful()) {
+            StringBuilder summary = new StringBuilder();
+            long firstRow = 0;
+            for (SampleResult sub : subResults) {
+                res.addSubResult(sub);
+                firstRow = Math.max(firstRow, sub.getStartTime() + sub.getLatency() - res.getStartTime());
+                summary.append(sub.getSampleLabel()).append('\t')
+                        .append(sub.getResponseCode()).append('\t')
+                        .append(sub.getTime()).append(" ms\n"); // $NON-NLS-1$
+                if (!sub.isSuccessful()) {
+                    res.setSuccessful(false);
+                    res.setResponseCode(sub.getResponseCode());
+                    res.setResponseMessage(sub.getResponseMessage());
+                }
+            }
+            res.setLatency(firstRow);
+            res.setResponseData(summary.toString(), ENCODING);
+        }
+
+        SamplerMetrics metrics = getSamplerMetrics();
+        metrics.sampleEnded(res.isSuccessful(), System.nanoTime() - sampleStart, connectNanos);
+        String prefix = getStatisticsVariable().trim();
+        if (isExportMetrics() && prefix.length() > 0) {
+            metrics.exportTo(getThreadContext().getVariables(), prefix);
+        }
+        return res;
+    }
+
+    /**
+     * Gets the elements running the statements, created on first use and when the statements change. The
+     * configuration of this sampler is copied to them, each property again only when its value changed, so
+     * values computed from variables for each sample still reach the statements.
+     */
+    private JDBCFanOutSampler[] getBranchElements() throws Exception {
+        PropertyDescriptor[] properties = getBeanProperties();
+        String current = getStatements();
+        boolean rebuilt = branchElements == null || !current.equals(branchStatements);
+        if (rebuilt) {
+            List<String> queries = SqlScript.split(current);
+            JDBCFanOutSampler[] elements = new JDBCFanOutSampler[queries.size()];
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = branchElements != null && i < branchElements.length ? branchElements[i] : newBranchElement();
+                elements[i].setQuery(queries.get(i));
+            }
+            branchElements = elements;
+            branchStatements = current;
+            branchValues = new Object[properties.length];
+        }
+        for (int p = 0; p < properties.length; p++) {
+            Object value = properties[p].getReadMethod().invoke(this);
+            if (rebuilt || !(value == null ? branchValues[p] == null : value.equals(branchValues[p]))) {
+                branchValues[p] = value;
+                for (JDBCFanOutSampler element : branchElements) {
+                    properties[p].getWriteMethod().invoke(element, value);
+                }
+            }
+        }
+        return branchElements;
+    }
+
+    private JDBCFanOutSampler newBranchElement() {
+        JDBCFanOutSampler branch = new JDBCFanOutSampler();
+        branch.setName(getName());
+        branch.setVariableNames(""); // $NON-NLS-1$
+        branch.setResultVariable(""); // $NON-NLS-1$
+        branch.setStatisticsVariable(""); // $NON-NLS-1$
+        return branch;
+    }
+
+    /**
+     * @return the properties of the sampler, those of the JDBC sampler included, that have a getter and a
+     * setter and are copied to the statement elements
+     */
+    private static synchronized PropertyDescriptor[] getBeanProperties() throws IntrospectionException {
+        if (beanProperties == null) {
+            List<PropertyDescriptor> properties = new ArrayList<PropertyDescriptor>();
+            for (PropertyDescriptor property : Introspector.getBeanInfo(JDBCFanOutSampler.class, AbstractTestElement.class,
+                    Introspector.IGNORE_ALL_BEANINFO).getPropertyDescriptors()) {
+                if (property.getReadMethod() != null && property.getWriteMethod() != null
+                        && !BRANCH_PROPERTIES.contains(property.getName())) {
+                    properties.add(property);
+                }
+            }
+            beanProperties = properties.toArray(new PropertyDescriptor[properties.size()]);
+        }
+        return beanProperties;
+    }
+
+    private static void setError(SampleResult res, Exception ex, String code) {
+        res.setResponseMessage(ex.toString());
+        res.setResponseCode(code);
+        res.setResponseData(String.valueOf(ex.getMessage()).getBytes());
+        res.setSuccessful(false);
+    }
+
+    private static ExecutorService newExecutor() throws Exception {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR != null) {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        }
+        return getSharedExecutor();
+    }
+
+    private static synchronized ExecutorService getSharedExecutor() {
+        if (sharedExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "jdbc-fanout-" + count.incrementAndGet()); // $NON-NLS-1$
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            sharedExecutor = executor;
+        }
+        return sharedExecutor;
+    }
+
+    private static Method findVirtualThreadExecutor() {
+        try {
+            return java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor"); // $NON-NLS-1$
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    public boolean applies(ConfigTestElement configTestElement) {
+        String guiClass = configTestElement.getProperty(TestElement.GUI_CLASS).getStringValue();
+        return APPLIABLE_CONFIG_CLASSES.contains(guiClass);
+    }
+
+    public String getStatements() {
+        return statements;
+    }
+
+    public void setStatements(String statements) {
+        this.statements = statements;
+    }
+
+    /**
+     * Runs one statement on its own connection and records it as a sub-result.
+     */
+    private static final class Branch implements Callable<SampleResult> {
+
+        private final JDBCFanOutSampler element;
+        private final JMeterVariables variables;
+        private final AbstractThreadGroup threadGroup;
+        private final int threadNum;
+        private final String label;
+        private final long submitted = System.nanoTime();
+        /**
+         * Time spent waiting for the connection, set once the branch has run
+         */
+        private volatile long connectNanos;
+
+        Branch(JDBCFanOutSampler element, JMeterContext threadContext, String label) {
+            this.element = element;
+            this.variables = threadContext.getVariables();
+            this.threadGroup = threadContext.getThreadGroup();
+            this.threadNum = threadContext.getThreadNum();
+            this.label = label;
+        }
+
+        public SampleResult call() {
+            long queueNanos = System.nanoTime() - submitted;
+            SampleResult sub = new SampleResult();
+            sub.setSampleLabel(label);
+            sub.setSamplerData(element.getQuery());
+            sub.setDataType(SampleResult.TEXT);
+            sub.setContentType("text/plain"); // $NON-NLS-1$
+            sub.setDataEncoding(ENCODING);
+            sub.setSuccessful(true);
+            sub.setResponseMessageOK();
+            sub.setResponseCodeOK();
+
+            // The pools and the values bound are in the variables of the JMeter thread, only read here, and the
+            // parameter file positions follow its thread number
+            JMeterContext context = JMeterContextService.getContext();
+            context.setVariables(variables);
+            context.setThreadGroup(threadGroup);
+            context.setThreadNum(threadNum);
+            sub.sampleStart();
+            long start = System.nanoTime();
+            boolean executed = false;
+            Connection conn = null;
+            try {
+                try {
+                    conn = DataSourceElement.getConnection(element.getDataSource());
+                } finally {
+                    connectNanos = System.nanoTime() - start;
+                }
+                sub.setResponseHeaders(conn.toString());
+                executed = true;
+                sub.setResponseData(element.execute(conn));
+            } catch (SQLException ex) {
+                setError(sub, ex, ex.getSQLState() + " " + ex.getErrorCode()); // $NON-NLS-1$
+            } catch (Exception ex) {
+                setError(sub, ex, "000"); // $NON-NLS-1$
+            } finally {
+                long closeStart = System.nanoTime();
+                element.releaseConnection(conn);
+                if (executed) {
+                    element.getExecutionStatistics().addCloseNanos(System.nanoTime() - closeStart);
+                }
+                context.clear();
+                context.setThreadGroup(null);
+            }
+            if (executed) {
+                ExecutionStatistics statistics = element.getExecutionStatistics();
+                if (statistics.getBudgetStop() != null && sub.isSuccessful()) {
+                    sub.setResponseCode(statistics.getBudgetStop());
+                    sub.setResponseMessage(statistics.getBudgetMessage());
+                    sub.setSuccessful(!statistics.isCancelled());
+                }
+                statistics.setConnectNanos(connectNanos);
+                long firstRow = statistics.getFirstRowTime();
+                sub.setLatency(TimeUnit.NANOSECONDS.toMillis((firstRow != 0 ? firstRow : System.nanoTime()) - start));
+                sub.setResponseHeaders(sub.getResponseHeaders() + "\n" + statistics // $NON-NLS-1$
+                        + String.format(Locale.ENGLISH, "Queue wait (ms): %.3f\n", queueNanos / 1e6)); // $NON-NLS-1$
+            } else {
+                sub.latencyEnd();
+            }
+            sub.sampleEnd();
+            return sub;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.redhat.jmeter.sampler.jdbc.sampler;
+
+import com.redhat.jmeter.sampler.jdbc.JDBCAdvancedTestElementBeanInfoSupport;
+import org.apache.jmeter.testbeans.gui.TypeEditor;
+
+import java.beans.PropertyDescriptor;
+
+/**
+ * Replaces the single query of the JDBC sampler with a list of statements run concurrently.
+ */
+public class JDBCFanOutSamplerBeanInfo extends JDBCAdvancedTestElementBeanInfoSupport {
+    public JDBCFanOutSamplerBeanInfo() {
+        super(JDBCFanOutSampler.class);
+        createPropertyGroup("fanOutConfig", // $NON-NLS-1$
+                new String[]{
+                        "statements" // $NON-NLS-1$
+                });
+
+        PropertyDescriptor p = property("statements", TypeEditor.TextAreaEditor); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, ""); // $NON-NLS-1$
+
+        property("query").setHidden(true); // $NON-NLS-1$
+        // Each statement runs on its own connection checked out of the pool
+        property("pinConnection").setHidden(true); // $NON-NLS-1$
+        property("parameterFile").setHidden(true); // $NON-NLS-1$
+        property("parameterFileFormat").setHidden(true); // $NON-NLS-1$
+        property("parameterFileOrder").setHidden(true); // $NON-NLS-1$
+    }
+}
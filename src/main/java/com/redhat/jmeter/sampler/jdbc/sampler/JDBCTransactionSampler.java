@@ -0,0 +1,285 @@
+package com.redhat.jmeter.sampler.jdbc.sampler;
+
+import com.redhat.jmeter.sampler.jdbc.AbstractJDBCAdvancedTestElement;
+import com.redhat.jmeter.sampler.jdbc.ExecutionStatistics;
+import com.redhat.jmeter.sampler.jdbc.ParameterBindingPlan;
+import com.redhat.jmeter.sampler.jdbc.SqlScript;
+import org.apache.jmeter.config.ConfigTestElement;
+import org.apache.jmeter.engine.util.ConfigMergabilityIndicator;
+import org.apache.jmeter.samplers.Entry;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.Sampler;
+import org.apache.jmeter.testbeans.TestBean;
+import org.apache.jmeter.testelement.TestElement;
+import org.apache.jorphan.logging.LoggingManager;
+import org.apache.jorphan.util.JOrphanUtils;
+import org.apache.log.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the steps of a {@link SqlScript} in order on one connection, inside one transaction. Every step
+ * and the final commit or rollback get a sub-result. A failing step rolls the transaction back and
+ * skips the remaining steps; otherwise the transaction is ended according to the transaction policy,
+ * and a failed commit is rolled back. Auto-commit is switched off for the duration of the sample and
+ * restored before the connection is returned to the pool, once the transaction has ended.
+ * <p>
+ * The steps run as prepared statements, so the parameter types cannot be OUT or INOUT.
+ */
+public class JDBCTransactionSampler extends AbstractJDBCAdvancedTestElement implements Sampler, TestBean, ConfigMergabilityIndicator {
+
+    private static final Logger log = LoggingManager.getLoggerForClass();
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Set<String> APPLIABLE_CONFIG_CLASSES = new HashSet<String>(
+            Arrays.asList(new String[]{
+                    "org.apache.jmeter.config.gui.SimpleConfigGui"}));
+
+    static final String POLICY_COMMIT = "Commit"; // $NON-NLS-1$
+    static final String POLICY_ROLLBACK = "Rollback"; // $NON-NLS-1$
+
+    private String script = "";
+    private String transactionPolicy = POLICY_COMMIT;
+
+    public SampleResult sample(Entry entry) {
+        log.debug("sampling jdbc transaction");
+
+        SampleResult res = new SampleResult();
+        res.setSampleLabel(getName());
+        res.setSamplerData(getScript());
+        res.setDataType(SampleResult.TEXT);
+        res.setContentType("text/plain"); // $NON-NLS-1$
+        res.setDataEncoding(ENCODING);
+        res.setSuccessful(true);
+        res.setResponseMessageOK();
+        res.setResponseCodeOK();
+
+        List<SampleResult> subResults = new ArrayList<SampleResult>();
+        long connectNanos = 0;
+        long transactionNanos = 0;
+
+        res.sampleStart();
+        long start = System.nanoTime();
+        Connection conn = null;
+        try {
+            if (JOrphanUtils.isBlank(getDataSource())) {
+                throw new IllegalArgumentException("Variable Name must not be null in " + getName());
+            }
+            SqlScript sqlScript = SqlScript.forText(getScript());
+            String[] arguments = getArguments(sqlScript);
+
+            conn = getConnection();
+            connectNanos = System.nanoTime() - start;
+            res.setResponseHeaders(conn.toString());
+
+            boolean autoCommit = conn.getAutoCommit();
+            long transactionStart = System.nanoTime();
+            boolean ended = false;
+            try {
+                if (autoCommit) {
+                    conn.setAutoCommit(false);
+                }
+                boolean success = runSteps(conn, sqlScript, arguments, subResults);
+                ended = endTransaction(conn, success && POLICY_COMMIT.equals(getTransactionPolicy()), subResults);
+            } finally {
+                transactionNanos = System.nanoTime() - transactionStart;
+                if (autoCommit) {
+                    restoreAutoCommit(conn, ended);
+                }
+            }
+        } catch (SQLException ex) {
+            setError(res, ex, ex.getSQLState() + " " + ex.getErrorCode()); // $NON-NLS-1$
+        } catch (Exception ex) {
+            setError(res, ex, "000"); // $NON-NLS-1$
+        } finally {
+            releaseConnection(conn);
+        }
+        res.sampleEnd();
+
+        StringBuilder summary = new StringBuilder();
+        long firstRow = 0;
+        for (SampleResult sub : subResults) {
+            res.addSubResult(sub);
+            if (firstRow == 0 && sub.getLatency() > 0) {
+                firstRow = sub.getStartTime() + sub.getLatency() - res.getStartTime();
+            }
+            summary.append(sub.getSampleLabel()).append('\t')
+                    .append(sub.getResponseCode()).append('\t')
+                    .append(sub.getTime()).append(" ms\n"); // $NON-NLS-1$
+            if (!sub.isSuccessful() && res.isSuccessful()) {
+                res.setSuccessful(false);
+                res.setResponseCode(sub.getResponseCode());
+                res.setResponseMessage(sub.getResponseMessage());
+            }
+        }
+        res.setLatency(firstRow);
+        if (conn != null) {
+            res.setResponseHeaders(res.getResponseHeaders()
+                    + "\nConnect (ms): " + TimeUnit.NANOSECONDS.toMillis(connectNanos) // $NON-NLS-1$
+                    + "\nTransaction (ms): " + TimeUnit.NANOSECONDS.toMillis(transactionNanos)); // $NON-NLS-1$
+        }
+        if (res.isSuccessful() || subResults.size() > 0) {
+            res.setResponseData(summary.toString(), ENCODING);
+        }
+        getSamplerMetrics().sampleEnded(res.isSuccessful(), System.nanoTime() - start, connectNanos);
+        return res;
+    }
+
+    private String[] getArguments(SqlScript sqlScript) throws Exception {
+        String[] arguments = getQueryArguments().trim().length() == 0
+                ? new String[0] : ParameterBindingPlan.splitValues(getQueryArguments());
+        if (arguments.length != sqlScript.getArgumentCount()) {
+            throw new SQLException("number of arguments (" + arguments.length + ") and number of parameter markers ("
+                    + sqlScript.getArgumentCount() + ") are not equal");
+        }
+        if (arguments.length > 0 && ParameterBindingPlan.forTypes(getQueryArgumentsTypes()).size() != arguments.length) {
+            throw new SQLException("number of arguments (" + arguments.length + ") and number of types ("
+                    + ParameterBindingPlan.forTypes(getQueryArgumentsTypes()).size() + ") are not equal");
+        }
+        if (arguments.length > 0) {
+            ParameterBindingPlan plan = ParameterBindingPlan.forTypes(getQueryArgumentsTypes());
+            for (int i = 0; i < plan.size(); i++) {
+                if (plan.getBinder(i).isOutput()) {
+                    throw new SQLException("parameter " + (i + 1) + " is OUT or INOUT, but transaction steps are not callable statements");
+                }
+            }
+        }
+        return arguments;
+    }
+
+    /**
+     * Runs the steps in order until one fails.
+     *
+     * @return true if all steps succeeded
+     */
+    private boolean runSteps(Connection conn, SqlScript sqlScript, String[] arguments, List<SampleResult> subResults) {
+        Map<String, Object> values = new HashMap<String, Object>();
+        List<SqlScript.Step> steps = sqlScript.getSteps();
+        for (int i = 0; i < steps.size(); i++) {
+            SqlScript.Step step = steps.get(i);
+            SampleResult sub = createSubResult(getName() + "-" + (i + 1), step.getSql()); // $NON-NLS-1$
+            subResults.add(sub);
+            sub.sampleStart();
+            long start = System.nanoTime();
+            try {
+                sub.setResponseData(executeStep(conn, step, arguments, values), ENCODING);
+            } catch (SQLException ex) {
+                setError(sub, ex, ex.getSQLState() + " " + ex.getErrorCode()); // $NON-NLS-1$
+            } catch (Exception ex) {
+                setError(sub, ex, "000"); // $NON-NLS-1$
+            }
+            ExecutionStatistics statistics = getExecutionStatistics();
+            long firstRow = statistics.getFirstRowTime();
+            sub.setLatency(TimeUnit.NANOSECONDS.toMillis((firstRow != 0 ? firstRow : System.nanoTime()) - start));
+            sub.setResponseHeaders(statistics.toString());
+            sub.sampleEnd();
+            if (!sub.isSuccessful()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Commits or rolls back the transaction. A failed commit is rolled back, so that switching auto-commit
+     * back on cannot commit what is left of the transaction.
+     *
+     * @return false if the transaction is still open because the rollback failed
+     */
+    private boolean endTransaction(Connection conn, boolean commit, List<SampleResult> subResults) {
+        SampleResult sub = createSubResult(commit ? POLICY_COMMIT : POLICY_ROLLBACK, null);
+        subResults.add(sub);
+        sub.sampleStart();
+        boolean ended = true;
+        try {
+            if (commit) {
+                conn.commit();
+            } else {
+                conn.rollback();
+            }
+        } catch (SQLException ex) {
+            setError(sub, ex, ex.getSQLState() + " " + ex.getErrorCode()); // $NON-NLS-1$
+            ended = commit && rollback(conn);
+        }
+        sub.latencyEnd();
+        sub.sampleEnd();
+        return ended;
+    }
+
+    private boolean rollback(Connection conn) {
+        try {
+            conn.rollback();
+            return true;
+        } catch (SQLException ex) {
+            log.warn("Could not roll back the transaction of " + getName() + " after its commit failed: " + ex);
+            return false;
+        }
+    }
+
+    /**
+     * Switches auto-commit back on once the transaction has ended. A failure is logged rather than reported,
+     * so it does not hide the outcome of the steps and of the commit or rollback.
+     */
+    private void restoreAutoCommit(Connection conn, boolean ended) {
+        if (!ended) {
+            log.warn("Transaction of " + getName() + " could not be ended, auto-commit is left off on " + conn);
+            return;
+        }
+        try {
+            conn.setAutoCommit(true);
+        } catch (SQLException ex) {
+            log.warn("Could not restore auto-commit on " + conn + ": " + ex);
+        }
+    }
+
+    private static SampleResult createSubResult(String label, String sql) {
+        SampleResult sub = new SampleResult();
+        sub.setSampleLabel(label);
+        sub.setSamplerData(sql);
+        sub.setDataType(SampleResult.TEXT);
+        sub.setContentType("text/plain"); // $NON-NLS-1$
+        sub.setDataEncoding(ENCODING);
+        sub.setSuccessful(true);
+        sub.setResponseMessageOK();
+        sub.setResponseCodeOK();
+        return sub;
+    }
+
+    private static void setError(SampleResult res, Exception ex, String code) {
+        res.setResponseMessage(ex.toString());
+        res.setResponseCode(code);
+        res.setResponseData(String.valueOf(ex.getMessage()).getBytes());
+        res.setSuccessful(false);
+    }
+
+    public boolean applies(ConfigTestElement configTestElement) {
+        String guiClass = configTestElement.getProperty(TestElement.GUI_CLASS).getStringValue();
+        return APPLIABLE_CONFIG_CLASSES.contains(guiClass);
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public void setScript(String script) {
+        this.script = script;
+    }
+
+    public String getTransactionPolicy() {
+        return transactionPolicy;
+    }
+
+    public void setTransactionPolicy(String transactionPolicy) {
+        this.transactionPolicy = transactionPolicy;
+    }
+}
@@ -0,0 +1,47 @@
+package com.redhat.jmeter.sampler.jdbc.sampler;
+
+import com.redhat.jmeter.sampler.jdbc.JDBCAdvancedTestElementBeanInfoSupport;
+import org.apache.jmeter.testbeans.gui.TypeEditor;
+
+import java.beans.PropertyDescriptor;
+
+/**
+ * Replaces the single query of the JDBC sampler with a script run as one transaction.
+ */
+public class JDBCTransactionSamplerBeanInfo extends JDBCAdvancedTestElementBeanInfoSupport {
+    public JDBCTransactionSamplerBeanInfo() {
+        super(JDBCTransactionSampler.class);
+        createPropertyGroup("transactionConfig", // $NON-NLS-1$
+                new String[]{
+                        "script", // $NON-NLS-1$
+                        "transactionPolicy" // $NON-NLS-1$
+                });
+
+        PropertyDescriptor p = property("script", TypeEditor.TextAreaEditor); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, ""); // $NON-NLS-1$
+
+        p = property("transactionPolicy"); // $NON-NLS-1$
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, JDBCTransactionSampler.POLICY_COMMIT);
+        p.setValue(NOT_OTHER, Boolean.TRUE);
+        p.setValue(TAGS, new String[]{
+                JDBCTransactionSampler.POLICY_COMMIT,
+                JDBCTransactionSampler.POLICY_ROLLBACK
+        });
+
+        // The steps are prepared statements whose results only feed the following steps
+        String[] unused = new String[]{
+                "query", "queryType", "variableNames", "resultVariable", // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$ $NON-NLS-4$
+                "resultSetHandler", "responseCaptureLimit", "spillToDisk", "statisticsVariable", // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$ $NON-NLS-4$
+                "exportMetrics", "variableExtraction", "variableExtractionSize", // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$
+                "lobCaptureLimit", "lobHash", // $NON-NLS-1$ $NON-NLS-2$
+                "parameterFile", "parameterFileFormat", "parameterFileOrder", // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$
+                "batchFile", "batchVariable", "batchSize", "batchCommitInterval", // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$ $NON-NLS-4$
+                "rowBudget", "byteBudget", "timeBudget" // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$
+        };
+        for (String name : unused) {
+            property(name).setHidden(true);
+        }
+    }
+}